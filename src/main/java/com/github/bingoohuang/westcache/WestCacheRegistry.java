@@ -1,6 +1,7 @@
 package com.github.bingoohuang.westcache;
 
 import com.github.bingoohuang.westcache.base.*;
+import com.github.bingoohuang.westcache.batch.BatcherJob;
 import com.github.bingoohuang.westcache.config.DefaultWestCacheConfig;
 import com.github.bingoohuang.westcache.flusher.ByPassCacheFlusher;
 import com.github.bingoohuang.westcache.flusher.DiamondCacheFlusher;
@@ -44,7 +45,7 @@ public class WestCacheRegistry {
         FLUSHER_REGISTRY.register("simple", new SimpleCacheFlusher());
         if (Envs.HAS_DIAMOND) FLUSHER_REGISTRY.register("diamond", new DiamondCacheFlusher());
         if (Envs.HAS_EQL) FLUSHER_REGISTRY.register("table", new TableCacheFlusher());
-        if (Envs.HAS_QUARTZ) FLUSHER_REGISTRY.register("quartz", new QuartzCacheFlusher());
+        FLUSHER_REGISTRY.register("quartz", new QuartzCacheFlusher());
     }
 
 
@@ -63,6 +64,7 @@ public class WestCacheRegistry {
     static {
         MANAGER_REGISTRY.register(DEFAULT, new GuavaCacheManager());
         MANAGER_REGISTRY.register("file", new FileCacheManager());
+        MANAGER_REGISTRY.register("tinylfu", new TinyLfuCacheManager());
         if (Envs.HAS_DIAMOND) MANAGER_REGISTRY.register("diamond", new DiamondCacheManager());
         if (Envs.HAS_EXPIRING) MANAGER_REGISTRY.register("expiring", new ExpiringMapCacheManager());
         if (Envs.HAS_JEDIS) MANAGER_REGISTRY.register(REDIS, new RedisCacheManager());
@@ -94,4 +96,7 @@ public class WestCacheRegistry {
         INTERCEPTOR_REGISTRY.register(DEFAULT, new ByPassInterceptor());
         if (Envs.HAS_JEDIS) INTERCEPTOR_REGISTRY.register(REDIS, new RedisInterceptor());
     }
+
+    public static final RegistryTemplate<BatcherJob<?, ?>> BATCH_LOADER_REGISTRY
+            = new RegistryTemplate<BatcherJob<?, ?>>();
 }
@@ -0,0 +1,23 @@
+package com.github.bingoohuang.westcache.base;
+
+/**
+ * The optional bounds of the adaptive snapshot timeout, which are
+ * looked up by instanceof on the {@link WestCacheConfig}.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public interface AdaptiveSnapshotConfig {
+    /**
+     * The lower bound of the adaptive timeout millis for snapshot.
+     *
+     * @return timeout millis.
+     */
+    long minTimeoutMillisToSnapshot();
+
+    /**
+     * The upper bound of the adaptive timeout millis for snapshot.
+     *
+     * @return timeout millis.
+     */
+    long maxTimeoutMillisToSnapshot();
+}
@@ -0,0 +1,18 @@
+package com.github.bingoohuang.westcache.base;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * A loader to create the cache value asynchronously without blocking the caller.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public interface AsyncLoader {
+    /**
+     * Start to load the cache value.
+     *
+     * @return the future of cache item.
+     * @throws Exception when the loading fails to start.
+     */
+    ListenableFuture<WestCacheItem> load() throws Exception;
+}
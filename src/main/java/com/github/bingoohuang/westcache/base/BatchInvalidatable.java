@@ -0,0 +1,20 @@
+package com.github.bingoohuang.westcache.base;
+
+import com.github.bingoohuang.westcache.utils.WestCacheOption;
+
+import java.util.Map;
+
+/**
+ * The cache which invalidates many keys in one call, like one round trip to the remote server.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public interface BatchInvalidatable {
+    /**
+     * Invalidate the caches of the keys with the versions.
+     *
+     * @param option      westcache settings.
+     * @param keyVersions map of cache key to version string.
+     */
+    void invalidateAll(WestCacheOption option, Map<String, String> keyVersions);
+}
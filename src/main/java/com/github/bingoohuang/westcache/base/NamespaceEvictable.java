@@ -0,0 +1,17 @@
+package com.github.bingoohuang.westcache.base;
+
+/**
+ * The in-process or file cache which evicts the entries of the old generations when a namespace is flushed,
+ * instead of keeping them unreachable until they are expired or evicted by the size.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public interface NamespaceEvictable {
+    /**
+     * Evict the entries whose physical keys belong to the old generations of the namespace,
+     * and keep the ones already written under the new generation.
+     *
+     * @param namespace namespace like a cache key prefix.
+     */
+    void evictNamespace(String namespace);
+}
@@ -3,10 +3,13 @@ package com.github.bingoohuang.westcache.base;
 import com.github.bingoohuang.westcache.utils.WestCacheOption;
 import com.google.common.base.Optional;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.val;
 
 import static com.github.bingoohuang.westcache.utils.Durations.parse;
+import static com.github.bingoohuang.westcache.utils.EarlyExpirations.jitterMillis;
 import static com.github.bingoohuang.westcache.utils.ExpireAfterWrites.parseExpireAfterWrite;
+import static com.github.bingoohuang.westcache.utils.NegativeCaches.getNegativeTtl;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
 /**
@@ -15,20 +18,40 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 public class WestCacheItem {
     private final Optional optional;
     @Getter private final long durationSeconds;
-    private final long expiredAt;
+    @Getter private final long expiredAt;
+    // the cost of the load, which is used to refresh early
+    @Getter @Setter private volatile long loadMillis;
 
     public WestCacheItem(Optional optional, WestCacheOption option) {
         this.optional = optional;
-        val expireWrite = parseExpireAfterWrite(option, optional.orNull());
+        // absent value expires after negativeTtl instead when set
+        val negativeTtl = optional.isPresent() ? null : getNegativeTtl(option);
+        val expireWrite = isBlank(negativeTtl)
+                ? parseExpireAfterWrite(option, optional.orNull()) : negativeTtl;
         if (isBlank(expireWrite)) {
             this.durationSeconds = 0;
             this.expiredAt = 0;
             return;
         }
 
-        val duration = parse("expireAfterWrite", expireWrite);
-        this.durationSeconds = duration;
-        this.expiredAt = System.currentTimeMillis() + duration * 1000;
+        val duration = parse(isBlank(negativeTtl)
+                ? "expireAfterWrite" : "negativeTtl", expireWrite);
+        val millis = jitterMillis(option, duration * 1000);
+        this.durationSeconds = duration > 0 ? Math.max(millis / 1000, 1) : duration;
+        this.expiredAt = System.currentTimeMillis() + millis;
+    }
+
+    /**
+     * Create a cache item expiring after the specified seconds,
+     * like the fallback value while the origin is unavailable.
+     *
+     * @param optional        value.
+     * @param durationSeconds lifetime in seconds.
+     */
+    public WestCacheItem(Optional optional, long durationSeconds) {
+        this.optional = optional;
+        this.durationSeconds = durationSeconds;
+        this.expiredAt = System.currentTimeMillis() + durationSeconds * 1000;
     }
 
     public Optional getObject() {
@@ -0,0 +1,24 @@
+package com.github.bingoohuang.westcache.base;
+
+import com.github.bingoohuang.westcache.utils.WestCacheOption;
+
+import java.util.concurrent.Callable;
+
+/**
+ * A flusher which can reload the cache proactively instead of
+ * only invalidating it, by the loader remembered at registration.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/3.
+ */
+public interface WestCacheReloadable {
+    /**
+     * Remember the loader of the cache key which is registered at first time.
+     *
+     * @param option   WestCacheOption.
+     * @param cacheKey Cache key.
+     * @param loader   loader to create the cache value with remembered arguments.
+     */
+    void rememberLoader(WestCacheOption option,
+                        String cacheKey,
+                        Callable<WestCacheItem> loader);
+}
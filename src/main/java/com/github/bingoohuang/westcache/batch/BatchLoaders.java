@@ -0,0 +1,119 @@
+package com.github.bingoohuang.westcache.batch;
+
+import com.github.bingoohuang.westcache.WestCacheRegistry;
+import com.github.bingoohuang.westcache.base.WestCacheException;
+import com.github.bingoohuang.westcache.spring.SpringAppContext;
+import com.github.bingoohuang.westcache.utils.Envs;
+import com.github.bingoohuang.westcache.utils.Guavas;
+import com.github.bingoohuang.westcache.utils.WestCacheOption;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.ListenableFuture;
+import lombok.experimental.UtilityClass;
+import lombok.val;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * The micro-batched loading of the cache misses.
+ * <p>
+ * With batchLoader=[name] spec on a method of only one argument, the concurrent misses
+ * are funneled through a batcher of the method into one {@link BatcherJob#doBatchJob(java.util.List)} call
+ * of the batch loader, instead of invoking the method one by one,
+ * and each result populates its own cache entry.
+ * The batch loader is looked up in {@link WestCacheRegistry#BATCH_LOADER_REGISTRY},
+ * and then in the spring context by bean name.
+ * <p>
+ * batchWaitMillis=[millis]: the longest wait to gather a batch, 10 by default.
+ * batchWaitItems=[n]: start the batch job at once when n misses are waiting, 16 by default.
+ * batchMaxNum=[n]: at most n arguments in one batch job, 100 by default.
+ * batchTargetMillis=[millis]: tune the batch size and wait adaptively toward
+ * the target latency of each argument, bounded by batchWaitMillis and batchMaxNum.
+ * <p>
+ * The batcher is owned by the weakly referenced option, so its timed drain closes it
+ * once the option is collected, without waiting for the lazy cleanup of the cache.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@UtilityClass
+public class BatchLoaders {
+    private static final LoadingCache<WestCacheOption, Batcher<Object, Object>> batcherCache
+            = CacheBuilder.newBuilder().weakKeys().removalListener(
+            new RemovalListener<WestCacheOption, Batcher<Object, Object>>() {
+                @Override public void onRemoval(
+                        RemovalNotification<WestCacheOption, Batcher<Object, Object>> notification) {
+                    notification.getValue().close();
+                }
+            }).build(
+            new CacheLoader<WestCacheOption, Batcher<Object, Object>>() {
+                @Override public Batcher<Object, Object> load(WestCacheOption option) {
+                    return createBatcher(option);
+                }
+            });
+
+    /**
+     * Tell whether the misses of the cached method are loaded by a batch loader.
+     *
+     * @param option WestCacheOption.
+     * @return true when batchLoader is specified.
+     */
+    public static boolean isBatchLoaded(WestCacheOption option) {
+        return isNotBlank(option.getSpecs().get("batchLoader"));
+    }
+
+    /**
+     * Submit the argument of a missed call to the batcher of the cached method.
+     *
+     * @param option WestCacheOption.
+     * @param args   the arguments of the method call.
+     * @return the future of the result in the batch.
+     */
+    public static ListenableFuture<Object> submit(WestCacheOption option, Object[] args) {
+        if (args == null || args.length != 1) throw new WestCacheException(
+                "batchLoader requires the method of only one argument");
+
+        return Guavas.cacheGet(batcherCache, option).submit(args[0]);
+    }
+
+    /**
+     * Get the statistics of the batcher of the cached method.
+     *
+     * @param option WestCacheOption.
+     * @return batcher statistics.
+     */
+    public static BatcherStats getStats(WestCacheOption option) {
+        return Guavas.cacheGet(batcherCache, option).getStats();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Batcher<Object, Object> createBatcher(WestCacheOption option) {
+        val specs = option.getSpecs();
+        val name = specs.get("batchLoader").trim();
+        val batchLoader = (BatcherJob<Object, Object>) findBatchLoader(name);
+        if (batchLoader == null) throw new WestCacheException(
+                "batchLoader " + name + " is not found");
+
+        return BatcherBuilder.newBuilder(batchLoader)
+                .maxWaitMillis(parseInt(specs.get("batchWaitMillis"), 10))
+                .maxWaitItems(parseInt(specs.get("batchWaitItems"), 16))
+                .maxBatchNum(parseInt(specs.get("batchMaxNum"), 100))
+                .targetLatencyMillis(parseInt(specs.get("batchTargetMillis"), 0))
+                .owner(option)
+                .build();
+    }
+
+    private static BatcherJob<?, ?> findBatchLoader(String name) {
+        val batchLoader = WestCacheRegistry.BATCH_LOADER_REGISTRY.get(name);
+        if (batchLoader != null || !Envs.HAS_SPRING) return batchLoader;
+
+        return SpringAppContext.getBean(name);
+    }
+
+    private static int parseInt(String spec, int defaultValue) {
+        return isBlank(spec) ? defaultValue : Integer.parseInt(spec.trim());
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.bingoohuang.westcache.batch;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The tuner of the adaptive batcher toward a target latency per argument,
+ * which is the linger time in the queue plus the batch job time.
+ * <p>
+ * The linger time is what the target leaves after the observed batch job time,
+ * and the batch size to start at once is what arrives in the linger time.
+ * So under light load the argument is batched at once alone without lingering,
+ * and under heavy load more arguments are gathered into a batch within the target.
+ * <p>
+ * It is recorded and tuned only by the single drainer,
+ * and read by the submitters through the volatile fields.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+class BatchTuner {
+    static final long TUNE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    static final double ALPHA = 0.3; // weight of the latest observation
+
+    private final long targetNanos;
+    private final long maxLingerNanos;
+    private final int maxWaitItems;
+
+    volatile long lingerNanos = 0;
+    volatile int waitItems = 1;
+
+    private double jobNanos = -1;   // moving average of the batch job time
+    private double arrivalRate = 0; // moving average of the arguments per nano
+    private long intervalStart;
+    private long intervalItems;
+
+    BatchTuner(long targetMillis, long maxLingerMillis, int maxWaitItems) {
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(targetMillis);
+        this.maxLingerNanos = TimeUnit.MILLISECONDS.toNanos(maxLingerMillis);
+        this.maxWaitItems = Math.max(maxWaitItems, 1);
+        this.intervalStart = System.nanoTime();
+    }
+
+    /**
+     * Record a batch job, and tune for every interval.
+     *
+     * @param batchSize  the number of the arguments in the batch.
+     * @param batchNanos the time of the batch job.
+     */
+    void record(int batchSize, long batchNanos) {
+        record(batchSize, batchNanos, System.nanoTime());
+    }
+
+    void record(int batchSize, long batchNanos, long now) {
+        jobNanos = jobNanos < 0 ? batchNanos : average(jobNanos, batchNanos);
+        intervalItems += batchSize;
+
+        long elapsed = now - intervalStart;
+        if (elapsed < TUNE_INTERVAL_NANOS) return;
+
+        arrivalRate = average(arrivalRate, (double) intervalItems / elapsed);
+        intervalStart = now;
+        intervalItems = 0;
+        tune();
+    }
+
+    private void tune() {
+        long linger = (long) Math.min(Math.max(targetNanos - jobNanos, 0), maxLingerNanos);
+        long items = Math.round(arrivalRate * linger);
+
+        lingerNanos = linger;
+        waitItems = (int) Math.min(Math.max(items, 1), maxWaitItems);
+    }
+
+    private static double average(double average, double value) {
+        return average + ALPHA * (value - average);
+    }
+}
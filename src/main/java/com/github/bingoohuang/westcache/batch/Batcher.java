@@ -2,59 +2,104 @@ package com.github.bingoohuang.westcache.batch;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 /**
+ * Batch the submitted arguments to call the batch job.
+ * <p>
+ * The arguments wait in a bounded lock-free ring buffer. When maxWaitItems are reached
+ * or every maxWaitMillis, the only drainer polls them into batches of maxBatchNum.
+ * When the buffer is full, the submitter is blocked or rejected by the full policy.
+ * The identical arguments in a batch are passed to the batch job once when dedupe is set.
+ * <p>
+ * With a target latency, the batcher is adaptive: the batch size to start at once
+ * and the linger time are tuned by {@link BatchTuner} from the observed batch job time
+ * and arrival rate, bounded by maxBatchNum and maxWaitMillis.
+ * <p>
+ * With an owner, the timed drain holds it weakly, and closes the batcher
+ * once the owner is garbage collected, instead of running on forever.
+ *
  * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/1/20.
  */
 @Slf4j
 public class Batcher<T, V> {
-    final Queue<BatcherBean<T, V>> queue;
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    final MpscRingBuffer<BatcherBean<T, V>> queue;
     final ScheduledExecutorService service;
     final BatcherJob<T, V> batcherJob;
     final int maxWaitItems;
+    final int maxBatchNum;
+    final BatcherFullPolicy fullPolicy;
+    final BatchTuner tuner; // null when not adaptive
+    final boolean dedupe;
+    @Getter final BatcherStats stats = new BatcherStats();
+    // only one drainer polls the queue at a time
+    private final AtomicBoolean draining = new AtomicBoolean();
     private final Runnable runner;
+    private final Runnable timedRunner;
+    private final ScheduledFuture<?> timedFuture;
+    private volatile boolean closed;
 
     public Batcher(final ScheduledExecutorService service,
                    final BatcherJob<T, V> batcherJob,
                    final long maxWaitMillis,
                    final int maxWaitItems,
                    final int maxBatchNum) {
-        this.queue = new ConcurrentLinkedQueue<BatcherBean<T, V>>();
-        this.service = service;
-        this.batcherJob = batcherJob;
-        this.maxWaitItems = maxWaitItems;
+        this(BatcherBuilder.newBuilder(batcherJob).executor(service).maxWaitMillis(maxWaitMillis)
+                .maxWaitItems(maxWaitItems).maxBatchNum(maxBatchNum));
+    }
+
+    Batcher(BatcherBuilder<T, V> builder) {
+        this.queue = new MpscRingBuffer<BatcherBean<T, V>>(builder.queueCapacity);
+        this.service = builder.service;
+        this.batcherJob = builder.batcherJob;
+        this.maxWaitItems = Math.max(builder.maxWaitItems, 1);
+        this.maxBatchNum = builder.maxBatchNum;
+        this.fullPolicy = builder.fullPolicy;
+        this.dedupe = builder.dedupe;
+        long maxWaitMillis = builder.maxWaitMillis;
+        this.tuner = builder.targetLatencyMillis <= 0 ? null : new BatchTuner(builder.targetLatencyMillis,
+                maxWaitMillis, maxBatchNum > 0 ? maxBatchNum : queue.capacity());
         this.runner = new Runnable() {
             @Override public void run() {
-                if (queue.isEmpty()) return;
-
-                val tasks = new ArrayList<BatcherBean<T, V>>(queue.size());
-                do {
-                    val task = queue.poll();
-                    if (task == null) break;
-
-                    tasks.add(task);
-                } while (tasks.size() != maxBatchNum);
-
-                if (tasks.isEmpty()) return;
-
-                doBatchWork(tasks);
+                drain(false);
             }
         };
-        service.scheduleWithFixedDelay(
-                runner, maxWaitMillis, maxWaitMillis, TimeUnit.MILLISECONDS);
+        this.timedRunner = new TimedDrain(this, builder.owner);
+        this.timedFuture = service.scheduleWithFixedDelay(timedRunner,
+                maxWaitMillis, maxWaitMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cancel the timed drain on the executor, and drain the waiting arguments.
+     * The arguments can not be submitted any more.
+     */
+    public void close() {
+        closed = true;
+        timedFuture.cancel(false);
+
+        // another drainer may hold the flag, or a submitter may not publish its slot yet
+        while (queue.size() > 0) {
+            drain(true);
+            if (queue.size() > 0) LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
     }
 
 
@@ -64,17 +109,130 @@ public class Batcher<T, V> {
      * @param argument batch argument.
      * @return future object.
      */
-    public Future<V> submit(T argument) {
+    public ListenableFuture<V> submit(T argument) {
+        if (closed) throw new RejectedExecutionException("batcher is closed");
+
         val future = SettableFuture.<V>create();
-        queue.add(new BatcherBean(argument, future));
-        if (queue.size() < maxWaitItems) return future;
+        offer(new BatcherBean<T, V>(argument, future, System.nanoTime()));
+        int size = queue.size();
+        if (size >= waitItems()) triggerDrain();
+        else if (size == 1 && tuner != null) scheduleLinger();
 
-        service.execute(runner);
         return future;
     }
 
+    /**
+     * The approximate number of the arguments waiting for the batch job.
+     *
+     * @return size.
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    /*
+     * The first waiting argument of the adaptive batcher
+     * lingers for the tuned time instead of the fixed maxWaitMillis.
+     */
+    private void scheduleLinger() {
+        long lingerNanos = tuner.lingerNanos;
+        if (lingerNanos <= 0) triggerDrain();
+        else service.schedule(timedRunner, lingerNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private int waitItems() {
+        return tuner != null ? tuner.waitItems : maxWaitItems;
+    }
+
+    private void offer(BatcherBean<T, V> bean) {
+        if (queue.offer(bean)) return;
+
+        if (fullPolicy == BatcherFullPolicy.REJECT) {
+            triggerDrain();
+            throw new RejectedExecutionException("batcher queue is full of "
+                    + queue.capacity() + " arguments");
+        }
+
+        do {
+            triggerDrain();
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("interrupted when batcher queue is full");
+            }
+        } while (!queue.offer(bean));
+    }
+
+    /*
+     * Schedule the runner only when no drainer is running,
+     * instead of racing the runners on every submit beyond maxWaitItems.
+     */
+    private void triggerDrain() {
+        if (draining.get()) return;
+
+        service.execute(runner);
+    }
+
+    /*
+     * Drain the queue by the only drainer.
+     * The timed one drains all the waiting arguments,
+     * and the triggered one drains while the waiting ones reach maxWaitItems.
+     */
+    private void drain(boolean all) {
+        while (draining.compareAndSet(false, true)) {
+            int polled;
+            try {
+                polled = drainBatches(all);
+            } finally {
+                draining.set(false);
+            }
+
+            // recheck the arguments submitted while releasing the flag, but stop when
+            // nothing is polled, the size counts the claimed slots not published yet,
+            // which are left to the next triggered or timed drain.
+            if (polled == 0 || queue.size() < waitItems()) return;
+        }
+    }
+
+    /*
+     * @return the number of the polled arguments.
+     */
+    private int drainBatches(boolean all) {
+        int polled = 0;
+        int remains = queue.size();
+        while (remains > 0 && (all || queue.size() >= waitItems())) {
+            int batchSize = maxBatchNum > 0 ? Math.min(remains, maxBatchNum) : remains;
+            val tasks = new ArrayList<BatcherBean<T, V>>(batchSize);
+            while (tasks.size() < batchSize) {
+                val task = queue.poll();
+                if (task == null) break;
+
+                tasks.add(task);
+            }
+
+            if (tasks.isEmpty()) break;
+
+            recordQueueDelays(tasks);
+            remains -= tasks.size();
+            polled += tasks.size();
+            doBatchWork(tasks);
+        }
+
+        return polled;
+    }
+
+    private void recordQueueDelays(List<BatcherBean<T, V>> tasks) {
+        long now = System.nanoTime();
+        for (int i = 0, ii = tasks.size(); i < ii; ++i) {
+            stats.getQueueDelays().record(now - tasks.get(i).getSubmitNanos());
+        }
+        stats.getBatchSizes().record(tasks.size());
+    }
+
     private void doBatchWork(List<BatcherBean<T, V>> tasks) {
-        val batchArgs = Lists.transform(tasks, new Function<BatcherBean<T, V>, T>() {
+        int[] argIndexes = dedupe ? new int[tasks.size()] : null;
+        val batchArgs = dedupe ? dedupeArgs(tasks, argIndexes)
+                : Lists.transform(tasks, new Function<BatcherBean<T, V>, T>() {
             @Override public T apply(BatcherBean<T, V> task) {
                 return task.getArg();
             }
@@ -82,6 +240,7 @@ public class Batcher<T, V> {
 
         List<V> results = null;
         Exception ex = null;
+        long start = System.nanoTime();
         try {
             results = batcherJob.doBatchJob(batchArgs);
         } catch (Exception e) {
@@ -89,30 +248,81 @@ public class Batcher<T, V> {
             ex = e;
         }
 
+        long jobNanos = System.nanoTime() - start;
+        stats.getJobTimes().record(jobNanos);
+        if (tuner != null) tuner.record(tasks.size(), jobNanos);
+
         int resultsSize = results != null ? results.size() : 0;
-        if (resultsSize != tasks.size()) {
-            log.error("result size {} is not same with task size {}", resultsSize, tasks.size());
+        if (resultsSize != batchArgs.size()) {
+            log.error("result size {} is not same with task size {}", resultsSize, batchArgs.size());
+        }
+
+        futuresSet(tasks, argIndexes, results, ex, resultsSize);
+    }
+
+    /*
+     * Keep the first of the identical arguments in the batch,
+     * and remember the index of its result for each task.
+     */
+    private List<T> dedupeArgs(List<BatcherBean<T, V>> tasks, int[] argIndexes) {
+        val indexes = new HashMap<T, Integer>(tasks.size() * 2);
+        val batchArgs = new ArrayList<T>(tasks.size());
+        for (int i = 0, ii = tasks.size(); i < ii; ++i) {
+            val arg = tasks.get(i).getArg();
+            Integer index = indexes.get(arg);
+            if (index == null) {
+                index = batchArgs.size();
+                indexes.put(arg, index);
+                batchArgs.add(arg);
+            }
+            argIndexes[i] = index;
         }
 
-        futuresSet(tasks, results, ex, resultsSize);
+        return batchArgs;
     }
 
-    private void futuresSet(List<BatcherBean<T, V>> tasks, List<V> results, Exception ex, int resultsSize) {
+    private void futuresSet(List<BatcherBean<T, V>> tasks, int[] argIndexes,
+                            List<V> results, Exception ex, int resultsSize) {
         for (int i = 0, ii = tasks.size(); i < ii; ++i) {
             val future = tasks.get(i).getFuture();
-            if (i < resultsSize) {
-                future.set(results.get(i));
+            int index = argIndexes == null ? i : argIndexes[i];
+            if (index < resultsSize) {
+                future.set(results.get(index));
             } else {
                 future.setException(ex != null ? ex : new RuntimeException("result is not available"));
             }
         }
     }
 
+    /*
+     * The timed drain does not keep the owner reachable,
+     * and closes the batcher at the first run after the owner is collected.
+     */
+    private static class TimedDrain implements Runnable {
+        private final Batcher<?, ?> batcher;
+        private final WeakReference<Object> owner; // null when not owned
+
+        TimedDrain(Batcher<?, ?> batcher, Object owner) {
+            this.batcher = batcher;
+            this.owner = owner == null ? null : new WeakReference<Object>(owner);
+        }
+
+        @Override public void run() {
+            if (owner != null && owner.get() == null) {
+                if (!batcher.closed) batcher.close();
+                return;
+            }
+
+            batcher.drain(true);
+        }
+    }
+
     /**
      * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/1/22.
      */
     @AllArgsConstructor @Getter private static class BatcherBean<T, V> {
         private final T arg;
         private final SettableFuture<V> future;
+        private final long submitNanos;
     }
 }
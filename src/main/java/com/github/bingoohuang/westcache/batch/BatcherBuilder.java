@@ -1,19 +1,30 @@
 package com.github.bingoohuang.westcache.batch;
 
-import java.util.concurrent.ScheduledExecutorService;
+import com.github.bingoohuang.westcache.utils.TimingWheelScheduler;
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
 
-import static java.util.concurrent.Executors.newScheduledThreadPool;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/1/20.
  */
 public class BatcherBuilder<T, V> {
-    private final BatcherJob<T, V> batcherJob;
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+
+    final BatcherJob<T, V> batcherJob;
 
     ScheduledExecutorService service;
     int maxWaitItems = 10; // 达到多少个就开工
     long maxWaitMillis = 300; // 或者累计满多少毫秒也开工
     int maxBatchNum = 0; // 一批最多多少个，<=0 不限制
+    int queueCapacity = DEFAULT_QUEUE_CAPACITY; // 最多排队多少个
+    BatcherFullPolicy fullPolicy = BatcherFullPolicy.BLOCK; // 排满后阻塞还是拒绝
+    long targetLatencyMillis = 0; // 每个的目标延时，>0 时自适应调整批量和等待时间
+    boolean dedupe = false; // 一批中相同的参数是否只调用一次
+    int partitions = 1; // 分区批量的分区数
+    Function<? super T, ?> partitionKey = Functions.identity(); // 分区依据
+    Object owner; // 弱引用的持有者，被回收后定时任务自动关闭批量器
 
     public BatcherBuilder(BatcherJob<T, V> batcherJob) {
         this.batcherJob = batcherJob;
@@ -44,13 +55,53 @@ public class BatcherBuilder<T, V> {
         return this;
     }
 
+    public BatcherBuilder<T, V> queueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    public BatcherBuilder<T, V> fullPolicy(BatcherFullPolicy fullPolicy) {
+        this.fullPolicy = fullPolicy;
+        return this;
+    }
+
+    public BatcherBuilder<T, V> targetLatencyMillis(long targetLatencyMillis) {
+        this.targetLatencyMillis = targetLatencyMillis;
+        return this;
+    }
+
+    public BatcherBuilder<T, V> dedupe(boolean dedupe) {
+        this.dedupe = dedupe;
+        return this;
+    }
+
+    public BatcherBuilder<T, V> partitions(int partitions) {
+        this.partitions = partitions;
+        return this;
+    }
+
+    public BatcherBuilder<T, V> partitionKey(Function<? super T, ?> partitionKey) {
+        this.partitionKey = partitionKey;
+        return this;
+    }
+
+    public BatcherBuilder<T, V> owner(Object owner) {
+        this.owner = owner;
+        return this;
+    }
+
     public Batcher<T, V> build() {
         createServiceIfNotSet();
-        return new Batcher(service, batcherJob, maxWaitMillis, maxWaitItems, maxBatchNum);
+        return new Batcher<T, V>(this);
+    }
+
+    public PartitionedBatcher<T, V> buildPartitioned() {
+        createServiceIfNotSet();
+        return new PartitionedBatcher<T, V>(this);
     }
 
     private void createServiceIfNotSet() {
         if (service != null) return;
-        service = newScheduledThreadPool(5);
+        service = TimingWheelScheduler.shared();
     }
 }
@@ -0,0 +1,17 @@
+package com.github.bingoohuang.westcache.batch;
+
+/**
+ * What to do when submitting to a full batcher.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public enum BatcherFullPolicy {
+    /**
+     * Throw RejectedExecutionException to the submitter.
+     */
+    REJECT,
+    /**
+     * Block the submitter until the batch job frees the queue.
+     */
+    BLOCK
+}
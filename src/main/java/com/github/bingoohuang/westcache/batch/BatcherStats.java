@@ -0,0 +1,27 @@
+package com.github.bingoohuang.westcache.batch;
+
+import com.github.bingoohuang.westcache.metrics.LatencyHistogram;
+import lombok.Getter;
+
+/**
+ * The statistics of a batcher.
+ * <p>
+ * batchSizes: the distribution of the number of arguments in the batches,
+ * recorded as raw numbers instead of nanos.
+ * queueDelays: the nanos from submitting an argument to starting its batch.
+ * jobTimes: the nanos of the batch jobs.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@Getter
+public class BatcherStats {
+    private final LatencyHistogram batchSizes = new LatencyHistogram();
+    private final LatencyHistogram queueDelays = new LatencyHistogram();
+    private final LatencyHistogram jobTimes = new LatencyHistogram();
+
+    @Override public String toString() {
+        return "batchSizes: " + batchSizes.snapshot().toValueString()
+                + ", queueDelays: " + queueDelays.snapshot()
+                + ", jobTimes: " + jobTimes.snapshot();
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.bingoohuang.westcache.batch;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The bounded lock-free ring buffer of multiple producers and a single consumer.
+ * <p>
+ * Each slot keeps a sequence telling whether it is free for the producer of the position,
+ * or published for the consumer (Vyukov's bounded queue). The producers claim the positions
+ * by CAS, and the only consumer polls without CAS.
+ * The size is derived from the two indexes in O(1).
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+class MpscRingBuffer<E> {
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private volatile long consumerIndex;
+
+    /**
+     * Create the ring buffer.
+     *
+     * @param capacity the least capacity, rounded up to the power of 2.
+     */
+    MpscRingBuffer(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity should be positive");
+
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.buffer = new AtomicReferenceArray<E>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; ++i) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Offer the element by any producer.
+     *
+     * @param e the element.
+     * @return false when the buffer is full.
+     */
+    boolean offer(E e) {
+        while (true) {
+            long pos = producerIndex.get();
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff < 0) return false; // not consumed yet by the last round
+
+            if (diff == 0 && producerIndex.compareAndSet(pos, pos + 1)) {
+                buffer.lazySet(index, e);
+                sequences.lazySet(index, pos + 1);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Poll the element by the only consumer.
+     *
+     * @return the element, or null when the buffer is empty.
+     */
+    E poll() {
+        long pos = consumerIndex;
+        int index = (int) (pos & mask);
+        if (sequences.get(index) != pos + 1) return null; // not published yet
+
+        E e = buffer.get(index);
+        buffer.lazySet(index, null);
+        sequences.lazySet(index, pos + capacity);
+        consumerIndex = pos + 1;
+        return e;
+    }
+
+    /**
+     * The approximate size, including the claimed but not published ones.
+     *
+     * @return size.
+     */
+    int size() {
+        long size = producerIndex.get() - consumerIndex;
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
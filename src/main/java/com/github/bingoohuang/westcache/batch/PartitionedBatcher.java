@@ -0,0 +1,92 @@
+package com.github.bingoohuang.westcache.batch;
+
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.ListenableFuture;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batch the submitted arguments by partitions.
+ * <p>
+ * The arguments are routed by the partition key function to the independent batchers,
+ * like by shard or by tenant, so the partitions are drained concurrently
+ * on the shared executor, and a slow batch only blocks its own partition.
+ * The identical arguments in a batch are deduplicated when dedupe is set,
+ * so the batch job sees each of them once.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class PartitionedBatcher<T, V> {
+    private final Function<? super T, ?> partitionKey;
+    private final List<Batcher<T, V>> partitions;
+
+    PartitionedBatcher(BatcherBuilder<T, V> builder) {
+        if (builder.partitions <= 0) throw new IllegalArgumentException(
+                "partitions should be positive");
+
+        this.partitionKey = builder.partitionKey;
+        this.partitions = new ArrayList<Batcher<T, V>>(builder.partitions);
+        for (int i = 0; i < builder.partitions; ++i) {
+            partitions.add(new Batcher<T, V>(builder));
+        }
+    }
+
+    /**
+     * Submit a argument to the batcher of its partition.
+     *
+     * @param argument batch argument.
+     * @return future object.
+     */
+    public ListenableFuture<V> submit(T argument) {
+        return partitions.get(partitionOf(argument)).submit(argument);
+    }
+
+    /**
+     * Get the partition index of the argument.
+     *
+     * @param argument batch argument.
+     * @return partition index.
+     */
+    public int partitionOf(T argument) {
+        val key = partitionKey.apply(argument);
+        if (key == null) return 0;
+
+        int h = key.hashCode();
+        h ^= (h >>> 16);  // spread the higher bits like HashMap
+        return (h & Integer.MAX_VALUE) % partitions.size();
+    }
+
+    public int getPartitionCount() {
+        return partitions.size();
+    }
+
+    /**
+     * Get the batcher of the partition, like for its statistics.
+     *
+     * @param index partition index.
+     * @return batcher of the partition.
+     */
+    public Batcher<T, V> getPartition(int index) {
+        return partitions.get(index);
+    }
+
+    /**
+     * Close the batchers of all the partitions.
+     */
+    public void close() {
+        for (val partition : partitions) partition.close();
+    }
+
+    /**
+     * The approximate number of the arguments waiting in all the partitions.
+     *
+     * @return size.
+     */
+    public int size() {
+        int size = 0;
+        for (val partition : partitions) size += partition.size();
+        return size;
+    }
+}
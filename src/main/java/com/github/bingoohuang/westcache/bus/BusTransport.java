@@ -0,0 +1,34 @@
+package com.github.bingoohuang.westcache.bus;
+
+/**
+ * The transport of the invalidation bus among the processes.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public interface BusTransport {
+    /**
+     * The listener of the messages from the bus.
+     */
+    interface Listener {
+        void onMessage(String message);
+    }
+
+    /**
+     * Publish the message to all the processes on the bus, including the sender itself.
+     *
+     * @param message message.
+     */
+    void publish(String message);
+
+    /**
+     * Subscribe the messages from the bus.
+     *
+     * @param listener listener.
+     */
+    void subscribe(Listener listener);
+
+    /**
+     * Close the transport.
+     */
+    void close();
+}
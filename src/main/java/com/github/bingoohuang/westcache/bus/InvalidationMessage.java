@@ -0,0 +1,19 @@
+package com.github.bingoohuang.westcache.bus;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The batched invalidations published by a process.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@Data @NoArgsConstructor @AllArgsConstructor
+public class InvalidationMessage {
+    private String node;
+    private List<String> keys;
+    private List<String> prefixes;
+}
@@ -0,0 +1,30 @@
+package com.github.bingoohuang.westcache.bus;
+
+import lombok.val;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The in-memory transport, which delivers the messages to all the listeners
+ * subscribed to the same loopback transport, like the processes in tests.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class LoopbackBusTransport implements BusTransport {
+    private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+    @Override public void publish(String message) {
+        for (val listener : listeners) {
+            listener.onMessage(message);
+        }
+    }
+
+    @Override public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @Override public void close() {
+        listeners.clear();
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.bingoohuang.westcache.bus;
+
+import com.google.common.base.Charsets;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.MulticastSocket;
+
+/**
+ * The transport by the UDP multicast in the local network, without any server.
+ * <p>
+ * A message is sent in one datagram, so the {@code BusCacheFlusher} splits the batch
+ * into the messages less than {@link #MAX_DATAGRAM} bytes.
+ * The lost datagrams are not redelivered, so it is better to be used with expireAfterWrite.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@Slf4j
+public class MulticastBusTransport implements BusTransport {
+    public static final int MAX_DATAGRAM = 65507;
+
+    private final InetAddress group;
+    private final int port;
+    private final MulticastSocket socket;
+    private volatile boolean closed;
+
+    @SneakyThrows
+    public MulticastBusTransport(String groupAddress, int port) {
+        this.group = InetAddress.getByName(groupAddress);
+        this.port = port;
+        this.socket = new MulticastSocket(port);
+        this.socket.joinGroup(group);
+    }
+
+    @Override @SneakyThrows
+    public void publish(String message) {
+        val bytes = message.getBytes(Charsets.UTF_8);
+        if (bytes.length > MAX_DATAGRAM) throw new IllegalArgumentException(
+                "bus message of " + bytes.length + " bytes is too large for multicast");
+
+        socket.send(new DatagramPacket(bytes, bytes.length, group, port));
+    }
+
+    @Override public void subscribe(final Listener listener) {
+        val thread = new Thread(new Runnable() {
+            @Override public void run() {
+                val buffer = new byte[MAX_DATAGRAM];
+                while (!closed) {
+                    receive(listener, buffer);
+                }
+            }
+        }, "westcache-bus-" + group.getHostAddress() + ":" + port);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void receive(Listener listener, byte[] buffer) {
+        try {
+            val packet = new DatagramPacket(buffer, buffer.length);
+            socket.receive(packet);
+            listener.onMessage(new String(packet.getData(),
+                    packet.getOffset(), packet.getLength(), Charsets.UTF_8));
+        } catch (Exception ex) {
+            if (!closed) log.warn("multicast bus receiving error", ex);
+        }
+    }
+
+    @Override public void close() {
+        closed = true;
+        socket.close();
+    }
+}
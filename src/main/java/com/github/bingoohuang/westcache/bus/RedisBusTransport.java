@@ -0,0 +1,74 @@
+package com.github.bingoohuang.westcache.bus;
+
+import com.github.bingoohuang.westcache.utils.Envs;
+import lombok.Cleanup;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.JedisPubSub;
+
+/**
+ * The transport by the redis pub/sub channel.
+ * <p>
+ * The redis is only used for the invalidations, not on the read path of the caches.
+ * The subscriber reconnects after a second when the connection is broken.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@Slf4j
+public class RedisBusTransport implements BusTransport {
+    private final String host;
+    private final int port;
+    private final String channel;
+    private final JedisPool pool;
+    private volatile boolean closed;
+    private volatile JedisPubSub pubSub;
+
+    public RedisBusTransport(String host, int port, String channel) {
+        this.host = host;
+        this.port = port;
+        this.channel = channel;
+        this.pool = new JedisPool(new JedisPoolConfig(), host, port);
+    }
+
+    @Override public void publish(String message) {
+        @Cleanup val jedis = pool.getResource();
+        jedis.publish(channel, message);
+    }
+
+    @Override public void subscribe(final Listener listener) {
+        val thread = new Thread(new Runnable() {
+            @Override public void run() {
+                while (!closed) {
+                    subscribeUntilBroken(listener);
+                    if (!closed) Envs.sleepMillis(1000);
+                }
+            }
+        }, "westcache-bus-" + channel);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void subscribeUntilBroken(final Listener listener) {
+        try {
+            @Cleanup val jedis = new Jedis(host, port);
+            pubSub = new JedisPubSub() {
+                @Override public void onMessage(String channel, String message) {
+                    listener.onMessage(message);
+                }
+            };
+            jedis.subscribe(pubSub, channel);
+        } catch (Exception ex) {
+            if (!closed) log.warn("redis bus subscriber of {} is broken", channel, ex);
+        }
+    }
+
+    @Override public void close() {
+        closed = true;
+        val sub = pubSub;
+        if (sub != null && sub.isSubscribed()) sub.unsubscribe();
+        pool.close();
+    }
+}
@@ -1,12 +1,18 @@
 package com.github.bingoohuang.westcache.cglib;
 
+import com.github.bingoohuang.westcache.base.AsyncLoader;
 import com.github.bingoohuang.westcache.base.WestCacheException;
 import com.github.bingoohuang.westcache.base.WestCacheItem;
-import com.github.bingoohuang.westcache.utils.QuietCloseable;
+import com.github.bingoohuang.westcache.batch.BatchLoaders;
+import com.github.bingoohuang.westcache.manager.BaseCacheManager;
+import com.github.bingoohuang.westcache.metrics.CacheMetrics;
+import com.github.bingoohuang.westcache.utils.Envs;
 import com.github.bingoohuang.westcache.utils.WestCacheConnector;
 import com.github.bingoohuang.westcache.utils.WestCacheOption;
+import com.google.common.base.Function;
 import com.google.common.base.Optional;
-import lombok.Cleanup;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
@@ -14,6 +20,7 @@ import lombok.val;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author bingoohuang [bingoohuang@gmail.com] Created on 2016/12/25.
@@ -47,24 +54,142 @@ public abstract class CacheMethodInterceptor<T> {
         if (WestCacheConnector.isConnectedAndGoon(option, cacheKey))
             return null;
 
-        val start = System.currentTimeMillis();
-        @Cleanup val i = new QuietCloseable() {
-            @Override public void close() {
-                val end = System.currentTimeMillis();
-                log.debug("cost {} millis to get cache {} ", end - start, cacheKey);
+        if (method.getReturnType() == ListenableFuture.class)
+            return cacheGetAsync(option, cacheKey, obj, method, args, proxy);
+
+        val manager = option.getManager();
+        long start = System.nanoTime();
+        val hit = manager instanceof BaseCacheManager
+                ? ((BaseCacheManager) manager).tryHit(option, cacheKey) : null;
+        if (hit != null) {
+            CacheMetrics.getStats(option).recordLatency(true, System.nanoTime() - start);
+            return hit.getObject().orNull();
+        }
+
+        val loader = new MethodLoader(option, cacheKey, obj, method, args, proxy);
+        try {
+            val item = manager.get(option, cacheKey, loader);
+            val stats = CacheMetrics.getStats(option);
+            stats.recordLatency(!loader.called, System.nanoTime() - start);
+            return item.getObject().orNull();
+        } finally {
+            if (log.isDebugEnabled()) {
+                val cost = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                log.debug("cost {} millis to get cache {} ", cost, cacheKey);
             }
-        };
-
-        val item = option.getManager().get(option, cacheKey,
-                new Callable<WestCacheItem>() {
-                    @Override public WestCacheItem call() {
-                        checkNoneAbstractMethod(cacheKey, method);
-                        val raw = invokeRaw(obj, args, proxy);
-                        val optional = Optional.fromNullable(raw);
-                        return new WestCacheItem(optional, option);
+        }
+    }
+
+    /**
+     * Invoke the raw method as the cache loader,
+     * and remember whether it is called to tell the hit or miss.
+     */
+    private class MethodLoader implements Callable<WestCacheItem> {
+        final WestCacheOption option;
+        final String cacheKey;
+        final Object obj;
+        final Method method;
+        final Object[] args;
+        final T proxy;
+        volatile boolean called;
+
+        MethodLoader(WestCacheOption option, String cacheKey, Object obj,
+                     Method method, Object[] args, T proxy) {
+            this.option = option;
+            this.cacheKey = cacheKey;
+            this.obj = obj;
+            this.method = method;
+            this.args = args;
+            this.proxy = proxy;
+        }
+
+        @Override public WestCacheItem call() {
+            called = true;
+            val raw = BatchLoaders.isBatchLoaded(option)
+                    ? Envs.futureGet(BatchLoaders.submit(option, args))
+                    : invokeRawMethod();
+            val optional = Optional.fromNullable(raw);
+            return new WestCacheItem(optional, option);
+        }
+
+        private Object invokeRawMethod() {
+            checkNoneAbstractMethod(cacheKey, method);
+            return invokeRaw(obj, args, proxy);
+        }
+    }
+
+    /**
+     * Cache the completed value of the method returning ListenableFuture,
+     * and the concurrent misses share the same in-flight future.
+     */
+    private Object cacheGetAsync(final WestCacheOption option,
+                                 final String cacheKey,
+                                 final Object obj,
+                                 final Method method,
+                                 final Object[] args,
+                                 final T proxy) {
+        val future = getAsync(option, cacheKey,
+                new AsyncLoader() {
+                    @Override public ListenableFuture<WestCacheItem> load() {
+                        val raw = loadRawAsync(option, cacheKey, obj, method, args, proxy);
+                        if (raw == null) return Futures.immediateFuture(
+                                new WestCacheItem(Optional.absent(), option));
+
+                        return Futures.transform(raw, new Function<Object, WestCacheItem>() {
+                            @Override public WestCacheItem apply(Object input) {
+                                return new WestCacheItem(Optional.fromNullable(input), option);
+                            }
+                        });
                     }
                 });
-        return item.getObject().orNull();
+
+        return Futures.transform(future, new Function<WestCacheItem, Object>() {
+            @Override public Object apply(WestCacheItem item) {
+                return item.orNull();
+            }
+        });
+    }
+
+    /*
+     * The managers not extending BaseCacheManager are looked up inline,
+     * and the loaded value is put before the future completes.
+     */
+    private ListenableFuture<WestCacheItem> getAsync(final WestCacheOption option,
+                                                     final String cacheKey,
+                                                     final AsyncLoader loader) {
+        val manager = option.getManager();
+        if (manager instanceof BaseCacheManager) {
+            return ((BaseCacheManager) manager).getAsync(option, cacheKey, loader);
+        }
+
+        val cached = manager.get(option, cacheKey);
+        if (cached != null) return Futures.immediateFuture(cached);
+
+        ListenableFuture<WestCacheItem> loading;
+        try {
+            loading = loader.load();
+        } catch (Exception ex) {
+            return Futures.immediateFailedFuture(ex);
+        }
+
+        return Futures.transform(loading, new Function<WestCacheItem, WestCacheItem>() {
+            @Override public WestCacheItem apply(WestCacheItem item) {
+                manager.put(option, cacheKey, item);
+                return item;
+            }
+        });
+    }
+
+    private ListenableFuture<?> loadRawAsync(WestCacheOption option,
+                                             String cacheKey,
+                                             Object obj,
+                                             Method method,
+                                             Object[] args,
+                                             T proxy) {
+        if (BatchLoaders.isBatchLoaded(option)) return BatchLoaders.submit(option, args);
+
+        checkNoneAbstractMethod(cacheKey, method);
+        return (ListenableFuture<?>) invokeRaw(obj, args, proxy);
     }
 
     private void checkNoneAbstractMethod(String cacheKey, Method method) {
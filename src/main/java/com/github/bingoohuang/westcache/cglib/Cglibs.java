@@ -18,7 +18,17 @@ public class Cglibs {
      * @return underlined super class's name
      */
     public static String getSuperClassName(Object obj) {
-        String name = obj.getClass().getName();
+        return getSuperClassName(obj.getClass());
+    }
+
+    /**
+     * Get the underlined super class's name of the cglib enhanced class.
+     *
+     * @param clazz cglib enhanced class.
+     * @return underlined super class's name
+     */
+    public static String getSuperClassName(Class<?> clazz) {
+        String name = clazz.getName();
         int posCglib = name.indexOf("$$EnhancerByCGLIB$$");
         if (posCglib > 0) return name.substring(0, posCglib);
 
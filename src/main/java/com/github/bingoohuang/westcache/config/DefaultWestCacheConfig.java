@@ -1,11 +1,12 @@
 package com.github.bingoohuang.westcache.config;
 
+import com.github.bingoohuang.westcache.base.AdaptiveSnapshotConfig;
 import com.github.bingoohuang.westcache.base.WestCacheConfig;
 
 /**
  * @author bingoohuang [bingoohuang@gmail.com] Created on 2016/12/23.
  */
-public class DefaultWestCacheConfig implements WestCacheConfig {
+public class DefaultWestCacheConfig implements WestCacheConfig, AdaptiveSnapshotConfig {
     @Override public long rotateIntervalMillis() {
         return 60 * 1000L;
     }
@@ -13,4 +14,12 @@ public class DefaultWestCacheConfig implements WestCacheConfig {
     @Override public long timeoutMillisToSnapshot() {
         return 1000L;
     }
+
+    @Override public long minTimeoutMillisToSnapshot() {
+        return 50L;
+    }
+
+    @Override public long maxTimeoutMillisToSnapshot() {
+        return 10 * 1000L;
+    }
 }
@@ -0,0 +1,186 @@
+package com.github.bingoohuang.westcache.flusher;
+
+import com.github.bingoohuang.westcache.base.WestCache;
+import com.github.bingoohuang.westcache.batch.Batcher;
+import com.github.bingoohuang.westcache.batch.BatcherBuilder;
+import com.github.bingoohuang.westcache.batch.BatcherJob;
+import com.github.bingoohuang.westcache.bus.BusTransport;
+import com.github.bingoohuang.westcache.bus.InvalidationMessage;
+import com.github.bingoohuang.westcache.bus.MulticastBusTransport;
+import com.github.bingoohuang.westcache.utils.FastJsons;
+import com.github.bingoohuang.westcache.utils.NamespaceGenerations;
+import com.github.bingoohuang.westcache.utils.WestCacheOption;
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The flusher to broadcast the invalidations to the in-process caches of all the processes.
+ * <p>
+ * A flush invalidates the local cache at once, and is broadcast by the bus transport
+ * like redis pub/sub or UDP multicast. The invalidations are batched in a few millis
+ * and the duplicated ones are merged, so a burst of flushes is one message on the bus.
+ * A prefix flush bumps the namespace generation in every process.
+ * <p>
+ * Register it as a flusher, like
+ * {@code FLUSHER_REGISTRY.register("bus", new BusCacheFlusher(new RedisBusTransport(host, port, "westcache:bus")))}.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@Slf4j
+public class BusCacheFlusher extends SimpleCacheFlusher {
+    static final String KEY_TAG = "k:";
+    static final String PREFIX_TAG = "p:";
+    /*
+     * An evicted option only skips the eviction stats of the invalidations received.
+     */
+    static final int MAX_OPTIONS = 10000;
+
+    @Getter private final String node = UUID.randomUUID().toString();
+    private final BusTransport transport;
+    private final int maxMessageBytes;
+    private final Batcher<String, Boolean> batcher;
+    private final Cache<String, WestCacheOption> options
+            = CacheBuilder.newBuilder().maximumSize(MAX_OPTIONS).build();
+
+    public BusCacheFlusher(BusTransport transport) {
+        this(transport, 10, 500);
+    }
+
+    public BusCacheFlusher(BusTransport transport,
+                           long batchWaitMillis,
+                           int batchMaxNum) {
+        this(transport, batchWaitMillis, batchMaxNum, maxMessageBytes(transport));
+    }
+
+    /**
+     * Create the bus flusher.
+     *
+     * @param transport       bus transport.
+     * @param batchWaitMillis max millis to wait for a batch.
+     * @param batchMaxNum     max number of the invalidations in a batch.
+     * @param maxMessageBytes max bytes of an encoded message, the batch is split to fit it.
+     */
+    public BusCacheFlusher(BusTransport transport,
+                           long batchWaitMillis,
+                           int batchMaxNum,
+                           int maxMessageBytes) {
+        this.transport = transport;
+        this.maxMessageBytes = maxMessageBytes;
+        this.batcher = BatcherBuilder.newBuilder(new BatcherJob<String, Boolean>() {
+            @Override public List<Boolean> doBatchJob(List<String> batchArgs) {
+                publish(batchArgs);
+                return Collections.nCopies(batchArgs.size(), Boolean.TRUE);
+            }
+        }).maxWaitMillis(batchWaitMillis).maxWaitItems(batchMaxNum)
+                .maxBatchNum(batchMaxNum).dedupe(true).build();
+
+        transport.subscribe(new BusTransport.Listener() {
+            @Override public void onMessage(String message) {
+                receive(message);
+            }
+        });
+    }
+
+    @Override
+    public boolean register(WestCacheOption option,
+                            String cacheKey,
+                            WestCache cache) {
+        options.put(cacheKey, option);
+        return super.register(option, cacheKey, cache);
+    }
+
+    @Override public boolean flush(WestCacheOption option,
+                                   String cacheKey,
+                                   String version) {
+        val flushed = super.flush(option, cacheKey, version);
+        batcher.submit(KEY_TAG + cacheKey);
+        return flushed;
+    }
+
+    @Override
+    public int flushAll(WestCacheOption option, Map<String, String> keyVersions) {
+        val flushSent = super.flushAll(option, keyVersions);
+        for (val cacheKey : keyVersions.keySet()) {
+            batcher.submit(KEY_TAG + cacheKey);
+        }
+        return flushSent;
+    }
+
+    /**
+     * Flush all the cache keys with the prefix in all the processes.
+     *
+     * @param prefix cache key prefix.
+     */
+    public void flushPrefix(String prefix) {
+        NamespaceGenerations.flushLocal(prefix);
+        batcher.submit(PREFIX_TAG + prefix);
+    }
+
+    public void close() {
+        batcher.close();
+        transport.close();
+    }
+
+    private static int maxMessageBytes(BusTransport transport) {
+        return transport instanceof MulticastBusTransport
+                ? MulticastBusTransport.MAX_DATAGRAM : Integer.MAX_VALUE;
+    }
+
+    /*
+     * The batch is split in halves until the encoded messages fit the max bytes.
+     */
+    private void publish(List<String> batchArgs) {
+        val message = encode(batchArgs);
+        int bytes = message.getBytes(Charsets.UTF_8).length;
+        if (bytes > maxMessageBytes && batchArgs.size() > 1) {
+            int half = batchArgs.size() / 2;
+            publish(batchArgs.subList(0, half));
+            publish(batchArgs.subList(half, batchArgs.size()));
+            return;
+        }
+
+        try {
+            transport.publish(message);
+        } catch (Exception ex) {
+            log.warn("publish invalidations {} of {} bytes error", batchArgs, bytes, ex);
+        }
+    }
+
+    private String encode(List<String> batchArgs) {
+        List<String> keys = Lists.newArrayList();
+        List<String> prefixes = Lists.newArrayList();
+        for (val arg : batchArgs) {
+            if (arg.startsWith(KEY_TAG)) keys.add(arg.substring(KEY_TAG.length()));
+            else prefixes.add(arg.substring(PREFIX_TAG.length()));
+        }
+
+        return FastJsons.json(new InvalidationMessage(node, keys, prefixes));
+    }
+
+    private void receive(String message) {
+        InvalidationMessage invalidation = FastJsons.parse(message, InvalidationMessage.class);
+        if (invalidation == null || node.equals(invalidation.getNode())) return;
+
+        log.debug("received invalidations {}", message);
+        if (invalidation.getKeys() != null) {
+            for (val key : invalidation.getKeys()) {
+                super.flush(options.getIfPresent(key), key, "");
+            }
+        }
+        if (invalidation.getPrefixes() != null) {
+            for (val prefix : invalidation.getPrefixes()) {
+                NamespaceGenerations.flushLocal(prefix);
+            }
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.github.bingoohuang.westcache.flusher;
 
 import com.github.bingoohuang.westcache.base.WestCache;
+import com.github.bingoohuang.westcache.base.WestCacheItem;
+import com.github.bingoohuang.westcache.base.WestCacheReloadable;
 import com.github.bingoohuang.westcache.spring.SpringAppContext;
 import com.github.bingoohuang.westcache.utils.*;
 import com.google.common.cache.Cache;
@@ -8,22 +10,23 @@ import com.google.common.cache.CacheBuilder;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.tuple.Pair;
-import org.quartz.Job;
-import org.quartz.JobBuilder;
-import org.quartz.JobExecutionContext;
-import org.quartz.JobExecutionException;
 
-import java.util.concurrent.Callable;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
+ * Flush caches by scheduled expressions on the shared timing wheel scheduler,
+ * quartz is only required for the cron expressions.
+ *
  * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/1/16.
  */
 @Slf4j
-public class QuartzCacheFlusher extends ByPassCacheFlusher {
-    Cache<String, Pair<WestCacheOption, WestCache>>
-            registry = CacheBuilder.newBuilder().build();
-    Quartz quartz = new Quartz();
+public class QuartzCacheFlusher extends ByPassCacheFlusher
+        implements WestCacheReloadable {
+    public static final String RELOAD = "reload";
+
+    Cache<String, ScheduledGroup> groups = CacheBuilder.newBuilder().build();
+    final TimingWheelScheduler scheduler = TimingWheelScheduler.shared();
 
     @Override
     public boolean register(final WestCacheOption option,
@@ -32,34 +35,58 @@ public class QuartzCacheFlusher extends ByPassCacheFlusher {
         val scheduled = getScheduled(option);
         if (StringUtils.isBlank(scheduled)) return false;
 
-        Pair<WestCacheOption, WestCache> pair;
-        pair = registry.getIfPresent(cacheKey);
-        if (pair != null) return false;
+        val group = getScheduledGroup(scheduled);
+        return group.register(option, cacheKey, cache);
+    }
 
-        Guavas.cacheGet(registry, cacheKey, new Callable<Pair<WestCacheOption, WestCache>>() {
-            @Override
-            public Pair<WestCacheOption, WestCache> call() throws Exception {
-                val job = JobBuilder.newJob(RunnableCacheJob.class).build();
-                job.getJobDataMap().put(RunnableCacheJob.KEY, new Runnable() {
-                    @Override public void run() {
-                        for (val entry : registry.asMap().entrySet()) {
-                            String key = entry.getKey();
-                            WestCache cac = entry.getValue().getValue();
-                            WestCacheOption opt = entry.getValue().getLeft();
-                            cac.invalidate(opt, key, null);
+    @Override
+    public void rememberLoader(WestCacheOption option,
+                               String cacheKey,
+                               Callable<WestCacheItem> loader) {
+        if (!isReloadMode(option)) return;
 
-                            log.debug("cache invalidate key {}", key);
-                        }
-                    }
-                });
+        val scheduled = getScheduled(option);
+        if (StringUtils.isBlank(scheduled)) return;
+
+        val scheduledKey = getScheduledGroup(scheduled).keys.get(cacheKey);
+        if (scheduledKey != null) scheduledKey.loader = loader;
+    }
 
-                val trigger = new ScheduledParser(scheduled).parse();
-                quartz.scheduleJob(job, trigger);
-                return Pair.of(option, cache);
+    /**
+     * Tell whether the cache is reloaded instead of invalidated by the schedule.
+     *
+     * @param option WestCacheOption.
+     * @return true for scheduledMode=reload.
+     */
+    public static boolean isReloadMode(WestCacheOption option) {
+        return RELOAD.equals(option.getSpecs().get("scheduledMode"));
+    }
+
+    /**
+     * Get the group of keys sharing the same scheduled expression,
+     * and schedule one job for the group when it is firstly created.
+     *
+     * @param scheduled scheduled expression.
+     * @return the group.
+     */
+    private ScheduledGroup getScheduledGroup(final String scheduled) {
+        val groupKey = normalizeScheduled(scheduled);
+        return Guavas.cacheGet(groups, groupKey, new Callable<ScheduledGroup>() {
+            @Override public ScheduledGroup call() {
+                val group = new ScheduledGroup(groupKey);
+                group.future = scheduler.schedule(new Runnable() {
+                    @Override public void run() {
+                        group.flush();
+                    }
+                }, Schedules.parse(scheduled));
+                log.debug("scheduled job for {}", groupKey);
+                return group;
             }
         });
+    }
 
-        return true;
+    static String normalizeScheduled(String scheduled) {
+        return StringUtils.normalizeSpace(scheduled).toLowerCase();
     }
 
     private String getScheduled(WestCacheOption option) {
@@ -74,19 +101,93 @@ public class QuartzCacheFlusher extends ByPassCacheFlusher {
         return null;
     }
 
-    public static class RunnableCacheJob implements Job {
-        public static final String KEY = "runnable";
+    /**
+     * The keys registered with the same scheduled expression,
+     * which will be flushed together by one scheduled job.
+     */
+    class ScheduledGroup {
+        final String scheduled;
+        final ConcurrentMap<String, ScheduledKey> keys
+                = new ConcurrentHashMap<String, ScheduledKey>();
+        volatile ScheduledFuture<?> future;
 
-        @Override
-        public void execute(JobExecutionContext context)
-                throws JobExecutionException {
-            val jobDataMap = context.getJobDetail().getJobDataMap();
-            val runnable = (Runnable) jobDataMap.get(KEY);
-            runnable.run();
+        ScheduledGroup(String scheduled) {
+            this.scheduled = scheduled;
+        }
+
+        boolean register(WestCacheOption option, String cacheKey, WestCache cache) {
+            if (keys.containsKey(cacheKey)) return false;
+
+            val scheduledKey = new ScheduledKey(option, cacheKey, cache);
+            return keys.putIfAbsent(cacheKey, scheduledKey) == null;
+        }
+
+        void flush() {
+            for (val scheduledKey : keys.values()) {
+                if (scheduledKey.loader == null) scheduledKey.invalidate();
+                else scheduledKey.reload();
+            }
+
+            log.debug("cache flush {} keys for {}", keys.size(), scheduled);
+        }
+    }
+
+    /**
+     * A registered cache key with its loader for scheduledMode=reload.
+     */
+    class ScheduledKey {
+        final WestCacheOption option;
+        final String cacheKey;
+        final WestCache cache;
+        final AtomicBoolean reloading = new AtomicBoolean(false);
+        volatile Callable<WestCacheItem> loader;
+
+        ScheduledKey(WestCacheOption option, String cacheKey, WestCache cache) {
+            this.option = option;
+            this.cacheKey = cacheKey;
+            this.cache = cache;
+        }
+
+        void invalidate() {
+            cache.invalidate(option, cacheKey, null);
+            log.debug("cache invalidate key {}", cacheKey);
+        }
+
+        /**
+         * Reload the cache in the background and swap the new value in,
+         * the old value is served until then. Invalidate it when reload fails.
+         * The reload runs on the shared loaders.
+         */
+        void reload() {
+            if (!reloading.compareAndSet(false, true)) return;
+
+            try {
+                LoadExecutors.shared().execute(new Runnable() {
+                    @Override public void run() {
+                        try {
+                            val item = Envs.execute(loader);
+                            cache.put(option, cacheKey, item);
+                            log.debug("cache reload key {}", cacheKey);
+                        } catch (Exception ex) {
+                            log.warn("cache reload key {} error, invalidate it", cacheKey, ex);
+                            invalidate();
+                        } finally {
+                            reloading.set(false);
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                log.warn("cache reload key {} rejected, invalidate it", cacheKey, ex);
+                reloading.set(false);
+                invalidate();
+            }
         }
     }
 
     public void stopQuartz() {
-        quartz.stop();
+        for (val group : groups.asMap().values()) {
+            if (group.future != null) group.future.cancel(false);
+        }
+        groups.invalidateAll();
     }
 }
@@ -1,13 +1,17 @@
 package com.github.bingoohuang.westcache.flusher;
 
 import com.github.bingoohuang.westcache.base.WestCache;
+import com.github.bingoohuang.westcache.utils.Invalidations;
 import com.github.bingoohuang.westcache.utils.WestCacheOption;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 
+import java.util.Map;
+
 /**
  * @author bingoohuang [bingoohuang@gmail.com] Created on 2016/12/22.
  */
@@ -39,4 +43,34 @@ public class SimpleCacheFlusher extends ByPassCacheFlusher {
 
         return flushSent;
     }
+
+    /**
+     * Flush the caches of the keys, in one call for each cache when supported.
+     *
+     * @param option      WestCacheOption.
+     * @param keyVersions map of cache key to version string.
+     * @return number of the keys flush sent.
+     */
+    public int flushAll(WestCacheOption option, Map<String, String> keyVersions) {
+        Map<WestCache, Map<String, String>> cacheKeyVersions = Maps.newIdentityHashMap();
+        for (val entry : keyVersions.entrySet()) {
+            val westCache = registry.getIfPresent(entry.getKey());
+            log.debug("flush key {} for cache {}", entry.getKey(), westCache);
+            if (westCache == null) continue;
+
+            Map<String, String> versions = cacheKeyVersions.get(westCache);
+            if (versions == null) {
+                versions = Maps.newLinkedHashMap();
+                cacheKeyVersions.put(westCache, versions);
+            }
+            versions.put(entry.getKey(), entry.getValue());
+        }
+
+        int flushSent = 0;
+        for (val entry : cacheKeyVersions.entrySet()) {
+            Invalidations.invalidateAll(entry.getKey(), option, entry.getValue());
+            flushSent += entry.getValue().size();
+        }
+        return flushSent;
+    }
 }
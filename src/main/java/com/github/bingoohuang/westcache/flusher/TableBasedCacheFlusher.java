@@ -1,6 +1,7 @@
 package com.github.bingoohuang.westcache.flusher;
 
 import com.github.bingoohuang.westcache.base.WestCacheItem;
+import com.github.bingoohuang.westcache.metrics.LatencyMetrics;
 import com.github.bingoohuang.westcache.utils.*;
 import com.google.common.base.Optional;
 import com.google.common.cache.Cache;
@@ -30,7 +31,7 @@ public abstract class TableBasedCacheFlusher extends SimpleCacheFlusher {
     Cache<String, Optional<Map<String, String>>> prefixDirectCache
             = CacheBuilder.newBuilder().build();
     private ScheduledExecutorService executorService
-            = Executors.newSingleThreadScheduledExecutor();
+            = TimingWheelScheduler.shared();
 
     @Override
     public boolean isKeyEnabled(WestCacheOption option, String cacheKey) {
@@ -108,6 +109,13 @@ public abstract class TableBasedCacheFlusher extends SimpleCacheFlusher {
     }
 
     protected WestCacheFlusherBean findBean(String cacheKey) {
+        long start = System.nanoTime();
+        val bean = findBeanByKeyMatch(cacheKey);
+        LatencyMetrics.FLUSHER_LOOKUP.recordSince(start);
+        return bean;
+    }
+
+    private WestCacheFlusherBean findBeanByKeyMatch(String cacheKey) {
         WestCacheFlusherBean bean;
 
         bean = findBeanByFullKey(cacheKey);
@@ -171,11 +179,12 @@ public abstract class TableBasedCacheFlusher extends SimpleCacheFlusher {
 
     private Object futureGet(final WestCacheOption option,
                              final String cacheKey) {
-        val future = executorService.submit(new Callable<Object>() {
+        val future = LoadExecutors.trySubmit(new Callable<Object>() {
             @Override public Object call() throws Exception {
                 return checkBeans(option, cacheKey);
             }
         });
+        if (future == null) return checkBeans(option, cacheKey);
 
         String tableFlusherKey = cacheKey + ".tableflushers";
         return Envs.trySnapshot(option, future, tableFlusherKey);
@@ -219,11 +228,9 @@ public abstract class TableBasedCacheFlusher extends SimpleCacheFlusher {
         getFlushKeys(flushKeys, prefixKeys, fullKeys);
         log.debug("flush full keys:{}, prefix keys:{}", fullKeys, prefixKeys);
 
-        for (val entry : fullKeys.entrySet()) {
-            flush(option, entry.getKey(), entry.getValue());
-        }
+        flushAll(option, fullKeys);
         for (val entry : prefixKeys.entrySet()) {
-            flushPrefix(entry.getKey());
+            flushPrefix(entry.getKey(), entry.getValue());
         }
     }
 
@@ -245,28 +252,29 @@ public abstract class TableBasedCacheFlusher extends SimpleCacheFlusher {
         return found == null || found.getValueVersion() != old.getValueVersion();
     }
 
+    /*
+     * The prefix keys are flushed by bumping their namespace generations,
+     * instead of enumerating the registered keys one by one.
+     */
     private void getFlushKeys(Map<String, WestCacheFlusherBean> flushKeys,
                               Map<String, String> prefixKeys,
                               Map<String, String> fullKeys) {
-        for (val key : getRegistry().asMap().keySet()) {
-            if (flushKeys.containsKey(key)) {
-                int valueVersion = flushKeys.get(key).getValueVersion();
-                fullKeys.put(key, Integer.toString(valueVersion));
-                continue;
-            }
-
-            for (val bean : flushKeys.values()) {
-                if (!PREFIX.equals(bean.getKeyMatch())
-                        || !Keys.isPrefix(key, bean.getCacheKey())) continue;
-
-                fullKeys.put(key, "" + bean.getValueVersion());
-                prefixKeys.put(bean.getCacheKey(), "" + bean.getValueVersion());
+        for (val bean : flushKeys.values()) {
+            val version = Integer.toString(bean.getValueVersion());
+            if (PREFIX.equals(bean.getKeyMatch())) {
+                prefixKeys.put(bean.getCacheKey(), version);
+            } else if (getRegistry().getIfPresent(bean.getCacheKey()) != null) {
+                fullKeys.put(bean.getCacheKey(), version);
             }
         }
     }
 
-    protected void flushPrefix(String prefixKey) {
+    /*
+     * The processes seeing the same table change bump the generation only once by the version.
+     */
+    protected void flushPrefix(String prefixKey, String version) {
         prefixDirectCache.invalidate(prefixKey);
+        NamespaceGenerations.flush(prefixKey, version);
     }
 
     protected WestCacheFlusherBean find(WestCacheFlusherBean old,
@@ -2,6 +2,7 @@ package com.github.bingoohuang.westcache.interceptor;
 
 import com.github.bingoohuang.westcache.base.WestCacheInterceptor;
 import com.github.bingoohuang.westcache.base.WestCacheItem;
+import com.github.bingoohuang.westcache.metrics.LatencyMetrics;
 import com.github.bingoohuang.westcache.utils.Envs;
 import com.github.bingoohuang.westcache.utils.QuietCloseable;
 import com.github.bingoohuang.westcache.utils.Redis;
@@ -9,6 +10,7 @@ import com.github.bingoohuang.westcache.utils.WestCacheOption;
 import lombok.Cleanup;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
+import redis.clients.jedis.JedisCommands;
 
 import java.util.concurrent.Callable;
 
@@ -17,17 +19,54 @@ import java.util.concurrent.Callable;
  */
 @Slf4j
 public class RedisInterceptor implements WestCacheInterceptor {
+    private final String prefix;
+
+    public RedisInterceptor() {
+        this(Redis.PREFIX);
+    }
+
+    public RedisInterceptor(String prefix) {
+        this.prefix = prefix;
+    }
+
     @Override
     public WestCacheItem intercept(
             final WestCacheOption option,
             String cacheKey,
             Callable<WestCacheItem> callable) {
-        val redisKey = Redis.PREFIX + cacheKey;
+        val redisKey = prefix + cacheKey;
         val redis = Redis.getRedis(option);
+        long start = System.nanoTime();
         val item1 = Redis.getWestCacheItem(option, redis, redisKey);
+        LatencyMetrics.REDIS_ROUND_TRIP.recordSince(start);
         if (item1 != null) return item1;
 
-        val lockKey = Redis.PREFIX + "lock:" + cacheKey;
+        return loadLocked(option, redis, cacheKey, callable);
+    }
+
+    /**
+     * Load the item known to be missing, like a definite miss of the bloom filter.
+     * Only the first lookup is skipped, and the load is still in the redis lock,
+     * so the concurrent callers load the origin only once.
+     *
+     * @param option   westcache settings.
+     * @param cacheKey cache key.
+     * @param callable origin loader.
+     * @return loaded item.
+     */
+    public WestCacheItem loadMissing(
+            WestCacheOption option,
+            String cacheKey,
+            Callable<WestCacheItem> callable) {
+        return loadLocked(option, Redis.getRedis(option), cacheKey, callable);
+    }
+
+    private WestCacheItem loadLocked(
+            WestCacheOption option,
+            final JedisCommands redis,
+            String cacheKey,
+            Callable<WestCacheItem> callable) {
+        val lockKey = prefix + "lock:" + cacheKey;
         Redis.waitRedisLock(redis, lockKey);
         log.debug("got redis lock {}", lockKey);
 
@@ -38,6 +77,7 @@ public class RedisInterceptor implements WestCacheInterceptor {
             }
         }; // free lock automatically
 
+        val redisKey = prefix + cacheKey;
         val item2 = Redis.getWestCacheItem(option, redis, redisKey);
         if (item2 != null) return item2;
 
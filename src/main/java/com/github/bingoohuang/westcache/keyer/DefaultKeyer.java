@@ -15,15 +15,15 @@ public class DefaultKeyer extends WestCacheKeyer {
                               String methodName,
                               Object bean,
                               Object... args) {
-        val mainPart = option.getKey().length() > 0
-                ? option.getKey()
-                : Keys.createKeyMainPart(methodName, bean, false);
+        val key = new StringBuilder(64);
+        if (option.getKey().length() > 0) key.append(option.getKey());
+        else Keys.appendKeyMainPart(key, methodName, bean, false);
 
         val useStaticKey = option.getSnapshot() != null
                 || option.getKey().length() > 0
                 || "yes".equals(option.getSpecs().get("static.key"));
-        val hashCode = useStaticKey ? "" : "." + bean.hashCode();
+        if (!useStaticKey) key.append('.').append(bean.hashCode());
 
-        return mainPart + hashCode + Keys.joinArgs(args);
+        return Keys.appendArgs(key, args).toString();
     }
 }
@@ -14,10 +14,10 @@ public class SimpleKeyer extends WestCacheKeyer {
                               String methodName,
                               Object bean,
                               Object... args) {
-        val mainPart = option.getKey().length() > 0
-                ? option.getKey()
-                : Keys.createKeyMainPart(methodName, bean, true);
+        val key = new StringBuilder(64);
+        if (option.getKey().length() > 0) key.append(option.getKey());
+        else Keys.appendKeyMainPart(key, methodName, bean, true);
 
-        return mainPart + Keys.joinArgs(args);
+        return Keys.appendArgs(key, args).toString();
     }
 }
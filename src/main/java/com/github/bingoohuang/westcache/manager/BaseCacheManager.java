@@ -1,20 +1,44 @@
 package com.github.bingoohuang.westcache.manager;
 
+import com.github.bingoohuang.westcache.base.AsyncLoader;
 import com.github.bingoohuang.westcache.base.WestCache;
+import com.github.bingoohuang.westcache.base.WestCacheException;
+import com.github.bingoohuang.westcache.base.WestCacheFlusher;
+import com.github.bingoohuang.westcache.base.WestCacheInterceptor;
 import com.github.bingoohuang.westcache.base.WestCacheItem;
 import com.github.bingoohuang.westcache.base.WestCacheManager;
+import com.github.bingoohuang.westcache.base.WestCacheReloadable;
+import com.github.bingoohuang.westcache.flusher.QuartzCacheFlusher;
+import com.github.bingoohuang.westcache.metrics.CacheMetrics;
+import com.github.bingoohuang.westcache.metrics.CacheStats;
+import com.github.bingoohuang.westcache.metrics.LatencyMetrics;
+import com.github.bingoohuang.westcache.utils.EarlyExpirations;
 import com.github.bingoohuang.westcache.utils.Envs;
+import com.github.bingoohuang.westcache.utils.Guavas;
+import com.github.bingoohuang.westcache.utils.LoadExecutors;
+import com.github.bingoohuang.westcache.utils.LoadGuard;
 import com.github.bingoohuang.westcache.utils.MethodProvider;
+import com.github.bingoohuang.westcache.utils.SnapshotHedges;
+import com.github.bingoohuang.westcache.utils.SnapshotTimeouts;
+import com.github.bingoohuang.westcache.utils.StaleIfErrors;
 import com.github.bingoohuang.westcache.utils.WestCacheOption;
 import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import lombok.Getter;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 
 import java.lang.reflect.Method;
+import java.util.HashMap;
 import java.util.concurrent.Callable;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -22,10 +46,28 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 @Slf4j
 public abstract class BaseCacheManager implements WestCacheManager {
+    private static final String RESTART_INVALIDATE = "restartInvalidate";
+    private static final String STARTUP_GENERATION_KEY = "startupTime";
+    private static final long GENERATION_REFRESH_MILLIS = 1000;
+
     private long startupTime = System.currentTimeMillis();
+    // the keys checked for restartInvalidate by this process, evicted ones are checked again
+    private final Cache<String, Boolean> validatedKeys
+            = CacheBuilder.newBuilder().maximumSize(100000).build();
+    private volatile long startupGeneration;
+    private volatile long generationReadMillis;
 
     @Getter private WestCache westCache;
+    // the earlyRefreshBeta spec is ignored by the caches not refreshing early
+    private final boolean earlyRefreshable;
     private Method longMethod = init();
+    private final ConcurrentMap<String, SettableFuture<WestCacheItem>> loadingFutures
+            = new ConcurrentHashMap<String, SettableFuture<WestCacheItem>>();
+    private final Cache<String, WestCacheItem> lastGoodItems
+            = CacheBuilder.newBuilder().maximumSize(10000).build();
+    // the options to read the startup generation, reused to keep one stats for each option
+    private final Cache<WestCacheOption, WestCacheOption> generationOptions
+            = CacheBuilder.newBuilder().weakKeys().build();
 
     @SneakyThrows
     private Method init() {
@@ -33,7 +75,56 @@ public abstract class BaseCacheManager implements WestCacheManager {
     }
 
     public BaseCacheManager(WestCache westCache) {
-        this.westCache = westCache;
+        this.westCache = new StatsWestCacheAdaptor(new NamespaceWestCacheAdaptor(westCache));
+        this.earlyRefreshable = westCache instanceof ExpireAfterWritableWestCacheAdaptor;
+    }
+
+    /**
+     * Tell whether the cache items are kept in the heap of this process,
+     * so a hit can be returned directly without loader, snapshot and so on.
+     *
+     * @return true for in process managers.
+     */
+    protected boolean isInProcess() {
+        return false;
+    }
+
+    /**
+     * Try to hit the cache item in process before creating any loader,
+     * which allocates nothing for a hit.
+     *
+     * @param option   westcache settings.
+     * @param cacheKey cache key.
+     * @return the cached item, or null when missed or the manager is not in process.
+     */
+    public WestCacheItem tryHit(WestCacheOption option, String cacheKey) {
+        if (!isInProcess()) return null;
+
+        val flusher = option.getFlusher();
+        if (!flusher.isKeyEnabled(option, cacheKey)) return null;
+
+        return getHit(option, cacheKey, flusher);
+    }
+
+    /*
+     * The scheduledMode=reload spec requires the loader at the first registration,
+     * and the restartInvalidate spec requires the startup time checking
+     * before validated in this process, and the earlyRefreshBeta spec requires
+     * the loader to refresh early, so they go the normal way.
+     */
+    private WestCacheItem getHit(WestCacheOption option,
+                                 String cacheKey,
+                                 WestCacheFlusher flusher) {
+        if (!isInProcess() || QuartzCacheFlusher.isReloadMode(option)) return null;
+        if (isRestartInvalidate(option) && validatedKeys.getIfPresent(cacheKey) == null) return null;
+        if (earlyRefreshable && EarlyExpirations.getBeta(option) > 0) return null;
+
+        val item = westCache.getIfPresent(option, cacheKey);
+        if (item == null) return null;
+
+        flusher.register(option, cacheKey, westCache);
+        CacheMetrics.getStats(option).recordHit();
+        return item;
     }
 
     @Override @SuppressWarnings("unchecked")
@@ -46,17 +137,24 @@ public abstract class BaseCacheManager implements WestCacheManager {
             return Envs.execute(callable);
         }
 
-        flusher.register(option, cacheKey, westCache);
+        val hit = getHit(option, cacheKey, flusher);
+        if (hit != null) return hit;
+
+        register(option, cacheKey, flusher, callable);
 
+        val stats = CacheMetrics.getStats(option);
         val shot = new AtomicBoolean(true);
         val flushCallable = new Callable<WestCacheItem>() {
             @Override public WestCacheItem call() throws Exception {
+                shot.set(false);
                 val raw = flusher.getDirectValue(option, cacheKey);
-                if (raw.isPresent()) return new WestCacheItem(raw, option);
+                if (raw.isPresent()) {
+                    stats.recordDirectValueHit();
+                    return new WestCacheItem(raw, option);
+                }
 
-                shot.set(false);
                 val interceptor = option.getInterceptor();
-                return interceptor.intercept(option, cacheKey, callable);
+                return load(stats, option, cacheKey, interceptor, callable);
             }
         };
 
@@ -71,45 +169,327 @@ public abstract class BaseCacheManager implements WestCacheManager {
         checkStartupTime(option, cacheKey);
 
         val item = westCache.get(option, cacheKey, wrapCallable);
-        log.debug("cache key {} shot result {} ", cacheKey,
-                shot.get() ? "bingo" : "misfired");
+        if (shot.get()) stats.recordHit();
+        else stats.recordMiss();
+        if (log.isDebugEnabled()) log.debug("cache key {} shot result {} ",
+                cacheKey, shot.get() ? "bingo" : "misfired");
+
+        return item;
+    }
+
+    @SneakyThrows
+    private WestCacheItem load(CacheStats stats,
+                               WestCacheOption option,
+                               String cacheKey,
+                               WestCacheInterceptor interceptor,
+                               Callable<WestCacheItem> callable) {
+        val guard = LoadGuard.getGuard(option);
+        if (!guard.tryAcquire()) return shed(stats, guard, option, cacheKey);
+
+        long start = System.nanoTime();
+        boolean loaded = false;
+        try {
+            val item = interceptor.intercept(option, cacheKey, callable);
+            loaded = true;
+            keepLastGood(option, cacheKey, item);
+            return item;
+        } catch (Exception ex) {
+            val stale = getStale(stats, guard, cacheKey);
+            if (stale == null) throw ex;
+
+            log.warn("load cache {} failed, use stale value instead", cacheKey, ex);
+            return stale;
+        } finally {
+            recordLoad(stats, guard, start, loaded);
+        }
+    }
+
+    private static void recordLoad(CacheStats stats,
+                                   LoadGuard guard,
+                                   long start,
+                                   boolean loaded) {
+        long loadNanos = System.nanoTime() - start;
+        if (loaded) stats.recordLoadSuccess(loadNanos);
+        else stats.recordLoadFailure(loadNanos);
+        if (guard.release(loaded, loadNanos)) stats.recordCircuitOpen();
+    }
+
+    private void register(WestCacheOption option,
+                          String cacheKey,
+                          WestCacheFlusher flusher,
+                          Callable<WestCacheItem> callable) {
+        val registered = flusher.register(option, cacheKey, westCache);
+        if (registered && flusher instanceof WestCacheReloadable) {
+            ((WestCacheReloadable) flusher).rememberLoader(option, cacheKey, callable);
+        }
+    }
+
+    /*
+     * The last good items are kept aside of the cache, so they survive
+     * the invalidations by flushers and expiration.
+     */
+    private void keepLastGood(WestCacheOption option,
+                              String cacheKey,
+                              WestCacheItem item) {
+        long staleSeconds = StaleIfErrors.getStaleIfErrorSeconds(option);
+        if (staleSeconds <= 0) return;
 
+        lastGoodItems.put(cacheKey, new WestCacheItem(item.getObject(), staleSeconds));
+    }
+
+    /**
+     * Get the last good item within staleIfError, which is kept only until
+     * the origin is retried.
+     */
+    private WestCacheItem getStale(CacheStats stats,
+                                   LoadGuard guard,
+                                   String cacheKey) {
+        val lastGood = lastGoodItems.getIfPresent(cacheKey);
+        if (lastGood == null || lastGood.isExpiredAfterWrite()) return null;
+
+        stats.recordStaleServed();
+        return new WestCacheItem(lastGood.getObject(), guard.getRetrySeconds());
+    }
+
+    /**
+     * Serve the stale value or the snapshot instead of the shed load, which is kept
+     * only until the origin is retried, or fail fast when there is neither of them.
+     */
+    private WestCacheItem shed(CacheStats stats,
+                               LoadGuard guard,
+                               WestCacheOption option,
+                               String cacheKey) {
+        stats.recordLoadShed();
+        val stale = getStale(stats, guard, cacheKey);
+        if (stale != null) return stale;
+
+        val snapshot = option.getSnapshot();
+        val item = snapshot == null ? null : readSnapshot(option, cacheKey);
+        if (item == null) throw new WestCacheException("load of cache key "
+                + cacheKey + " is shed because the origin is degraded");
+
+        log.info("load of cache key {} is shed, use snapshot instead", cacheKey);
+        stats.recordSnapshotFallback();
+        return new WestCacheItem(item.getObject(), guard.getRetrySeconds());
+    }
+
+    private WestCacheItem readSnapshot(WestCacheOption option, String cacheKey) {
+        long start = System.nanoTime();
+        val item = option.getSnapshot().readSnapshot(option, cacheKey);
+        LatencyMetrics.SNAPSHOT_READ.recordSince(start);
         return item;
     }
 
+    private static boolean isRestartInvalidate(WestCacheOption option) {
+        return "true".equals(option.getSpecs().get(RESTART_INVALIDATE));
+    }
+
+    /*
+     * Invalidate the cache key once in the lifetime of the process, when the process
+     * is the latest started one sharing the backend, so the values cached before
+     * the restart are not used. The older processes leave it to the latest one.
+     */
     private void checkStartupTime(WestCacheOption option, String cacheKey) {
-        if (!"true".equals(option.getSpecs().get("restartInvalidate"))) {
-            return;
+        if (!isRestartInvalidate(option)) return;
+        if (validatedKeys.getIfPresent(cacheKey) != null) return;
+
+        if (getStartupGeneration(option) <= startupTime) {
+            westCache.invalidate(option, cacheKey, "");
         }
+        validatedKeys.put(cacheKey, Boolean.TRUE);
+    }
 
-        val cloneOption = new WestCacheOption.Builder().clone(option).method(longMethod).build();
-        val startupTimeKey = "startupTime:" + cacheKey;
-        val timeItem = westCache.getIfPresent(cloneOption, startupTimeKey);
+    /*
+     * The cluster-wide startup generation is one value of the latest startup time
+     * of the processes sharing the backend, instead of one marker for each cache key,
+     * and it is read at most every second.
+     */
+    private long getStartupGeneration(WestCacheOption option) {
+        long now = System.currentTimeMillis();
+        if (now - generationReadMillis < GENERATION_REFRESH_MILLIS) return startupGeneration;
 
-        if (timeItem.isPresent() && (Long) timeItem.orNull() >= startupTime) {
-            return;
+        val cloneOption = getGenerationOption(option);
+        val item = westCache.getIfPresent(cloneOption, STARTUP_GENERATION_KEY);
+        long generation = item != null && item.isPresent() ? (Long) item.orNull() : 0;
+        if (generation < startupTime) {
+            westCache.put(cloneOption, STARTUP_GENERATION_KEY,
+                    new WestCacheItem(Optional.of(startupTime), cloneOption));
+            generation = startupTime;
         }
 
-        westCache.invalidate(option, cacheKey, "");
-        westCache.put(option, startupTimeKey, new WestCacheItem(Optional.of(startupTime), option));
+        startupGeneration = generation;
+        generationReadMillis = now;
+        return generation;
+    }
+
+    private WestCacheOption getGenerationOption(final WestCacheOption option) {
+        return Guavas.cacheGet(generationOptions, option, new Callable<WestCacheOption>() {
+            @Override public WestCacheOption call() {
+                val specs = new HashMap<String, String>(option.getSpecs());
+                specs.remove("expireAfterWrite"); // the generation should never expire
+                return new WestCacheOption.Builder().clone(option)
+                        .method(longMethod).specs(specs).build();
+            }
+        });
     }
 
+    /*
+     * The load runs on the loaders, so the caller waits it for the snapshot timeout only.
+     * When the loaders are saturated, the snapshot is served at once,
+     * or the load runs in the caller thread when there is no snapshot.
+     */
     private WestCacheItem trySnapshot(final WestCacheOption option,
                                       final String cacheKey,
                                       final Callable<WestCacheItem> callable) {
-        val executorService = Executors.newSingleThreadScheduledExecutor();
-        val future = executorService.submit(
-                new Callable<WestCacheItem>() {
-                    @Override public WestCacheItem call() throws Exception {
-                        val item = Envs.execute(callable);
-                        westCache.put(option, cacheKey, item);
-                        val snapshot = option.getSnapshot();
-                        snapshot.saveSnapshot(option, cacheKey, item);
-                        return item;
+        val loadCallable = new Callable<WestCacheItem>() {
+            @Override public WestCacheItem call() throws Exception {
+                val item = Envs.execute(callable);
+                westCache.put(option, cacheKey, item);
+                val snapshot = option.getSnapshot();
+                snapshot.saveSnapshot(option, cacheKey, item);
+                return item;
+            }
+        };
+        val future = LoadExecutors.trySubmit(loadCallable);
+        if (future == null) {
+            val item = readSnapshot(option, cacheKey);
+            if (item == null) return Envs.execute(loadCallable);
+
+            log.info("load of cache key {} is rejected, use snapshot instead", cacheKey);
+            CacheMetrics.getStats(option).recordSnapshotFallback();
+            return item;
+        }
+
+        val timeout = SnapshotTimeouts.getTimeoutMillis(option);
+        val hedgeMillis = SnapshotHedges.getHedgeMillis(option);
+        if (hedgeMillis > 0 && hedgeMillis < timeout) {
+            return SnapshotHedges.hedge(option, cacheKey, future, hedgeMillis, timeout);
+        }
+
+        return Envs.trySnapshot(option, future, cacheKey, timeout);
+    }
+
+    /**
+     * Get the cache item without blocking the caller.
+     * The concurrent misses of the same key share one loading future,
+     * and the completed value is cached.
+     * <p>
+     * The lookup (hit, direct value, negative caching, startup checking and stats)
+     * is the same as the sync get and done inline, and the miss is completed
+     * by the callback of the loader future, so no thread waits for the load.
+     * The blocking interceptors like the redis lock are skipped.
+     *
+     * @param option   westcache settings.
+     * @param cacheKey cache key.
+     * @param loader   loader to create the cache value asynchronously when missed.
+     * @return the future of cache item.
+     */
+    public ListenableFuture<WestCacheItem> getAsync(final WestCacheOption option,
+                                                    final String cacheKey,
+                                                    final AsyncLoader loader) {
+        val flusher = option.getFlusher();
+        if (!flusher.isKeyEnabled(option, cacheKey)) {
+            log.warn("cache key {} is not enabled", cacheKey);
+            return loadAsync(loader);
+        }
+
+        val hit = getHit(option, cacheKey, flusher);
+        if (hit != null) return Futures.immediateFuture(hit);
+
+        register(option, cacheKey, flusher, new Callable<WestCacheItem>() {
+            @Override public WestCacheItem call() throws Exception {
+                return Envs.futureGet(loader.load());
+            }
+        });
+        checkStartupTime(option, cacheKey);
+
+        val stats = CacheMetrics.getStats(option);
+        val cached = westCache.getIfPresent(option, cacheKey);
+        if (cached != null) {
+            stats.recordHit();
+            return Futures.immediateFuture(cached);
+        }
+
+        stats.recordMiss();
+        val raw = flusher.getDirectValue(option, cacheKey);
+        if (raw.isPresent()) {
+            stats.recordDirectValueHit();
+            return Futures.immediateFuture(new WestCacheItem(raw, option));
+        }
+
+        val future = SettableFuture.<WestCacheItem>create();
+        val loading = loadingFutures.putIfAbsent(cacheKey, future);
+        if (loading != null) return loading;
+
+        val guard = LoadGuard.getGuard(option);
+        if (!guard.tryAcquire()) {
+            loadingFutures.remove(cacheKey, future);
+            try {
+                return Futures.immediateFuture(shed(stats, guard, option, cacheKey));
+            } catch (WestCacheException ex) {
+                return Futures.immediateFailedFuture(ex);
+            }
+        }
+
+        final long start = System.nanoTime();
+        Futures.addCallback(loadAsync(loader), new FutureCallback<WestCacheItem>() {
+            @Override public void onSuccess(WestCacheItem item) {
+                recordLoad(stats, guard, start, true);
+                try {
+                    keepLastGood(option, cacheKey, item);
+                    westCache.put(option, cacheKey, item);
+                    val snapshot = option.getSnapshot();
+                    if (snapshot != null) snapshot.saveSnapshot(option, cacheKey, item);
+                } catch (Exception ex) {
+                    log.warn("cache the loaded {} error", cacheKey, ex);
+                } finally {
+                    loadingFutures.remove(cacheKey, future);
+                    future.set(item);
+                }
+            }
+
+            @Override public void onFailure(Throwable t) {
+                recordLoad(stats, guard, start, false);
+                loadingFutures.remove(cacheKey, future);
+                try {
+                    val item = getFallback(stats, guard, option, cacheKey);
+                    if (item == null) {
+                        future.setException(t);
+                    } else {
+                        log.warn("load cache {} failed, use fallback instead", cacheKey, t);
+                        future.set(item);
                     }
-                });
+                } catch (Exception ex) {
+                    future.setException(t);
+                }
+            }
+        });
+
+        return future;
+    }
 
-        return Envs.trySnapshot(option, future, cacheKey);
+    /*
+     * The stale value, or the snapshot of the failed async load.
+     */
+    private WestCacheItem getFallback(CacheStats stats,
+                                      LoadGuard guard,
+                                      WestCacheOption option,
+                                      String cacheKey) {
+        val stale = getStale(stats, guard, cacheKey);
+        if (stale != null) return stale;
+        if (option.getSnapshot() == null) return null;
+
+        val item = readSnapshot(option, cacheKey);
+        if (item != null) stats.recordSnapshotFallback();
+        return item;
+    }
+
+    private ListenableFuture<WestCacheItem> loadAsync(AsyncLoader loader) {
+        try {
+            return loader.load();
+        } catch (Exception ex) {
+            return Futures.immediateFailedFuture(ex);
+        }
     }
 
     @Override
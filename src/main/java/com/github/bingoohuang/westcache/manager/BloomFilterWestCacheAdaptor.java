@@ -0,0 +1,173 @@
+package com.github.bingoohuang.westcache.manager;
+
+import com.github.bingoohuang.westcache.base.BatchInvalidatable;
+import com.github.bingoohuang.westcache.base.NamespaceEvictable;
+import com.github.bingoohuang.westcache.base.WestCache;
+import com.github.bingoohuang.westcache.base.WestCacheItem;
+import com.github.bingoohuang.westcache.utils.Envs;
+import com.github.bingoohuang.westcache.utils.Invalidations;
+import com.github.bingoohuang.westcache.utils.LoadExecutors;
+import com.github.bingoohuang.westcache.utils.ScalableBloomFilter;
+import com.github.bingoohuang.westcache.utils.WestCacheOption;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Skip the I/O of the definite misses by a bloom filter of the written keys,
+ * with the bloomFilter=true spec.
+ * <p>
+ * The filter is rebuilt from the keys already in the cache, like the snapshot files
+ * or the redis keys by SCAN, in the background at the first guarded access,
+ * and it is not used until rebuilt. The keys not in the filter skip the lookup and go to the loader,
+ * in the load guards of the cache like the redis lock when it is a {@link MissLoader}.
+ * The keys written by the other processes after the rebuilding are not known,
+ * so they are loaded again, which is fine for the idempotent loads.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@Slf4j
+public class BloomFilterWestCacheAdaptor implements WestCache, BatchInvalidatable,
+        NamespaceEvictable {
+    /**
+     * The scanner of the keys already in the cache.
+     */
+    public interface KeyScanner {
+        /**
+         * Scan all the keys into the filter.
+         *
+         * @param option westcache settings.
+         * @param filter bloom filter.
+         */
+        void scanKeys(WestCacheOption option, ScalableBloomFilter filter);
+    }
+
+    /**
+     * The loader of the definite misses, which skips the lookup
+     * but keeps the load guards of the cache.
+     */
+    public interface MissLoader {
+        /**
+         * Load the item known to be missing, and put it into the cache.
+         *
+         * @param option   westcache settings.
+         * @param cacheKey cache key.
+         * @param callable origin loader.
+         * @return loaded item.
+         */
+        WestCacheItem loadMissing(WestCacheOption option,
+                                  String cacheKey,
+                                  Callable<WestCacheItem> callable);
+    }
+
+    private final WestCache westCache;
+    private final KeyScanner scanner;
+    @Getter private final ScalableBloomFilter filter = new ScalableBloomFilter(10000, 0.01);
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    @Getter private volatile boolean ready;
+
+    public <T extends WestCache & KeyScanner> BloomFilterWestCacheAdaptor(T westCache) {
+        this.westCache = westCache;
+        this.scanner = westCache;
+    }
+
+    @Override
+    public WestCacheItem get(WestCacheOption option,
+                             String cacheKey,
+                             Callable<WestCacheItem> callable) {
+        if (!isGuarded(option)) return westCache.get(option, cacheKey, callable);
+
+        if (isDefiniteMiss(option, cacheKey)) {
+            if (!(westCache instanceof MissLoader)) {
+                val item = Envs.execute(callable);
+                put(option, cacheKey, item);
+                return item;
+            }
+
+            val item = ((MissLoader) westCache).loadMissing(option, cacheKey, callable);
+            filter.put(cacheKey);
+            return item;
+        }
+
+        val item = westCache.get(option, cacheKey, callable);
+        filter.put(cacheKey);
+        return item;
+    }
+
+    @Override
+    public WestCacheItem getIfPresent(WestCacheOption option,
+                                      String cacheKey) {
+        if (isGuarded(option) && isDefiniteMiss(option, cacheKey)) return null;
+
+        return westCache.getIfPresent(option, cacheKey);
+    }
+
+    @Override
+    public void put(WestCacheOption option,
+                    String cacheKey,
+                    WestCacheItem cacheValue) {
+        filter.put(cacheKey);
+        westCache.put(option, cacheKey, cacheValue);
+    }
+
+    @Override
+    public void invalidate(WestCacheOption option,
+                           String cacheKey,
+                           String version) {
+        westCache.invalidate(option, cacheKey, version);
+    }
+
+    @Override
+    public void invalidateAll(WestCacheOption option,
+                              Map<String, String> keyVersions) {
+        Invalidations.invalidateAll(westCache, option, keyVersions);
+    }
+
+    /*
+     * The deleted keys stay in the filter as false positives until the next rebuild.
+     */
+    @Override
+    public void evictNamespace(String namespace) {
+        if (westCache instanceof NamespaceEvictable) {
+            ((NamespaceEvictable) westCache).evictNamespace(namespace);
+        }
+    }
+
+    private boolean isDefiniteMiss(WestCacheOption option, String cacheKey) {
+        if (ready) return !filter.mightContain(cacheKey);
+
+        rebuild(option);
+        return false;
+    }
+
+    /*
+     * The scan is a long blocking I/O, so it runs on the shared loaders,
+     * and only one rebuild runs at a time.
+     */
+    private void rebuild(final WestCacheOption option) {
+        if (!rebuilding.compareAndSet(false, true)) return;
+
+        val future = LoadExecutors.trySubmit(new Callable<Void>() {
+            @Override public Void call() {
+                try {
+                    scanner.scanKeys(option, filter);
+                    ready = true;
+                    log.info("bloom filter rebuilt with about {} keys", filter.approximateCount());
+                } catch (Exception ex) {
+                    log.warn("rebuild bloom filter error, retry at next access", ex);
+                    rebuilding.set(false);
+                }
+                return null;
+            }
+        });
+        if (future == null) rebuilding.set(false);
+    }
+
+    private static boolean isGuarded(WestCacheOption option) {
+        return option != null && "true".equals(option.getSpecs().get("bloomFilter"));
+    }
+}
@@ -1,29 +1,101 @@
 package com.github.bingoohuang.westcache.manager;
 
+import com.github.bingoohuang.westcache.base.NamespaceEvictable;
 import com.github.bingoohuang.westcache.base.WestCache;
 import com.github.bingoohuang.westcache.base.WestCacheItem;
+import com.github.bingoohuang.westcache.utils.EarlyExpirations;
+import com.github.bingoohuang.westcache.utils.NamespaceGenerations;
 import com.github.bingoohuang.westcache.utils.WestCacheOption;
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
+ * Expire the items after write, and refresh them early with earlyRefreshBeta spec.
+ *
  * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/1/22.
  */
-@AllArgsConstructor
-public class ExpireAfterWritableWestCacheAdaptor implements WestCache {
+@Slf4j @RequiredArgsConstructor
+public class ExpireAfterWritableWestCacheAdaptor implements WestCache, NamespaceEvictable {
     private final WestCache westCache;
+    private final ConcurrentMap<String, Object> refreshing
+            = new ConcurrentHashMap<String, Object>();
 
     @Override
     public WestCacheItem get(WestCacheOption option,
                              String cacheKey,
                              Callable<WestCacheItem> callable) {
-        val item = westCache.get(option, cacheKey, callable);
+        val loaded = new AtomicBoolean();
+        val timedCallable = timeLoad(callable, loaded);
+        val item = westCache.get(option, cacheKey, timedCallable);
         if (item.isExpiredAfterWrite()) {
             westCache.invalidate(option, cacheKey, null);
+            return westCache.get(option, cacheKey, timedCallable);
         }
-        return westCache.get(option, cacheKey, callable);
+
+        if (!loaded.get() && EarlyExpirations.shouldRefresh(item.getExpiredAt(),
+                item.getLoadMillis(), EarlyExpirations.getBeta(option))) {
+            return refreshEarly(option, cacheKey, timedCallable, item);
+        }
+        return item;
+    }
+
+    /*
+     * Only one caller refreshes the key, and the others are served the current item.
+     * The refreshing token is dropped by the invalidation or the put, then the refreshed item
+     * loaded before them is returned to the caller only, instead of being put.
+     */
+    private WestCacheItem refreshEarly(WestCacheOption option,
+                                       String cacheKey,
+                                       Callable<WestCacheItem> callable,
+                                       WestCacheItem item) {
+        val token = new Object();
+        if (refreshing.putIfAbsent(cacheKey, token) != null) return item;
+
+        try {
+            val refreshed = callable.call();
+            if (refreshing.remove(cacheKey, token)) {
+                westCache.put(option, cacheKey, refreshed);
+                log.debug("cache key {} refreshed early", cacheKey);
+            } else {
+                log.debug("cache key {} invalidated while refreshing early", cacheKey);
+            }
+            return refreshed;
+        } catch (Exception ex) {
+            log.warn("refresh cache key {} early error", cacheKey, ex);
+            return item;
+        } finally {
+            refreshing.remove(cacheKey, token);
+        }
+    }
+
+    @Override
+    public void evictNamespace(String namespace) {
+        for (val key : refreshing.keySet()) {
+            if (NamespaceGenerations.isInNamespace(key, namespace)
+                    && NamespaceGenerations.isSuperseded(key)) refreshing.remove(key);
+        }
+        if (westCache instanceof NamespaceEvictable) {
+            ((NamespaceEvictable) westCache).evictNamespace(namespace);
+        }
+    }
+
+    private static Callable<WestCacheItem> timeLoad(final Callable<WestCacheItem> callable,
+                                                    final AtomicBoolean loaded) {
+        return new Callable<WestCacheItem>() {
+            @Override public WestCacheItem call() throws Exception {
+                loaded.set(true);
+                long start = System.currentTimeMillis();
+                val item = callable.call();
+                if (item != null) item.setLoadMillis(System.currentTimeMillis() - start);
+                return item;
+            }
+        };
     }
 
     @Override
@@ -41,6 +113,7 @@ public class ExpireAfterWritableWestCacheAdaptor implements WestCache {
     public void put(WestCacheOption option,
                     String cacheKey,
                     WestCacheItem cacheValue) {
+        refreshing.remove(cacheKey);
         westCache.put(option, cacheKey, cacheValue);
     }
 
@@ -48,6 +121,7 @@ public class ExpireAfterWritableWestCacheAdaptor implements WestCache {
     public void invalidate(WestCacheOption option,
                            String cacheKey,
                            String version) {
+        refreshing.remove(cacheKey);
         westCache.invalidate(option, cacheKey, version);
     }
 }
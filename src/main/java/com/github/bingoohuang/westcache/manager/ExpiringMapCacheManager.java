@@ -19,11 +19,19 @@ import static net.jodah.expiringmap.ExpirationPolicy.CREATED;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 /**
+ * The items are also checked for the jittered expiry and refreshed early with
+ * earlyRefreshBeta spec by {@link ExpireAfterWritableWestCacheAdaptor}.
+ *
  * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/1/2.
  */
 public class ExpiringMapCacheManager extends BaseCacheManager {
     public ExpiringMapCacheManager() {
-        super(new ExpiringCache());
+        super(new ExpireAfterWritableWestCacheAdaptor(new ExpiringCache()));
+    }
+
+    @Override
+    protected boolean isInProcess() {
+        return true;
     }
 
     public static class ExpiringCache implements WestCache {
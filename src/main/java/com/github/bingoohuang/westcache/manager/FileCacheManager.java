@@ -1,12 +1,20 @@
 package com.github.bingoohuang.westcache.manager;
 
+import com.github.bingoohuang.westcache.base.NamespaceEvictable;
 import com.github.bingoohuang.westcache.base.WestCache;
 import com.github.bingoohuang.westcache.base.WestCacheItem;
 import com.github.bingoohuang.westcache.snapshot.FileCacheSnapshot;
 import com.github.bingoohuang.westcache.utils.Envs;
+import com.github.bingoohuang.westcache.utils.LoadExecutors;
+import com.github.bingoohuang.westcache.utils.NamespaceGenerations;
+import com.github.bingoohuang.westcache.utils.NegativeCaches;
+import com.github.bingoohuang.westcache.utils.ScalableBloomFilter;
+import com.github.bingoohuang.westcache.utils.Snapshots;
 import com.github.bingoohuang.westcache.utils.WestCacheOption;
 import lombok.val;
 
+import java.io.File;
+import java.io.FilenameFilter;
 import java.util.concurrent.Callable;
 
 /**
@@ -14,10 +22,11 @@ import java.util.concurrent.Callable;
  */
 public class FileCacheManager extends BaseCacheManager {
     public FileCacheManager() {
-        super(new FileWestCache());
+        super(new BloomFilterWestCacheAdaptor(new FileWestCache()));
     }
 
-    static class FileWestCache implements WestCache {
+    static class FileWestCache implements WestCache, BloomFilterWestCacheAdaptor.KeyScanner,
+            NamespaceEvictable {
         FileCacheSnapshot snapshot = new FileCacheSnapshot();
 
         @Override
@@ -36,7 +45,18 @@ public class FileCacheManager extends BaseCacheManager {
         @Override
         public WestCacheItem getIfPresent(WestCacheOption option,
                                           String cacheKey) {
-            return snapshot.readSnapshot(option, cacheKey);
+            val item = snapshot.readSnapshot(option, cacheKey);
+            if (item == null || item.isPresent()) return item;
+
+            // absent value expires after negativeTtl since the file written
+            long ttlMillis = NegativeCaches.getNegativeTtlSeconds(option) * 1000;
+            if (ttlMillis <= 0) return item;
+
+            val file = Snapshots.getSnapshotFile(cacheKey);
+            if (file.lastModified() + ttlMillis > System.currentTimeMillis()) return item;
+
+            invalidate(option, cacheKey, null);
+            return null;
         }
 
         @Override
@@ -52,6 +72,51 @@ public class FileCacheManager extends BaseCacheManager {
         public void invalidate(WestCacheOption option, String cacheKey, String version) {
             snapshot.deleteSnapshot(option, cacheKey);
         }
+
+        @Override
+        public void scanKeys(WestCacheOption option, ScalableBloomFilter filter) {
+            val files = Snapshots.CACHE_HOME.list();
+            if (files == null) return;
+
+            for (val file : files) {
+                if (!file.endsWith(Snapshots.EXTENSION)) continue;
+
+                filter.put(file.substring(0, file.length() - Snapshots.EXTENSION.length()));
+            }
+        }
+
+        /*
+         * Only the files with a ~generation suffix are deleted, because the snapshots
+         * of the other managers are saved by the logical keys in the same directory.
+         * The listing runs on the loaders, and is left to the next flush when they are saturated.
+         */
+        @Override
+        public void evictNamespace(final String namespace) {
+            LoadExecutors.trySubmit(new Callable<Void>() {
+                @Override public Void call() throws Exception {
+                    deleteSuperseded(namespace);
+                    return null;
+                }
+            });
+        }
+
+        void deleteSuperseded(final String namespace) {
+            val files = Snapshots.CACHE_HOME.list(new FilenameFilter() {
+                @Override public boolean accept(File dir, String name) {
+                    return name.startsWith(namespace) && name.endsWith(Snapshots.EXTENSION);
+                }
+            });
+            if (files == null) return;
+
+            for (val file : files) {
+                val key = file.substring(0, file.length() - Snapshots.EXTENSION.length());
+                if (NamespaceGenerations.logicalKey(key).equals(key)) continue;
+                if (!NamespaceGenerations.isInNamespace(key, namespace)) continue;
+                if (!NamespaceGenerations.isSuperseded(key)) continue;
+
+                snapshot.deleteSnapshot(null, key);
+            }
+        }
     }
 
 }
@@ -1,13 +1,20 @@
 package com.github.bingoohuang.westcache.manager;
 
+import com.github.bingoohuang.westcache.base.NamespaceEvictable;
 import com.github.bingoohuang.westcache.base.WestCache;
 import com.github.bingoohuang.westcache.base.WestCacheItem;
 import com.github.bingoohuang.westcache.utils.Guavas;
+import com.github.bingoohuang.westcache.utils.NamespaceGenerations;
 import com.github.bingoohuang.westcache.utils.WestCacheOption;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import lombok.val;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentSkipListSet;
 
 /**
  * @author bingoohuang [bingoohuang@gmail.com] Created on 2016/12/23.
@@ -17,15 +24,34 @@ public class GuavaCacheManager extends BaseCacheManager {
         super(new ExpireAfterWritableWestCacheAdaptor(new GuavaWestCache()));
     }
 
-    public static class GuavaWestCache implements WestCache {
-        private Cache<String, WestCacheItem> cache
-                = CacheBuilder.newBuilder().build();
+    @Override
+    protected boolean isInProcess() {
+        return true;
+    }
+
+    /*
+     * The keys are also indexed in order, so the old generations of a namespace
+     * are found by the range of the namespace prefix instead of all the keys.
+     */
+    public static class GuavaWestCache implements WestCache, NamespaceEvictable {
+        private final ConcurrentSkipListSet<String> keys = new ConcurrentSkipListSet<String>();
+        private final Cache<String, WestCacheItem> cache = CacheBuilder.newBuilder()
+                .removalListener(new RemovalListener<String, WestCacheItem>() {
+                    @Override
+                    public void onRemoval(RemovalNotification<String, WestCacheItem> notification) {
+                        val key = notification.getKey();
+                        if (notification.getCause() == RemovalCause.REPLACED) return;
+                        if (!GuavaWestCache.this.cache.asMap().containsKey(key)) keys.remove(key);
+                    }
+                }).build();
 
         @Override
         public WestCacheItem get(WestCacheOption option,
                                  String cacheKey,
                                  Callable<WestCacheItem> callable) {
-            return Guavas.cacheGet(cache, cacheKey, callable);
+            val item = Guavas.cacheGet(cache, cacheKey, callable);
+            keys.add(cacheKey);
+            return item;
         }
 
         @Override
@@ -39,6 +65,7 @@ public class GuavaCacheManager extends BaseCacheManager {
                         String cacheKey,
                         WestCacheItem cacheValue) {
             cache.put(cacheKey, cacheValue);
+            keys.add(cacheKey);
         }
 
         @Override
@@ -46,6 +73,19 @@ public class GuavaCacheManager extends BaseCacheManager {
                                String cacheKey, String version) {
             cache.invalidate(cacheKey);
         }
+
+        /*
+         * The unbounded cache evicts the old generations in the namespace, which are
+         * never reachable again, and keeps the ones written in the new generation.
+         */
+        @Override
+        public void evictNamespace(String namespace) {
+            val range = keys.subSet(namespace, true, namespace + Character.MAX_VALUE, true);
+            for (val key : range) {
+                if (NamespaceGenerations.isInNamespace(key, namespace)
+                        && NamespaceGenerations.isSuperseded(key)) cache.invalidate(key);
+            }
+        }
     }
 
 }
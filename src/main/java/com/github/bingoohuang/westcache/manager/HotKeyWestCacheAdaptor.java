@@ -0,0 +1,100 @@
+package com.github.bingoohuang.westcache.manager;
+
+import com.github.bingoohuang.westcache.base.BatchInvalidatable;
+import com.github.bingoohuang.westcache.base.WestCache;
+import com.github.bingoohuang.westcache.base.WestCacheItem;
+import com.github.bingoohuang.westcache.utils.HotKeyDetector;
+import com.github.bingoohuang.westcache.utils.Invalidations;
+import com.github.bingoohuang.westcache.utils.WestCacheOption;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.Getter;
+import lombok.val;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pin the hot keys of a remote cache in a small local cache with a short ttl,
+ * so the traffic of the hot keys does not hit the network.
+ * <p>
+ * The local copies are invalidated by the puts and the invalidations in this process,
+ * and the ones from the other processes are seen after the ttl at most.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class HotKeyWestCacheAdaptor implements WestCache, BatchInvalidatable {
+    private final WestCache westCache;
+    @Getter private final HotKeyDetector detector;
+    private final Cache<String, WestCacheItem> local;
+
+    public HotKeyWestCacheAdaptor(WestCache westCache,
+                                  HotKeyDetector detector,
+                                  long localTtlMillis) {
+        this.westCache = westCache;
+        this.detector = detector;
+        this.local = CacheBuilder.newBuilder()
+                .expireAfterWrite(localTtlMillis, TimeUnit.MILLISECONDS)
+                .maximumSize(1000).build();
+    }
+
+    @Override
+    public WestCacheItem get(WestCacheOption option,
+                             String cacheKey,
+                             Callable<WestCacheItem> callable) {
+        if (!detector.record(cacheKey)) return westCache.get(option, cacheKey, callable);
+
+        val localItem = getLocal(cacheKey);
+        if (localItem != null) return localItem;
+
+        val item = westCache.get(option, cacheKey, callable);
+        putLocal(cacheKey, item);
+        return item;
+    }
+
+    @Override
+    public WestCacheItem getIfPresent(WestCacheOption option,
+                                      String cacheKey) {
+        if (!detector.record(cacheKey)) return westCache.getIfPresent(option, cacheKey);
+
+        val localItem = getLocal(cacheKey);
+        if (localItem != null) return localItem;
+
+        val item = westCache.getIfPresent(option, cacheKey);
+        putLocal(cacheKey, item);
+        return item;
+    }
+
+    @Override
+    public void put(WestCacheOption option,
+                    String cacheKey,
+                    WestCacheItem cacheValue) {
+        westCache.put(option, cacheKey, cacheValue);
+        local.invalidate(cacheKey);
+    }
+
+    @Override
+    public void invalidate(WestCacheOption option,
+                           String cacheKey,
+                           String version) {
+        westCache.invalidate(option, cacheKey, version);
+        local.invalidate(cacheKey);
+    }
+
+    @Override
+    public void invalidateAll(WestCacheOption option,
+                              Map<String, String> keyVersions) {
+        Invalidations.invalidateAll(westCache, option, keyVersions);
+        local.invalidateAll(keyVersions.keySet());
+    }
+
+    private WestCacheItem getLocal(String cacheKey) {
+        val item = local.getIfPresent(cacheKey);
+        return item == null || item.isExpiredAfterWrite() ? null : item;
+    }
+
+    private void putLocal(String cacheKey, WestCacheItem item) {
+        if (item != null && item.isPresent()) local.put(cacheKey, item);
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.bingoohuang.westcache.manager;
+
+import com.github.bingoohuang.westcache.base.BatchInvalidatable;
+import com.github.bingoohuang.westcache.base.NamespaceEvictable;
+import com.github.bingoohuang.westcache.base.WestCache;
+import com.github.bingoohuang.westcache.base.WestCacheItem;
+import com.github.bingoohuang.westcache.utils.Invalidations;
+import com.github.bingoohuang.westcache.utils.NamespaceGenerations;
+import com.github.bingoohuang.westcache.utils.WestCacheOption;
+import com.google.common.collect.Maps;
+import lombok.val;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Fold the namespace generations into the physical keys,
+ * while the managers and flushers still see the logical keys.
+ * <p>
+ * The old generations are evicted by the {@link NamespaceEvictable} caches after a flush,
+ * and are left to the expiration or the size bound of the other caches.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class NamespaceWestCacheAdaptor implements WestCache, BatchInvalidatable,
+        NamespaceGenerations.FlushListener {
+    private final WestCache westCache;
+
+    public NamespaceWestCacheAdaptor(WestCache westCache) {
+        this.westCache = westCache;
+        if (westCache instanceof NamespaceEvictable) NamespaceGenerations.addListener(this);
+    }
+
+    @Override
+    public void onFlush(String namespace) {
+        ((NamespaceEvictable) westCache).evictNamespace(namespace);
+    }
+
+    @Override
+    public WestCacheItem get(WestCacheOption option,
+                             String cacheKey,
+                             Callable<WestCacheItem> callable) {
+        return westCache.get(option, NamespaceGenerations.physicalKey(cacheKey), callable);
+    }
+
+    @Override
+    public WestCacheItem getIfPresent(WestCacheOption option,
+                                      String cacheKey) {
+        return westCache.getIfPresent(option, NamespaceGenerations.physicalKey(cacheKey));
+    }
+
+    @Override
+    public void put(WestCacheOption option,
+                    String cacheKey,
+                    WestCacheItem cacheValue) {
+        westCache.put(option, NamespaceGenerations.physicalKey(cacheKey), cacheValue);
+    }
+
+    @Override
+    public void invalidate(WestCacheOption option,
+                           String cacheKey,
+                           String version) {
+        westCache.invalidate(option, NamespaceGenerations.physicalKey(cacheKey), version);
+    }
+
+    @Override
+    public void invalidateAll(WestCacheOption option,
+                              Map<String, String> keyVersions) {
+        Map<String, String> physicalKeyVersions = Maps.newLinkedHashMap();
+        for (val entry : keyVersions.entrySet()) {
+            physicalKeyVersions.put(NamespaceGenerations.physicalKey(entry.getKey()), entry.getValue());
+        }
+        Invalidations.invalidateAll(westCache, option, physicalKeyVersions);
+    }
+}
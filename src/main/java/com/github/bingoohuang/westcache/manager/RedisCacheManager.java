@@ -1,19 +1,34 @@
 package com.github.bingoohuang.westcache.manager;
 
+import com.github.bingoohuang.westcache.base.BatchInvalidatable;
 import com.github.bingoohuang.westcache.base.WestCache;
+import com.github.bingoohuang.westcache.base.WestCacheException;
 import com.github.bingoohuang.westcache.base.WestCacheItem;
 import com.github.bingoohuang.westcache.interceptor.RedisInterceptor;
-import com.github.bingoohuang.westcache.utils.FastJsons;
+import com.github.bingoohuang.westcache.utils.HotKeyDetector;
+import com.github.bingoohuang.westcache.utils.Keys;
+import com.github.bingoohuang.westcache.utils.NamespaceGenerations;
+import com.github.bingoohuang.westcache.utils.NegativeCaches;
 import com.github.bingoohuang.westcache.utils.QuietCloseable;
 import com.github.bingoohuang.westcache.utils.Redis;
+import com.github.bingoohuang.westcache.utils.ScalableBloomFilter;
 import com.github.bingoohuang.westcache.utils.WestCacheOption;
-import com.google.common.base.Optional;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import lombok.AllArgsConstructor;
 import lombok.Cleanup;
+import lombok.EqualsAndHashCode;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.apache.commons.lang3.StringUtils;
+import redis.clients.jedis.MultiKeyCommands;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScriptingCommands;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 /**
@@ -21,17 +36,134 @@ import java.util.concurrent.Callable;
  */
 @Slf4j
 public class RedisCacheManager extends BaseCacheManager {
+    /*
+     * A key accessed 1000 times in a second is pinned locally for a second,
+     * when the hot key pinning is enabled.
+     */
+    public static final int HOT_KEY_TOP_K = 16;
+    public static final long HOT_KEY_THRESHOLD = 1000;
+    public static final long HOT_KEY_WINDOW_MILLIS = 1000;
+    public static final long HOT_KEY_LOCAL_TTL_MILLIS = 1000;
+
+    private final HotKeyDetector hotKeyDetector;
+
     public RedisCacheManager(String prefix) {
-        super(new RedisWestCache(prefix));
+        this(prefix, true);
     }
 
     public RedisCacheManager() {
-        super(new RedisWestCache());
+        this(Redis.PREFIX);
+    }
+
+    /**
+     * Create the redis manager without the hot key pinning.
+     *
+     * @param prefix             redis key prefix.
+     * @param clusterGenerations true to share the namespace generations in the redis hash
+     *                           prefix + generations, false to keep them in the process.
+     */
+    public RedisCacheManager(String prefix, boolean clusterGenerations) {
+        super(new BloomFilterWestCacheAdaptor(new RedisWestCache(prefix, clusterGenerations)));
+        this.hotKeyDetector = null;
+    }
+
+    /**
+     * Create the redis manager with the hot keys pinned locally for the default thresholds.
+     *
+     * @param prefix redis key prefix.
+     * @return redis manager.
+     */
+    public static RedisCacheManager withHotKeys(String prefix) {
+        return new RedisCacheManager(prefix, new HotKeyDetector(HOT_KEY_TOP_K,
+                HOT_KEY_THRESHOLD, HOT_KEY_WINDOW_MILLIS), HOT_KEY_LOCAL_TTL_MILLIS);
+    }
+
+    public RedisCacheManager(String prefix,
+                             HotKeyDetector hotKeyDetector,
+                             long localTtlMillis) {
+        this(prefix, true, hotKeyDetector, localTtlMillis);
     }
 
-    @AllArgsConstructor
-    public static class RedisWestCache implements WestCache {
+    /**
+     * Create the redis manager with the hot keys pinned locally, which may be stale
+     * for the local ttl at most after the flushes in the other processes.
+     *
+     * @param prefix             redis key prefix.
+     * @param clusterGenerations true to share the namespace generations in redis.
+     * @param hotKeyDetector     the detector of the hot keys.
+     * @param localTtlMillis     the ttl of the local copies of the hot keys.
+     */
+    public RedisCacheManager(String prefix,
+                             boolean clusterGenerations,
+                             HotKeyDetector hotKeyDetector,
+                             long localTtlMillis) {
+        super(new HotKeyWestCacheAdaptor(new BloomFilterWestCacheAdaptor(
+                new RedisWestCache(prefix, clusterGenerations)), hotKeyDetector, localTtlMillis));
+        this.hotKeyDetector = hotKeyDetector;
+    }
+
+    /**
+     * Get the hot keys pinned locally.
+     *
+     * @return hot keys, empty when the hot key pinning is not enabled.
+     */
+    public List<String> getHotKeys() {
+        if (hotKeyDetector == null) return Collections.emptyList();
+        return hotKeyDetector.getHotKeys();
+    }
+
+    /*
+     * KEYS are the pairs of the value key and the version key, ARGV are the versions.
+     * The value is deleted when the version is empty or changed, and the new version is set.
+     */
+    static final String INVALIDATE_SCRIPT = ""
+            + "local n = 0\n"
+            + "for i = 1, #ARGV do\n"
+            + "  if ARGV[i] == '' or redis.call('GET', KEYS[2 * i]) ~= ARGV[i] then\n"
+            + "    redis.call('DEL', KEYS[2 * i - 1])\n"
+            + "    if ARGV[i] ~= '' then redis.call('SET', KEYS[2 * i], ARGV[i]) end\n"
+            + "    n = n + 1\n"
+            + "  end\n"
+            + "end\n"
+            + "return n";
+
+    /*
+     * KEYS are the generations hash and the versions hash, ARGV are the namespace and the version.
+     * The same version is bumped only once, and the sub namespaces are folded and pruned.
+     */
+    static final String FLUSH_GENERATION_SCRIPT = ""
+            + "local ns, version = ARGV[1], ARGV[2]\n"
+            + "if version ~= '' and redis.call('HGET', KEYS[2], ns) == version then\n"
+            + "  return tonumber(redis.call('HGET', KEYS[1], ns) or '0')\n"
+            + "end\n"
+            + "local delta = 1\n"
+            + "local all = redis.call('HGETALL', KEYS[1])\n"
+            + "for i = 1, #all, 2 do\n"
+            + "  local c = string.sub(all[i], #ns + 1, #ns + 1)\n"
+            + "  if string.sub(all[i], 1, #ns) == ns and (c == '.' or c == '_') then\n"
+            + "    delta = delta + tonumber(all[i + 1])\n"
+            + "    redis.call('HDEL', KEYS[1], all[i])\n"
+            + "    redis.call('HDEL', KEYS[2], all[i])\n"
+            + "  end\n"
+            + "end\n"
+            + "if version ~= '' then redis.call('HSET', KEYS[2], ns, version)\n"
+            + "else redis.call('HDEL', KEYS[2], ns) end\n"
+            + "return redis.call('HINCRBY', KEYS[1], ns, delta)";
+
+    public static class RedisWestCache implements WestCache, BatchInvalidatable,
+            BloomFilterWestCacheAdaptor.KeyScanner, BloomFilterWestCacheAdaptor.MissLoader {
         String prefix;
+        final boolean clusterGenerations;
+        volatile RedisGenerationStore generationStore;
+
+        public RedisWestCache(String prefix, boolean clusterGenerations) {
+            this.prefix = prefix;
+            this.clusterGenerations = clusterGenerations;
+        }
+
+        public RedisWestCache(String prefix) {
+            this(prefix, true);
+        }
 
         public RedisWestCache() {
             this(Redis.PREFIX);
@@ -39,28 +171,47 @@ public class RedisCacheManager extends BaseCacheManager {
 
         @Override
         public WestCacheItem get(WestCacheOption option, String cacheKey, Callable<WestCacheItem> callable) {
-            return new RedisInterceptor().intercept(option, cacheKey, callable);
+            useClusterGenerations(option);
+            return new RedisInterceptor(prefix).intercept(option, cacheKey, callable);
+        }
+
+        @Override
+        public WestCacheItem loadMissing(WestCacheOption option, String cacheKey, Callable<WestCacheItem> callable) {
+            useClusterGenerations(option);
+            return new RedisInterceptor(prefix).loadMissing(option, cacheKey, callable);
         }
 
         @Override
         public WestCacheItem getIfPresent(WestCacheOption option, String cacheKey) {
+            useClusterGenerations(option);
             val json = Redis.getRedis(option).get(prefix + cacheKey);
-            if (StringUtils.isNotEmpty(json)) {
-                val object = FastJsons.parse(json, option.getMethod(), true);
-                val optional = Optional.fromNullable(object);
-                return new WestCacheItem(optional, option);
-            }
-
-            return new WestCacheItem(Optional.absent(), option);
+            return NegativeCaches.parse(json, option);
         }
 
         @Override
         public void put(WestCacheOption option, String cacheKey, WestCacheItem cacheValue) {
+            useClusterGenerations(option);
             val redis = Redis.getRedis(option);
             val key = prefix + cacheKey;
             Redis.expirePut(redis, key, cacheValue);
         }
 
+        /*
+         * The store is added on the first access, when the redis of the option is known.
+         */
+        private void useClusterGenerations(WestCacheOption option) {
+            if (!clusterGenerations || generationStore != null) return;
+
+            synchronized (this) {
+                if (generationStore != null) return;
+
+                val store = new RedisGenerationStore(option.getSpecs().get("redisBean"),
+                        prefix + "generations", prefix + "generations:versions");
+                NamespaceGenerations.addClusterStore(store);
+                generationStore = store;
+            }
+        }
+
         @Override
         public void invalidate(WestCacheOption option, String cacheKey, String version) {
             val redis = Redis.getRedis(option);
@@ -71,6 +222,11 @@ public class RedisCacheManager extends BaseCacheManager {
                 return;
             }
 
+            if (redis instanceof ScriptingCommands) {
+                invalidateAll(option, ImmutableMap.of(cacheKey, version));
+                return;
+            }
+
             val lockKey = prefix + "lock:" + cacheKey;
             Redis.waitRedisLock(redis, lockKey);
             log.debug("got redis lock {} for invalidate", lockKey);
@@ -89,5 +245,105 @@ public class RedisCacheManager extends BaseCacheManager {
             redis.del(redisKey);
             redis.set(versionKey, version);
         }
+
+        @Override
+        public void scanKeys(WestCacheOption option, ScalableBloomFilter filter) {
+            val redis = Redis.getRedis(option);
+            if (!(redis instanceof MultiKeyCommands)) throw new WestCacheException(
+                    "redis does not support SCAN for the bloom filter");
+
+            val params = new ScanParams().match(prefix + "*").count(1000);
+            String cursor = ScanParams.SCAN_POINTER_START;
+            do {
+                val result = ((MultiKeyCommands) redis).scan(cursor, params);
+                for (val key : result.getResult()) {
+                    val cacheKey = key.substring(prefix.length());
+                    if (!isInternalKey(cacheKey)) filter.put(cacheKey);
+                }
+                cursor = result.getStringCursor();
+            } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+        }
+
+        /*
+         * The versions, the locks and the generations share the prefix with the cache keys.
+         */
+        static boolean isInternalKey(String key) {
+            return key.startsWith("version:") || key.startsWith("lock:")
+                    || key.equals("generations") || key.equals("generations:versions");
+        }
+
+        /*
+         * Compare and swap the versions atomically by the script in one round trip,
+         * or one by one with the redis lock when the redis does not support scripting.
+         */
+        @Override
+        public void invalidateAll(WestCacheOption option, Map<String, String> keyVersions) {
+            val redis = Redis.getRedis(option);
+            if (!(redis instanceof ScriptingCommands)) {
+                for (val entry : keyVersions.entrySet()) {
+                    invalidate(option, entry.getKey(), entry.getValue());
+                }
+                return;
+            }
+
+            List<String> keys = Lists.newArrayListWithCapacity(keyVersions.size() * 2);
+            List<String> versions = Lists.newArrayListWithCapacity(keyVersions.size());
+            for (val entry : keyVersions.entrySet()) {
+                keys.add(prefix + entry.getKey());
+                keys.add(prefix + "version:" + entry.getKey());
+                versions.add(Strings.nullToEmpty(entry.getValue()));
+            }
+
+            val invalidated = ((ScriptingCommands) redis).eval(INVALIDATE_SCRIPT, keys, versions);
+            log.debug("invalidated {} of {} by versions", invalidated, keyVersions);
+        }
+    }
+
+    /**
+     * The namespace generations shared by the processes in a redis hash.
+     * The managers with the same redis bean and prefix share one store,
+     * and the redis is resolved on every call like the managers.
+     */
+    @AllArgsConstructor @EqualsAndHashCode
+    static class RedisGenerationStore implements NamespaceGenerations.GenerationStore {
+        final String redisBean;
+        final String hashKey;
+        final String versionsKey;
+
+        /*
+         * Compare the version and bump atomically by the script,
+         * or step by step when the redis does not support scripting.
+         */
+        @Override public long flush(String namespace, String version) {
+            val redis = Redis.getRedis(redisBean);
+            val versionArg = Strings.nullToEmpty(version);
+            if (redis instanceof ScriptingCommands) {
+                val generation = ((ScriptingCommands) redis).eval(FLUSH_GENERATION_SCRIPT,
+                        Lists.newArrayList(hashKey, versionsKey), Lists.newArrayList(namespace, versionArg));
+                return ((Number) generation).longValue();
+            }
+
+            if (!versionArg.isEmpty() && versionArg.equals(redis.hget(versionsKey, namespace))) {
+                val generation = redis.hget(hashKey, namespace);
+                return generation == null ? 0 : Long.parseLong(generation);
+            }
+
+            long delta = 1;
+            for (val entry : redis.hgetAll(hashKey).entrySet()) {
+                val name = entry.getKey();
+                if (name.length() == namespace.length() || !Keys.isPrefix(name, namespace)) continue;
+
+                delta += Long.parseLong(entry.getValue());
+                redis.hdel(hashKey, name);
+                redis.hdel(versionsKey, name);
+            }
+            if (versionArg.isEmpty()) redis.hdel(versionsKey, namespace);
+            else redis.hset(versionsKey, namespace, versionArg);
+            return redis.hincrBy(hashKey, namespace, delta);
+        }
+
+        @Override public Map<String, String> readAll() {
+            return Redis.getRedis(redisBean).hgetAll(hashKey);
+        }
     }
 }
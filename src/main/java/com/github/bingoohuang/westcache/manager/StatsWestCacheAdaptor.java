@@ -0,0 +1,63 @@
+package com.github.bingoohuang.westcache.manager;
+
+import com.github.bingoohuang.westcache.base.BatchInvalidatable;
+import com.github.bingoohuang.westcache.base.WestCache;
+import com.github.bingoohuang.westcache.base.WestCacheItem;
+import com.github.bingoohuang.westcache.metrics.CacheMetrics;
+import com.github.bingoohuang.westcache.utils.Invalidations;
+import com.github.bingoohuang.westcache.utils.WestCacheOption;
+import lombok.AllArgsConstructor;
+import lombok.val;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Count the invalidations from the managers and flushers as evictions.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@AllArgsConstructor
+public class StatsWestCacheAdaptor implements WestCache, BatchInvalidatable {
+    private final WestCache westCache;
+
+    @Override
+    public WestCacheItem get(WestCacheOption option,
+                             String cacheKey,
+                             Callable<WestCacheItem> callable) {
+        return westCache.get(option, cacheKey, callable);
+    }
+
+    @Override
+    public WestCacheItem getIfPresent(WestCacheOption option,
+                                      String cacheKey) {
+        return westCache.getIfPresent(option, cacheKey);
+    }
+
+    @Override
+    public void put(WestCacheOption option,
+                    String cacheKey,
+                    WestCacheItem cacheValue) {
+        westCache.put(option, cacheKey, cacheValue);
+    }
+
+    @Override
+    public void invalidate(WestCacheOption option,
+                           String cacheKey,
+                           String version) {
+        westCache.invalidate(option, cacheKey, version);
+        if (option != null) CacheMetrics.getStats(option).recordEviction();
+    }
+
+    @Override
+    public void invalidateAll(WestCacheOption option,
+                              Map<String, String> keyVersions) {
+        Invalidations.invalidateAll(westCache, option, keyVersions);
+        if (option == null) return;
+
+        val stats = CacheMetrics.getStats(option);
+        for (int i = 0; i < keyVersions.size(); ++i) {
+            stats.recordEviction();
+        }
+    }
+}
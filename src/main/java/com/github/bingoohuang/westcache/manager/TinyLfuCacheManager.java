@@ -0,0 +1,284 @@
+package com.github.bingoohuang.westcache.manager;
+
+import com.github.bingoohuang.westcache.base.WestCache;
+import com.github.bingoohuang.westcache.base.WestCacheItem;
+import com.github.bingoohuang.westcache.metrics.CacheMetrics;
+import com.github.bingoohuang.westcache.utils.Envs;
+import com.github.bingoohuang.westcache.utils.FrequencySketch;
+import com.github.bingoohuang.westcache.utils.WestCacheOption;
+import lombok.AllArgsConstructor;
+import lombok.val;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.FutureTask;
+
+/**
+ * The bounded in-process manager with the W-TinyLFU admission.
+ * <p>
+ * The new entries go to a small LRU window (1%), and the ones evicted from the window
+ * are admitted to the main segmented LRU only when they are accessed more frequently
+ * than the victims of the main, by a frequency sketch of all the accesses.
+ * The main is split into the probation (20%) and the protected (80%),
+ * and the entries hit in the probation are promoted to the protected.
+ * So the one-hit-wonder keys like the search parameter combinations
+ * can not flush the hot set.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class TinyLfuCacheManager extends BaseCacheManager {
+    public static final int DEFAULT_MAXIMUM_SIZE = 10000;
+
+    public TinyLfuCacheManager() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public TinyLfuCacheManager(int maximumSize) {
+        super(new ExpireAfterWritableWestCacheAdaptor(new TinyLfuWestCache(maximumSize)));
+    }
+
+    @Override
+    protected boolean isInProcess() {
+        return true;
+    }
+
+    /**
+     * The W-TinyLFU cache split into the lock-striped segments by the key hash,
+     * each with its own window, main and sketch, so the readers of the different
+     * segments do not wait for each other.
+     * <p>
+     * An access is counted once in the sketch where it is resolved, by the hit,
+     * or by the insertion of the loaded item after a miss.
+     */
+    public static class TinyLfuWestCache implements WestCache {
+        public static final int MAX_SEGMENTS = 16;
+        static final int MIN_SEGMENT_SIZE = 256;
+
+        final Segment[] segments;
+        final int segmentMask;
+        private final ConcurrentMap<String, FutureTask<WestCacheItem>> loadings
+                = new ConcurrentHashMap<String, FutureTask<WestCacheItem>>();
+
+        public TinyLfuWestCache(int maximumSize) {
+            int maximum = Math.max(maximumSize, 2);
+            int count = 1;
+            while (count < MAX_SEGMENTS && maximum / (count * 2) >= MIN_SEGMENT_SIZE) count <<= 1;
+
+            this.segments = new Segment[count];
+            this.segmentMask = count - 1;
+            for (int i = 0; i < count; ++i) {
+                segments[i] = new Segment(maximum / count + (i < maximum % count ? 1 : 0));
+            }
+        }
+
+        @Override
+        public WestCacheItem get(WestCacheOption option,
+                                 String cacheKey,
+                                 Callable<WestCacheItem> callable) {
+            val segment = segmentOf(cacheKey);
+            val item = segment.getIfPresent(cacheKey);
+            if (item != null) return item;
+
+            // only one caller loads the key, the others wait for it
+            val task = new FutureTask<WestCacheItem>(callable);
+            val loading = loadings.putIfAbsent(cacheKey, task);
+            if (loading != null) {
+                segment.increment(cacheKey);
+                return Envs.futureGet(loading);
+            }
+
+            try {
+                task.run();
+                val loaded = Envs.futureGet(task);
+                segment.putItem(option, cacheKey, loaded);
+                return loaded;
+            } finally {
+                loadings.remove(cacheKey, task);
+            }
+        }
+
+        @Override
+        public WestCacheItem getIfPresent(WestCacheOption option,
+                                          String cacheKey) {
+            return segmentOf(cacheKey).getIfPresent(cacheKey);
+        }
+
+        @Override
+        public void put(WestCacheOption option,
+                        String cacheKey,
+                        WestCacheItem cacheValue) {
+            segmentOf(cacheKey).putItem(option, cacheKey, cacheValue);
+        }
+
+        @Override
+        public void invalidate(WestCacheOption option,
+                               String cacheKey,
+                               String version) {
+            segmentOf(cacheKey).invalidate(cacheKey);
+        }
+
+        public int size() {
+            int size = 0;
+            for (val segment : segments) size += segment.size();
+            return size;
+        }
+
+        boolean contains(String cacheKey) {
+            return segmentOf(cacheKey).contains(cacheKey);
+        }
+
+        public int segmentCount() {
+            return segments.length;
+        }
+
+        public int frequency(String cacheKey) {
+            return segmentOf(cacheKey).frequency(cacheKey);
+        }
+
+        private Segment segmentOf(String cacheKey) {
+            int hash = cacheKey.hashCode();
+            return segments[(hash ^ (hash >>> 16)) & segmentMask];
+        }
+    }
+
+    static class Segment {
+        final int windowMax;
+        final int mainMax;
+        final int protectedMax;
+        final FrequencySketch sketch;
+        final Map<String, Entry> window = newLru();
+        final Map<String, Entry> probation = newLru();
+        final Map<String, Entry> protects = newLru();
+
+        Segment(int maximumSize) {
+            int maximum = Math.max(maximumSize, 2);
+            this.windowMax = Math.max(maximum / 100, 1);
+            this.mainMax = maximum - windowMax;
+            this.protectedMax = mainMax * 4 / 5;
+            this.sketch = new FrequencySketch(maximum);
+        }
+
+        /*
+         * The miss is not counted here, but by the insertion of the loaded item.
+         */
+        synchronized WestCacheItem getIfPresent(String cacheKey) {
+            val windowEntry = window.get(cacheKey);
+            if (windowEntry != null) return hit(cacheKey, windowEntry);
+
+            val protectedEntry = protects.get(cacheKey);
+            if (protectedEntry != null) return hit(cacheKey, protectedEntry);
+
+            val probationEntry = probation.remove(cacheKey);
+            if (probationEntry == null) return null;
+
+            promote(cacheKey, probationEntry);
+            return hit(cacheKey, probationEntry);
+        }
+
+        synchronized void increment(String cacheKey) {
+            sketch.increment(cacheKey);
+        }
+
+        synchronized int frequency(String cacheKey) {
+            return sketch.frequency(cacheKey);
+        }
+
+        /*
+         * The update of a present key, like a refresh, is not counted.
+         */
+        synchronized void putItem(WestCacheOption option,
+                                  String cacheKey,
+                                  WestCacheItem cacheValue) {
+            val entry = new Entry(option, cacheValue);
+            if (protects.containsKey(cacheKey)) {
+                protects.put(cacheKey, entry);
+            } else if (probation.containsKey(cacheKey)) {
+                probation.put(cacheKey, entry);
+            } else if (window.containsKey(cacheKey)) {
+                window.put(cacheKey, entry);
+            } else {
+                sketch.increment(cacheKey);
+                window.put(cacheKey, entry);
+                evictWindow();
+            }
+        }
+
+        synchronized void invalidate(String cacheKey) {
+            window.remove(cacheKey);
+            probation.remove(cacheKey);
+            protects.remove(cacheKey);
+        }
+
+        synchronized int size() {
+            return window.size() + probation.size() + protects.size();
+        }
+
+        synchronized boolean contains(String cacheKey) {
+            return window.containsKey(cacheKey)
+                    || probation.containsKey(cacheKey)
+                    || protects.containsKey(cacheKey);
+        }
+
+        private WestCacheItem hit(String cacheKey, Entry entry) {
+            sketch.increment(cacheKey);
+            return entry.item;
+        }
+
+        private void promote(String cacheKey, Entry entry) {
+            protects.put(cacheKey, entry);
+            if (protects.size() <= protectedMax) return;
+
+            val demoted = eldest(protects);
+            protects.remove(demoted.getKey());
+            probation.put(demoted.getKey(), demoted.getValue());
+        }
+
+        /*
+         * The candidate evicted from the window is admitted to the main
+         * only when it is more frequent than the victim of the main.
+         */
+        private void evictWindow() {
+            while (window.size() > windowMax) {
+                val candidate = eldest(window);
+                window.remove(candidate.getKey());
+                if (probation.size() + protects.size() < mainMax) {
+                    probation.put(candidate.getKey(), candidate.getValue());
+                    continue;
+                }
+
+                val victims = probation.isEmpty() ? protects : probation;
+                Map.Entry<String, Entry> victim = victims.isEmpty() ? null : eldest(victims);
+                if (victim == null || sketch.frequency(candidate.getKey())
+                        <= sketch.frequency(victim.getKey())) {
+                    recordEviction(candidate.getValue());
+                    continue;
+                }
+
+                victims.remove(victim.getKey());
+                recordEviction(victim.getValue());
+                probation.put(candidate.getKey(), candidate.getValue());
+            }
+        }
+
+        private static void recordEviction(Entry entry) {
+            if (entry.option != null) CacheMetrics.getStats(entry.option).recordEviction();
+        }
+
+        private static Map.Entry<String, Entry> eldest(Map<String, Entry> lru) {
+            return lru.entrySet().iterator().next();
+        }
+
+        private static Map<String, Entry> newLru() {
+            return new LinkedHashMap<String, Entry>(16, 0.75f, true);
+        }
+    }
+
+    @AllArgsConstructor
+    static class Entry {
+        final WestCacheOption option;
+        final WestCacheItem item;
+    }
+}
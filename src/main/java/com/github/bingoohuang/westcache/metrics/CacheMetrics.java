@@ -0,0 +1,84 @@
+package com.github.bingoohuang.westcache.metrics;
+
+import com.github.bingoohuang.westcache.utils.Guavas;
+import com.github.bingoohuang.westcache.utils.TimingWheelScheduler;
+import com.github.bingoohuang.westcache.utils.WestCacheOption;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The entrance of cache statistics, which are kept per option,
+ * and released together with the option.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@Slf4j @UtilityClass
+public class CacheMetrics {
+    private static final LoadingCache<WestCacheOption, CacheStats> statsCache
+            = CacheBuilder.newBuilder().weakKeys().build(
+            new CacheLoader<WestCacheOption, CacheStats>() {
+                @Override public CacheStats load(WestCacheOption option) {
+                    return new CacheStats(getName(option));
+                }
+            });
+
+    public static CacheStats getStats(WestCacheOption option) {
+        return Guavas.cacheGet(statsCache, option);
+    }
+
+    public static Collection<CacheStats> getAllStats() {
+        return new ArrayList<CacheStats>(statsCache.asMap().values());
+    }
+
+    /**
+     * Get the name of the statistics, like com.foo.ClassName.methodName(String,int),
+     * so the overloaded methods and the same named classes in different packages are apart.
+     *
+     * @param option WestCacheOption.
+     * @return name of statistics.
+     */
+    public static String getName(WestCacheOption option) {
+        val method = option.getMethod();
+        if (method == null) return StringUtils.defaultIfEmpty(option.getKey(), "api");
+
+        val name = new StringBuilder(method.getDeclaringClass().getName())
+                .append('.').append(method.getName()).append('(');
+        val parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; ++i) {
+            if (i > 0) name.append(',');
+            name.append(parameterTypes[i].getSimpleName());
+        }
+        return name.append(')').toString();
+    }
+
+    /**
+     * Report all the statistics periodically on the shared scheduler.
+     *
+     * @param reporter reporter.
+     * @param period   period between reports.
+     * @param unit     time unit of the period.
+     * @return future to stop the reporting.
+     */
+    public static ScheduledFuture<?> startReporting(final CacheStatsReporter reporter,
+                                                    long period, TimeUnit unit) {
+        return TimingWheelScheduler.shared().scheduleAtFixedRate(new Runnable() {
+            @Override public void run() {
+                try {
+                    reporter.report(getAllStats());
+                } catch (Exception ex) {
+                    log.warn("report cache stats error", ex);
+                }
+            }
+        }, period, period, unit);
+    }
+}
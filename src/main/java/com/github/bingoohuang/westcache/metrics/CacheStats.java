@@ -0,0 +1,171 @@
+package com.github.bingoohuang.westcache.metrics;
+
+import lombok.Getter;
+import lombok.val;
+
+/**
+ * The statistics of a cached method.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class CacheStats implements CacheStatsMXBean {
+    @Getter private final String name;
+    final StripedCounter hits = new StripedCounter();
+    final StripedCounter misses = new StripedCounter();
+    final StripedCounter loadFailures = new StripedCounter();
+    final StripedCounter evictions = new StripedCounter();
+    final StripedCounter snapshotFallbacks = new StripedCounter();
+    final StripedCounter directValueHits = new StripedCounter();
+    final StripedCounter loadsShed = new StripedCounter();
+    final StripedCounter circuitOpens = new StripedCounter();
+    final StripedCounter staleServed = new StripedCounter();
+    @Getter final LatencyHistogram loadTime = new LatencyHistogram();
+    @Getter final LatencyHistogram hitLatency = new LatencyHistogram();
+    @Getter final LatencyHistogram missLatency = new LatencyHistogram();
+
+    public CacheStats(String name) {
+        this.name = name;
+    }
+
+    public void recordHit() {
+        hits.increment();
+    }
+
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    /**
+     * Record the latency of the cached method call.
+     *
+     * @param hit   true when the value is from the cache.
+     * @param nanos latency in nanos.
+     */
+    public void recordLatency(boolean hit, long nanos) {
+        if (hit) hitLatency.record(nanos);
+        else missLatency.record(nanos);
+    }
+
+    public void recordLoadSuccess(long loadNanos) {
+        loadTime.record(loadNanos);
+    }
+
+    public void recordLoadFailure(long loadNanos) {
+        loadTime.record(loadNanos);
+        loadFailures.increment();
+    }
+
+    public void recordEviction() {
+        evictions.increment();
+    }
+
+    public void recordSnapshotFallback() {
+        snapshotFallbacks.increment();
+    }
+
+    public void recordDirectValueHit() {
+        directValueHits.increment();
+    }
+
+    public void recordLoadShed() {
+        loadsShed.increment();
+    }
+
+    public void recordCircuitOpen() {
+        circuitOpens.increment();
+    }
+
+    public void recordStaleServed() {
+        staleServed.increment();
+    }
+
+    @Override public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override public double getHitRatio() {
+        long hitCount = hits.sum();
+        long requestCount = hitCount + misses.sum();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    @Override public long getLoadCount() {
+        return loadTime.getCount();
+    }
+
+    @Override public long getLoadFailureCount() {
+        return loadFailures.sum();
+    }
+
+    @Override public double getAverageLoadMillis() {
+        return loadTime.getMeanMillis();
+    }
+
+    @Override public double getLoadP99Millis() {
+        return loadTime.getPercentileMillis(99);
+    }
+
+    @Override public double getHitP50Millis() {
+        return hitLatency.getPercentileMillis(50);
+    }
+
+    @Override public double getHitP99Millis() {
+        return hitLatency.getPercentileMillis(99);
+    }
+
+    @Override public double getHitP999Millis() {
+        return hitLatency.getPercentileMillis(99.9);
+    }
+
+    @Override public double getMissP50Millis() {
+        return missLatency.getPercentileMillis(50);
+    }
+
+    @Override public double getMissP99Millis() {
+        return missLatency.getPercentileMillis(99);
+    }
+
+    @Override public double getMissP999Millis() {
+        return missLatency.getPercentileMillis(99.9);
+    }
+
+    @Override public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override public long getSnapshotFallbackCount() {
+        return snapshotFallbacks.sum();
+    }
+
+    @Override public long getDirectValueHitCount() {
+        return directValueHits.sum();
+    }
+
+    @Override public long getLoadShedCount() {
+        return loadsShed.sum();
+    }
+
+    @Override public long getCircuitOpenCount() {
+        return circuitOpens.sum();
+    }
+
+    @Override public long getStaleServedCount() {
+        return staleServed.sum();
+    }
+
+    @Override public String toString() {
+        val load = loadTime.snapshot();
+        return String.format("%s hits=%d misses=%d hitRatio=%.3f loads=%d " +
+                        "loadFailures=%d avgLoadMillis=%.3f p99LoadMillis=%.3f " +
+                        "evictions=%d snapshotFallbacks=%d directValueHits=%d " +
+                        "loadsShed=%d circuitOpens=%d staleServed=%d",
+                name, getHitCount(), getMissCount(), getHitRatio(), load.getCount(),
+                getLoadFailureCount(), load.getMeanMillis(), load.getPercentileMillis(99),
+                getEvictionCount(), getSnapshotFallbackCount(), getDirectValueHitCount(),
+                getLoadShedCount(), getCircuitOpenCount(), getStaleServedCount());
+    }
+}
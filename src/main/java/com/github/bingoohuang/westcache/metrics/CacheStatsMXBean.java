@@ -0,0 +1,48 @@
+package com.github.bingoohuang.westcache.metrics;
+
+/**
+ * The JMX view of {@link CacheStats}.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public interface CacheStatsMXBean {
+    String getName();
+
+    long getHitCount();
+
+    long getMissCount();
+
+    double getHitRatio();
+
+    long getLoadCount();
+
+    long getLoadFailureCount();
+
+    double getAverageLoadMillis();
+
+    double getLoadP99Millis();
+
+    double getHitP50Millis();
+
+    double getHitP99Millis();
+
+    double getHitP999Millis();
+
+    double getMissP50Millis();
+
+    double getMissP99Millis();
+
+    double getMissP999Millis();
+
+    long getEvictionCount();
+
+    long getSnapshotFallbackCount();
+
+    long getDirectValueHitCount();
+
+    long getLoadShedCount();
+
+    long getCircuitOpenCount();
+
+    long getStaleServedCount();
+}
@@ -0,0 +1,18 @@
+package com.github.bingoohuang.westcache.metrics;
+
+import java.util.Collection;
+
+/**
+ * Report the cache statistics periodically,
+ * started by {@link CacheMetrics#startReporting}.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public interface CacheStatsReporter {
+    /**
+     * Report the statistics of all the cached methods.
+     *
+     * @param stats statistics.
+     */
+    void report(Collection<CacheStats> stats);
+}
@@ -0,0 +1,107 @@
+package com.github.bingoohuang.westcache.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable snapshot of {@link LatencyHistogram}.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class HistogramSnapshot {
+    public static final HistogramSnapshot EMPTY
+            = new HistogramSnapshot(new long[LatencyHistogram.BUCKETS], 0);
+
+    private final long[] counts;
+    private final long count;
+    private final long totalNanos;
+
+    HistogramSnapshot(long[] counts, long totalNanos) {
+        this.counts = counts;
+        this.totalNanos = totalNanos;
+
+        long sum = 0;
+        for (long c : counts) sum += c;
+        this.count = sum;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMeanMillis() {
+        return count == 0 ? 0 : toMillis(totalNanos) / count;
+    }
+
+    /**
+     * Get the value at the percentile, which is the upper bound of its bucket.
+     *
+     * @param percentile percentile like 50, 99 or 99.9.
+     * @return value in millis, 0 when no recordings.
+     */
+    public double getPercentileMillis(double percentile) {
+        return toMillis(getPercentile(percentile));
+    }
+
+    /**
+     * Get the mean of the raw values, for the histograms not of nanos like batch sizes.
+     *
+     * @return mean value, 0 when no recordings.
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) totalNanos / count;
+    }
+
+    /**
+     * Get the raw value at the percentile, which is the upper bound of its bucket.
+     *
+     * @param percentile percentile like 50, 99 or 99.9.
+     * @return raw value, 0 when no recordings.
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length; ++i) {
+            seen += counts[i];
+            if (seen >= rank) return LatencyHistogram.bucketUpperBound(i);
+        }
+
+        return LatencyHistogram.bucketUpperBound(counts.length - 1);
+    }
+
+    /**
+     * Get the difference from the previous snapshot.
+     *
+     * @param previous previous snapshot of the same histogram.
+     * @return difference snapshot.
+     */
+    public HistogramSnapshot minus(HistogramSnapshot previous) {
+        long[] diff = new long[counts.length];
+        for (int i = 0; i < counts.length; ++i) {
+            diff[i] = Math.max(0, counts[i] - previous.counts[i]);
+        }
+
+        return new HistogramSnapshot(diff, totalNanos - previous.totalNanos);
+    }
+
+    @Override public String toString() {
+        return String.format("count=%d mean=%.3fms p50=%.3fms p99=%.3fms p999=%.3fms",
+                count, getMeanMillis(), getPercentileMillis(50),
+                getPercentileMillis(99), getPercentileMillis(99.9));
+    }
+
+    /**
+     * Format the raw values, for the histograms not of nanos like batch sizes.
+     *
+     * @return formatted string.
+     */
+    public String toValueString() {
+        return String.format("count=%d mean=%.1f p50=%d p99=%d max=%d",
+                count, getMean(), getPercentile(50), getPercentile(99), getPercentile(100));
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
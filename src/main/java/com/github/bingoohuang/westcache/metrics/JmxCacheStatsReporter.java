@@ -0,0 +1,81 @@
+package com.github.bingoohuang.westcache.metrics;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Register the cache statistics as MXBeans named like
+ * com.github.bingoohuang.westcache:type=CacheStats,name="com.foo.Service.method(String)".
+ * The statistics with the same name of another one are skipped with a warning.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@Slf4j
+public class JmxCacheStatsReporter implements CacheStatsReporter {
+    public static final String DOMAIN = "com.github.bingoohuang.westcache";
+
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    private final Set<ObjectName> registered = new HashSet<ObjectName>();
+    private final Set<ObjectName> collided = new HashSet<ObjectName>();
+
+    @Override
+    public synchronized void report(Collection<CacheStats> stats) {
+        val current = new HashSet<ObjectName>();
+        for (val stat : stats) {
+            val objectName = createObjectName(stat.getName());
+            if (!current.add(objectName)) {
+                if (collided.add(objectName)) log.warn("cache stats {} "
+                        + "collides with another one, skipped", objectName);
+                continue;
+            }
+            if (server.isRegistered(objectName)) continue;
+
+            register(stat, objectName);
+        }
+
+        for (val objectName : registered) {
+            if (!current.contains(objectName)) unregister(objectName);
+        }
+        registered.retainAll(current);
+    }
+
+    /**
+     * Unregister all the MXBeans registered by this reporter.
+     */
+    public synchronized void close() {
+        for (val objectName : registered) {
+            unregister(objectName);
+        }
+        registered.clear();
+    }
+
+    @SneakyThrows
+    public static ObjectName createObjectName(String name) {
+        return new ObjectName(DOMAIN + ":type=CacheStats,name=" + ObjectName.quote(name));
+    }
+
+    private void register(CacheStats stat, ObjectName objectName) {
+        try {
+            server.registerMBean(stat, objectName);
+            registered.add(objectName);
+        } catch (Exception ex) {
+            log.warn("register cache stats {} error", objectName, ex);
+        }
+    }
+
+    private void unregister(ObjectName objectName) {
+        try {
+            server.unregisterMBean(objectName);
+        } catch (Exception ex) {
+            log.warn("unregister cache stats {} error", objectName, ex);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.github.bingoohuang.westcache.metrics;
+
+import lombok.val;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free and allocation-free latency histogram in nanos,
+ * with log-linear buckets like HdrHistogram: every power of 2 range
+ * is divided into 32 linear sub buckets, about 3% precision,
+ * and the values above about 68 seconds are counted into the last bucket.
+ * <p>
+ * The recording is never paused, snapshots are copied from the counts
+ * concurrently, and the interval snapshot is the difference from the last one.
+ * The count, mean and percentile getters read the counts in place without
+ * copying, take one snapshot instead to report several values together.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class LatencyHistogram {
+    static final int SUB_BITS = 5;
+    static final int SUB_COUNT = 1 << SUB_BITS;
+    static final int MAX_EXPONENT = 36;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final StripedCounter count = new StripedCounter();
+    private final StripedCounter totalNanos = new StripedCounter();
+    private HistogramSnapshot lastSnapshot = HistogramSnapshot.EMPTY;
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.getAndIncrement(bucketIndex(value));
+        count.increment();
+        totalNanos.add(value);
+    }
+
+    /**
+     * Record the elapsed nanos since the start.
+     *
+     * @param startNanos start time from System.nanoTime().
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_COUNT) return (int) value;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) return BUCKETS - 1;
+
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    /**
+     * The highest value in nanos of the bucket.
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_COUNT) return index;
+
+        int exponent = index / SUB_COUNT + SUB_BITS - 1;
+        int sub = index % SUB_COUNT;
+        long unit = 1L << (exponent - SUB_BITS);
+        return (1L << exponent) + (sub + 1) * unit - 1;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) totalNanos.sum() / TimeUnit.MILLISECONDS.toNanos(1) / n;
+    }
+
+    /**
+     * Get the value at the percentile, which is the upper bound of its bucket.
+     *
+     * @param percentile percentile like 50, 99 or 99.9.
+     * @return value in millis, 0 when no recordings.
+     */
+    public double getPercentileMillis(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            total += buckets.get(i);
+        }
+        if (total == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        int index = 0;
+        for (; index < BUCKETS - 1; ++index) {
+            seen += buckets.get(index);
+            if (seen >= rank) break;
+        }
+
+        return (double) bucketUpperBound(index) / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Copy the counts since created without pausing the recording.
+     *
+     * @return the cumulative snapshot.
+     */
+    public HistogramSnapshot snapshot() {
+        val counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; ++i) {
+            counts[i] = buckets.get(i);
+        }
+
+        return new HistogramSnapshot(counts, totalNanos.sum());
+    }
+
+    /**
+     * Get the snapshot of the recordings since the last interval snapshot.
+     *
+     * @return the interval snapshot.
+     */
+    public synchronized HistogramSnapshot intervalSnapshot() {
+        val current = snapshot();
+        val interval = current.minus(lastSnapshot);
+        lastSnapshot = current;
+        return interval;
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.bingoohuang.westcache.metrics;
+
+import com.google.common.collect.ImmutableMap;
+import lombok.experimental.UtilityClass;
+
+import java.util.Map;
+
+/**
+ * The global latency histograms beyond the cached methods.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@UtilityClass
+public class LatencyMetrics {
+    public static final LatencyHistogram REDIS_ROUND_TRIP = new LatencyHistogram();
+    public static final LatencyHistogram SNAPSHOT_READ = new LatencyHistogram();
+    public static final LatencyHistogram FLUSHER_LOOKUP = new LatencyHistogram();
+
+    private static final Map<String, LatencyHistogram> histograms
+            = ImmutableMap.of(
+            "redis.roundTrip", REDIS_ROUND_TRIP,
+            "snapshot.read", SNAPSHOT_READ,
+            "flusher.lookup", FLUSHER_LOOKUP);
+
+    public static Map<String, LatencyHistogram> getHistograms() {
+        return histograms;
+    }
+}
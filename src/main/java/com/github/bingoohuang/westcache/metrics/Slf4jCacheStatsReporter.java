@@ -0,0 +1,27 @@
+package com.github.bingoohuang.westcache.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.util.Collection;
+
+/**
+ * Report the cache statistics, and the latencies of the hit and miss paths
+ * and the global latencies since last report, to the log in info level.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@Slf4j
+public class Slf4jCacheStatsReporter implements CacheStatsReporter {
+    @Override public void report(Collection<CacheStats> stats) {
+        for (val stat : stats) {
+            log.info("cache stats {}", stat);
+            log.info("cache {} hit latency {}", stat.getName(), stat.getHitLatency().intervalSnapshot());
+            log.info("cache {} miss latency {}", stat.getName(), stat.getMissLatency().intervalSnapshot());
+        }
+
+        for (val entry : LatencyMetrics.getHistograms().entrySet()) {
+            log.info("{} latency {}", entry.getKey(), entry.getValue().intervalSnapshot());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.bingoohuang.westcache.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A low contention counter striped by threads,
+ * every stripe is padded to its own cache line.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class StripedCounter {
+    private static final int PAD = 8; // 8 longs for 64 bytes cache line
+    private static final int STRIPES = Math.min(16, Integer.highestOneBit(
+            Runtime.getRuntime().availableProcessors() * 2 - 1));
+    private static final int MASK = STRIPES - 1;
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PAD);
+
+    public void increment() {
+        add(1L);
+    }
+
+    public void add(long x) {
+        int index = ((int) Thread.currentThread().getId() & MASK) * PAD;
+        cells.getAndAdd(index, x);
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; ++i) {
+            sum += cells.get(i * PAD);
+        }
+        return sum;
+    }
+}
@@ -2,11 +2,10 @@ package com.github.bingoohuang.westcache.snapshot;
 
 import com.github.bingoohuang.westcache.base.WestCacheItem;
 import com.github.bingoohuang.westcache.base.WestCacheSnapshot;
-import com.github.bingoohuang.westcache.utils.FastJsons;
+import com.github.bingoohuang.westcache.utils.NegativeCaches;
 import com.github.bingoohuang.westcache.utils.Snapshots;
 import com.github.bingoohuang.westcache.utils.WestCacheOption;
 import com.google.common.base.Charsets;
-import com.google.common.base.Optional;
 import com.google.common.io.Files;
 import lombok.SneakyThrows;
 import lombok.val;
@@ -25,7 +24,7 @@ public class FileCacheSnapshot implements WestCacheSnapshot {
     public void saveSnapshot(WestCacheOption option,
                              String cacheKey,
                              WestCacheItem cacheValue) {
-        val json = FastJsons.json(cacheValue.getObject().orNull());
+        val json = NegativeCaches.json(cacheValue);
 
         val snapshotFile = Snapshots.getSnapshotFile(cacheKey);
         Files.write(json, snapshotFile, Charsets.UTF_8);
@@ -38,9 +37,7 @@ public class FileCacheSnapshot implements WestCacheSnapshot {
         if (!snapshotFile.exists() || !snapshotFile.isFile()) return null;
 
         val json = Files.toString(snapshotFile, Charsets.UTF_8);
-        val object = FastJsons.parse(json, option.getMethod(), true);
-        val optional = Optional.fromNullable(object);
-        return new WestCacheItem(optional, option);
+        return NegativeCaches.parse(json, option);
     }
 
     @Override @SneakyThrows
@@ -2,10 +2,9 @@ package com.github.bingoohuang.westcache.snapshot;
 
 import com.github.bingoohuang.westcache.base.WestCacheItem;
 import com.github.bingoohuang.westcache.base.WestCacheSnapshot;
-import com.github.bingoohuang.westcache.utils.FastJsons;
+import com.github.bingoohuang.westcache.utils.NegativeCaches;
 import com.github.bingoohuang.westcache.utils.Redis;
 import com.github.bingoohuang.westcache.utils.WestCacheOption;
-import com.google.common.base.Optional;
 import lombok.AllArgsConstructor;
 import lombok.val;
 
@@ -25,7 +24,7 @@ public class RedisCacheSnapshot implements WestCacheSnapshot {
     public void saveSnapshot(WestCacheOption option,
                              String cacheKey,
                              WestCacheItem cacheValue) {
-        val json = FastJsons.json(cacheValue.getObject().orNull());
+        val json = NegativeCaches.json(cacheValue);
         Redis.getRedis(option).set(prefix + cacheKey, json);
     }
 
@@ -35,9 +34,7 @@ public class RedisCacheSnapshot implements WestCacheSnapshot {
         val json = Redis.getRedis(option).get(prefix + cacheKey);
         if (json == null) return null;
 
-        val object = FastJsons.parse(json, option.getMethod(), true);
-        val optional = Optional.fromNullable(object);
-        return new WestCacheItem(optional, option);
+        return NegativeCaches.parse(json, option);
     }
 
     @Override
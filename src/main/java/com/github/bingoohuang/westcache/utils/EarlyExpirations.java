@@ -0,0 +1,87 @@
+package com.github.bingoohuang.westcache.utils;
+
+import com.github.bingoohuang.westcache.base.WestCacheException;
+import lombok.experimental.UtilityClass;
+import lombok.val;
+
+import java.util.Random;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * The spreading of the expirations to avoid the synchronized expiry storms.
+ * <p>
+ * The entries loaded at the same time with the same expireAfterWrite expire in the same second,
+ * and all hit the origin at once. With expireJitter=10% spec, the lifetime of each entry
+ * is shortened by a random part up to 10%, so the expirations are spread out.
+ * With earlyRefreshBeta=1 spec, an entry is refreshed probabilistically before it expires
+ * (the XFetch algorithm), that is when {@code now - loadCost * beta * ln(random) >= expiry},
+ * so the entries with the costly loads are refreshed earlier, and a hot key is refreshed
+ * by one caller while the others are still served the current value.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@UtilityClass
+public class EarlyExpirations {
+    // ThreadLocalRandom is not available in java 6
+    private static final ThreadLocal<Random> RANDOM = new ThreadLocal<Random>() {
+        @Override protected Random initialValue() {
+            return new Random();
+        }
+    };
+
+    /**
+     * Get the jittered lifetime.
+     *
+     * @param option         WestCacheOption.
+     * @param durationMillis lifetime in millis of expireAfterWrite.
+     * @return lifetime shortened randomly by expireJitter, or the lifetime itself when not set.
+     */
+    public static long jitterMillis(WestCacheOption option, long durationMillis) {
+        if (option == null) return durationMillis;
+
+        double jitter = parseJitter(option.getSpecs().get("expireJitter"));
+        if (jitter <= 0) return durationMillis;
+
+        return durationMillis - (long) (durationMillis * jitter * RANDOM.get().nextDouble());
+    }
+
+    /**
+     * Get the beta of the early refresh.
+     *
+     * @param option WestCacheOption.
+     * @return earlyRefreshBeta, or 0 when not set.
+     */
+    public static double getBeta(WestCacheOption option) {
+        val beta = option.getSpecs().get("earlyRefreshBeta");
+        return isBlank(beta) ? 0 : Double.parseDouble(beta.trim());
+    }
+
+    /**
+     * Tell whether to refresh the entry before its expiry by XFetch.
+     *
+     * @param expiredAt expiry in millis.
+     * @param loadMillis load cost in millis.
+     * @param beta      beta, the larger the earlier.
+     * @return refresh or not.
+     */
+    public static boolean shouldRefresh(long expiredAt, long loadMillis, double beta) {
+        if (expiredAt <= 0 || beta <= 0) return false;
+
+        // at least 1 milli as the cost, or the cheap loads are never refreshed early
+        double gap = -Math.max(loadMillis, 1) * beta * Math.log(1 - RANDOM.get().nextDouble());
+        return System.currentTimeMillis() + gap >= expiredAt;
+    }
+
+    static double parseJitter(String spec) {
+        if (isBlank(spec)) return 0;
+
+        val jitter = spec.trim();
+        double value = jitter.endsWith("%")
+                ? Double.parseDouble(jitter.substring(0, jitter.length() - 1)) / 100
+                : Double.parseDouble(jitter);
+        if (value < 0 || value >= 1) throw new WestCacheException(
+                "expireJitter " + spec + " is not valid, should be like 10%");
+        return value;
+    }
+}
@@ -1,5 +1,8 @@
 package com.github.bingoohuang.westcache.utils;
 
+import com.github.bingoohuang.westcache.base.WestCacheException;
+import com.github.bingoohuang.westcache.metrics.CacheMetrics;
+import com.github.bingoohuang.westcache.metrics.LatencyMetrics;
 import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
@@ -14,6 +17,12 @@ import java.util.concurrent.*;
  */
 @Slf4j @UtilityClass
 public class Envs {
+    /**
+     * The max millis to wait further for the load after the snapshot timeout
+     * when there is no snapshot to serve.
+     */
+    public static final long LOAD_WAIT_MILLIS_WITHOUT_SNAPSHOT = 30 * 1000L;
+
     public static final boolean HAS_SPRING = classExists("org.springframework.context.ApplicationContext");
     public static final boolean HAS_DIAMOND = classExists("org.n3r.diamond.client.DiamondListener");
     public static final boolean HAS_EXPIRING = classExists("net.jodah.expiringmap.ExpiringMap");
@@ -86,15 +95,43 @@ public class Envs {
                                     Future<T> future,
                                     String cacheKey) {
         val timeout = option.getConfig().timeoutMillisToSnapshot();
+        return trySnapshot(option, future, cacheKey, timeout);
+    }
+
+    public static <T> T trySnapshot(WestCacheOption option,
+                                    Future<T> future,
+                                    String cacheKey,
+                                    long timeout) {
         try {
             return futureGet(future, timeout);
         } catch (TimeoutException ex) {
             log.info("get cache {} timeout in {} millis," +
                     " try snapshot", cacheKey, timeout);
+            long start = System.nanoTime();
             val result = option.getSnapshot().readSnapshot(option, cacheKey);
+            LatencyMetrics.SNAPSHOT_READ.recordSince(start);
             log.info("got {} snapshot {}", cacheKey,
                     result != null ? result.getObject() : " non-exist");
-            return result != null ? (T) result : Envs.futureGet(future);
+            if (result != null) CacheMetrics.getStats(option).recordSnapshotFallback();
+            return result != null ? (T) result : awaitLoad(future, cacheKey, LOAD_WAIT_MILLIS_WITHOUT_SNAPSHOT);
+        }
+    }
+
+    /**
+     * Wait for the load at most the millis, which fails when not completed in time.
+     *
+     * @param future     future of the load.
+     * @param cacheKey   cache key.
+     * @param waitMillis the max millis to wait.
+     * @param <T>        the type of the load result.
+     * @return the load result.
+     */
+    public static <T> T awaitLoad(Future<T> future, String cacheKey, long waitMillis) {
+        try {
+            return futureGet(future, waitMillis);
+        } catch (TimeoutException ex) {
+            throw new WestCacheException("load of cache key " + cacheKey
+                    + " is not completed in " + waitMillis + " millis without snapshot");
         }
     }
 }
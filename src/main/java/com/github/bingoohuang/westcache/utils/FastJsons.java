@@ -4,6 +4,7 @@ import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.TypeReference;
 import com.alibaba.fastjson.parser.ParserConfig;
 import com.alibaba.fastjson.serializer.SerializeConfig;
+import com.google.common.util.concurrent.ListenableFuture;
 import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
@@ -11,6 +12,8 @@ import lombok.val;
 import org.joda.time.DateTime;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 
 /**
  * @author bingoohuang [bingoohuang@gmail.com] Created on 2016/12/29.
@@ -38,7 +41,7 @@ public class FastJsons {
 
     @SneakyThrows @SuppressWarnings("unchecked")
     public static <T> T parse(String json, Method method, boolean silent) {
-        val genericType = method.getGenericReturnType();
+        val genericType = getCachedType(method);
 
         try {
             return (T) JSON.parseObject(json, genericType);
@@ -51,6 +54,21 @@ public class FastJsons {
         }
     }
 
+    /**
+     * Get the type of cached value, which is the completed value type
+     * for the method returning ListenableFuture.
+     *
+     * @param method cached method.
+     * @return type of cached value.
+     */
+    public static Type getCachedType(Method method) {
+        val genericType = method.getGenericReturnType();
+        if (method.getReturnType() != ListenableFuture.class) return genericType;
+        if (!(genericType instanceof ParameterizedType)) return Object.class;
+
+        return ((ParameterizedType) genericType).getActualTypeArguments()[0];
+    }
+
     @SuppressWarnings("unchecked")
     public static <T> T parse(String json, TypeReference typeReference) {
         return (T) JSON.parseObject(json, typeReference);
@@ -0,0 +1,148 @@
+package com.github.bingoohuang.westcache.utils;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import lombok.val;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The streaming detector of the heavy hitter keys.
+ * <p>
+ * The accesses in a time window are counted in a count-min sketch, and the top K
+ * keys by the estimated counts are kept as the candidates. When the window is over,
+ * the candidates counted at least the threshold become the hot keys of the next window,
+ * and the sketch and the candidates start over.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class HotKeyDetector {
+    static final int DEPTH = 4;
+    static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+            0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    private final int topK;
+    private final long threshold;
+    private final long windowMillis;
+    private final int widthMask;
+    private final AtomicLongArray sketch;
+    private final ConcurrentMap<String, Long> candidates = new ConcurrentHashMap<String, Long>();
+    private final AtomicLong windowStart = new AtomicLong(System.currentTimeMillis());
+    private volatile long minCandidate;
+    private volatile Set<String> hotKeys = Collections.emptySet();
+
+    /**
+     * Create a detector.
+     *
+     * @param topK         max number of the hot keys.
+     * @param threshold    min count in a window of a hot key.
+     * @param windowMillis window in millis.
+     */
+    public HotKeyDetector(int topK, long threshold, long windowMillis) {
+        this.topK = topK;
+        this.threshold = threshold;
+        this.windowMillis = windowMillis;
+        // width of 1024 keeps the overestimation small for thousands of keys in a window
+        this.widthMask = 1023;
+        this.sketch = new AtomicLongArray(DEPTH * (widthMask + 1));
+    }
+
+    /**
+     * Record an access of the key.
+     *
+     * @param key key.
+     * @return the key is hot or not.
+     */
+    public boolean record(String key) {
+        rollIfDue();
+
+        int hash = spread(key.hashCode());
+        long estimate = Long.MAX_VALUE;
+        for (int i = 0; i < DEPTH; ++i) {
+            estimate = Math.min(estimate, sketch.incrementAndGet(indexOf(hash, i)));
+        }
+        offer(key, estimate);
+
+        return hotKeys.contains(key);
+    }
+
+    public boolean isHot(String key) {
+        return hotKeys.contains(key);
+    }
+
+    /**
+     * Get the hot keys detected in the last window.
+     *
+     * @return hot keys.
+     */
+    public List<String> getHotKeys() {
+        return Lists.newArrayList(hotKeys);
+    }
+
+    private void offer(String key, long estimate) {
+        if (candidates.replace(key, estimate) != null) return;
+        if (candidates.size() >= topK && estimate <= minCandidate) return;
+
+        synchronized (candidates) {
+            candidates.put(key, estimate);
+            if (candidates.size() > topK) evictMinCandidate();
+        }
+    }
+
+    private void evictMinCandidate() {
+        String minKey = null;
+        long min = Long.MAX_VALUE;
+        for (val entry : candidates.entrySet()) {
+            if (entry.getValue() < min) {
+                min = entry.getValue();
+                minKey = entry.getKey();
+            }
+        }
+        candidates.remove(minKey);
+
+        long newMin = Long.MAX_VALUE;
+        for (val count : candidates.values()) {
+            newMin = Math.min(newMin, count);
+        }
+        minCandidate = newMin;
+    }
+
+    private void rollIfDue() {
+        long now = System.currentTimeMillis();
+        long start = windowStart.get();
+        if (now - start < windowMillis || !windowStart.compareAndSet(start, now)) return;
+
+        synchronized (candidates) {
+            val hot = ImmutableSet.<String>builder();
+            for (val entry : candidates.entrySet()) {
+                if (entry.getValue() >= threshold) hot.add(entry.getKey());
+            }
+            hotKeys = hot.build();
+
+            candidates.clear();
+            minCandidate = 0;
+            for (int i = 0; i < sketch.length(); ++i) {
+                sketch.set(i, 0);
+            }
+        }
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return i * (widthMask + 1) + ((int) h & widthMask);
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
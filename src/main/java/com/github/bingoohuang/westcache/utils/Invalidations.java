@@ -0,0 +1,36 @@
+package com.github.bingoohuang.westcache.utils;
+
+import com.github.bingoohuang.westcache.base.BatchInvalidatable;
+import com.github.bingoohuang.westcache.base.WestCache;
+import lombok.experimental.UtilityClass;
+import lombok.val;
+
+import java.util.Map;
+
+/**
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@UtilityClass
+public class Invalidations {
+    /**
+     * Invalidate the keys in one call when the cache supports, or one by one.
+     *
+     * @param westCache   cache.
+     * @param option      westcache settings.
+     * @param keyVersions map of cache key to version string.
+     */
+    public static void invalidateAll(WestCache westCache,
+                                     WestCacheOption option,
+                                     Map<String, String> keyVersions) {
+        if (keyVersions.isEmpty()) return;
+
+        if (westCache instanceof BatchInvalidatable) {
+            ((BatchInvalidatable) westCache).invalidateAll(option, keyVersions);
+            return;
+        }
+
+        for (val entry : keyVersions.entrySet()) {
+            westCache.invalidate(option, entry.getKey(), entry.getValue());
+        }
+    }
+}
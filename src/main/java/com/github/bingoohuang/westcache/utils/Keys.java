@@ -1,6 +1,9 @@
 package com.github.bingoohuang.westcache.utils;
 
 import com.github.bingoohuang.westcache.cglib.Cglibs;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
@@ -12,16 +15,33 @@ import java.util.regex.PatternSyntaxException;
  */
 @UtilityClass @Slf4j
 public class Keys {
+    /*
+     * The dotted class names of the beans, [0] with package and [1] without,
+     * to avoid parsing the class name for every cache key.
+     */
+    private static final LoadingCache<Class<?>, String[]> dottedClassNames
+            = CacheBuilder.newBuilder().weakKeys().build(
+            new CacheLoader<Class<?>, String[]>() {
+                @Override public String[] load(Class<?> beanClass) {
+                    val superClassName = Cglibs.getSuperClassName(beanClass);
+                    return new String[]{
+                            superClassName.replace('$', '.'),
+                            removePackage(superClassName).replace('$', '.')};
+                }
+            });
+
     public static String joinArgs(Object[] args) {
-        val argsPart = new StringBuilder();
+        return appendArgs(new StringBuilder(), args).toString();
+    }
 
+    public static StringBuilder appendArgs(StringBuilder key, Object[] args) {
         for (val arg : args) {
-            argsPart.append("_");
-            if (arg == null) argsPart.append("null");
-            else argsPart.append(arg);
+            key.append('_');
+            if (arg == null) key.append("null");
+            else key.append(arg);
         }
 
-        return argsPart.toString();
+        return key;
     }
 
     public static String removePackage(String className) {
@@ -50,12 +70,16 @@ public class Keys {
     public static String createKeyMainPart(String methodName,
                                            Object bean,
                                            boolean removePackage) {
-        val superClassName = Cglibs.getSuperClassName(bean);
-        val simpleClassName = removePackage
-                ? removePackage(superClassName)
-                : superClassName;
-        val dottedClassName = simpleClassName.replace('$', '.');
-        return dottedClassName + "." + methodName;
+        return appendKeyMainPart(new StringBuilder(),
+                methodName, bean, removePackage).toString();
+    }
+
+    public static StringBuilder appendKeyMainPart(StringBuilder key,
+                                                  String methodName,
+                                                  Object bean,
+                                                  boolean removePackage) {
+        val names = Guavas.cacheGet(dottedClassNames, bean.getClass());
+        return key.append(names[removePackage ? 1 : 0]).append('.').append(methodName);
     }
 
 }
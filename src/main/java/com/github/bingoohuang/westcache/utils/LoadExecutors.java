@@ -0,0 +1,68 @@
+package com.github.bingoohuang.westcache.utils;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The bounded pool of the blocking origin loads, like the loads raced with the snapshot
+ * and the scheduled reloads, which is separated from the timer and drain workers
+ * of {@link TimingWheelScheduler#shared()}, so the slow loads can not starve them.
+ * <p>
+ * The saturated pool rejects the loads instead of running them in the caller thread,
+ * and the callers decide the fallback, like serving the snapshot at once.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@Slf4j @UtilityClass
+public class LoadExecutors {
+    private static final int MAX_LOADERS
+            = Math.max(32, Runtime.getRuntime().availableProcessors() * 8);
+    private static final int QUEUE_CAPACITY = 1000;
+    private static final ListeningExecutorService SHARED = createShared();
+
+    private static ListeningExecutorService createShared() {
+        val factory = new ThreadFactoryBuilder()
+                .setNameFormat("westcache-loader-%d").setDaemon(true).build();
+        val pool = new ThreadPoolExecutor(MAX_LOADERS, MAX_LOADERS,
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(QUEUE_CAPACITY),
+                factory);
+        pool.allowCoreThreadTimeOut(true);
+        return MoreExecutors.listeningDecorator(pool);
+    }
+
+    /**
+     * Get the shared pool of the loads, which rejects when saturated.
+     *
+     * @return the shared pool.
+     */
+    public static ListeningExecutorService shared() {
+        return SHARED;
+    }
+
+    /**
+     * Submit the load to the shared pool.
+     *
+     * @param callable the load.
+     * @param <T>      the type of the load result.
+     * @return the future of the load, or null when the pool is saturated.
+     */
+    public static <T> ListenableFuture<T> trySubmit(Callable<T> callable) {
+        try {
+            return SHARED.submit(callable);
+        } catch (RejectedExecutionException ex) {
+            log.warn("loaders are saturated, the load is rejected");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.bingoohuang.westcache.utils;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * The guard of the origin loads of a cached method, which sheds the loads
+ * when the origin is degraded, instead of piling up the blocked threads.
+ * <p>
+ * maxLoads=[n]: at most n concurrent loads, the others are shed at once.
+ * breakerFailures=[n]: open the circuit after n consecutive failed loads.
+ * breakerSlowLoad=[duration]: the loads slower than it are counted as failed.
+ * breakerOpen=[duration]: shed all the loads while open (10s by default),
+ * and then let one trial load through to close the circuit or open it again.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@Slf4j
+public class LoadGuard {
+    private static final int CLOSED = 0;
+    private static final int OPEN = 1;
+    private static final int HALF_OPEN = 2;
+
+    private static final LoadingCache<WestCacheOption, LoadGuard> guardCache
+            = CacheBuilder.newBuilder().weakKeys().build(
+            new CacheLoader<WestCacheOption, LoadGuard>() {
+                @Override public LoadGuard load(WestCacheOption option) {
+                    return new LoadGuard(option);
+                }
+            });
+
+    public static LoadGuard getGuard(WestCacheOption option) {
+        return Guavas.cacheGet(guardCache, option);
+    }
+
+    private final Semaphore permits;     // null when not limited
+    private final int failureThreshold;  // 0 when no circuit breaker
+    private final long slowLoadNanos;    // 0 when not checked
+    private final long openSeconds;
+
+    private final AtomicInteger state = new AtomicInteger(CLOSED);
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile long openedNanos;
+
+    LoadGuard(WestCacheOption option) {
+        val specs = option.getSpecs();
+        val maxLoads = specs.get("maxLoads");
+        this.permits = isBlank(maxLoads) ? null : new Semaphore(Integer.parseInt(maxLoads));
+
+        val breakerFailures = specs.get("breakerFailures");
+        this.failureThreshold = isBlank(breakerFailures) ? 0 : Integer.parseInt(breakerFailures);
+
+        val slowLoad = specs.get("breakerSlowLoad");
+        this.slowLoadNanos = isBlank(slowLoad) ? 0
+                : TimeUnit.SECONDS.toNanos(Durations.parse("breakerSlowLoad", slowLoad));
+
+        val breakerOpen = specs.get("breakerOpen");
+        this.openSeconds = isBlank(breakerOpen) ? 10
+                : Durations.parse("breakerOpen", breakerOpen);
+    }
+
+    /**
+     * Try to acquire the permission to load from the origin.
+     *
+     * @return false when the load should be shed,
+     * otherwise {@link #release(boolean, long)} is required after loading.
+     */
+    public boolean tryAcquire() {
+        if (permits != null && !permits.tryAcquire()) return false;
+        if (allowedByBreaker()) return true;
+
+        if (permits != null) permits.release();
+        return false;
+    }
+
+    private boolean allowedByBreaker() {
+        switch (state.get()) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                long openNanos = TimeUnit.SECONDS.toNanos(openSeconds);
+                if (System.nanoTime() - openedNanos < openNanos) return false;
+                // only one trial load when half open
+                return state.compareAndSet(OPEN, HALF_OPEN);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Release the permission after loading.
+     *
+     * @param success   whether the load succeeded.
+     * @param loadNanos the cost of the load.
+     * @return true when the circuit is opened by this load.
+     */
+    public boolean release(boolean success, long loadNanos) {
+        if (permits != null) permits.release();
+        if (failureThreshold <= 0) return false;
+
+        boolean failed = !success || slowLoadNanos > 0 && loadNanos > slowLoadNanos;
+        if (!failed) {
+            failures.set(0);
+            state.compareAndSet(HALF_OPEN, CLOSED);
+            return false;
+        }
+
+        if (state.get() == HALF_OPEN || failures.incrementAndGet() >= failureThreshold) {
+            return open();
+        }
+
+        return false;
+    }
+
+    private boolean open() {
+        openedNanos = System.nanoTime();
+        failures.set(0);
+        int prev = state.getAndSet(OPEN);
+        if (prev == OPEN) return false;
+
+        log.warn("circuit opened for {} seconds", openSeconds);
+        return true;
+    }
+
+    public boolean isOpen() {
+        return state.get() != CLOSED;
+    }
+
+    /**
+     * Get the seconds to retry the origin after a load is shed,
+     * used as the lifetime of the fallback value.
+     *
+     * @return seconds.
+     */
+    public long getRetrySeconds() {
+        return isOpen() ? openSeconds : 1;
+    }
+}
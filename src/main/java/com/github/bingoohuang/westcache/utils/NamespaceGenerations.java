@@ -0,0 +1,398 @@
+package com.github.bingoohuang.westcache.utils;
+
+import com.google.common.collect.Lists;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The generations of the cache key namespaces for O(1) mass invalidation.
+ * <p>
+ * A namespace is a cache key prefix like a class or a method (matched by {@link Keys#isPrefix}).
+ * The sum of the generations of the namespaces of a cache key is folded into its physical key,
+ * so flushing a namespace just bumps its generation, and the old entries are no longer reachable
+ * and expire naturally, instead of enumerating the keys one by one, which redis cannot do
+ * without KEYS or SCAN.
+ * <p>
+ * The generations are indexed by the namespace hash, so a physical key is resolved by one
+ * lookup per dotted segment of the cache key. Flushing a namespace folds the generations
+ * of its sub namespaces into its own and prunes them, which keeps the physical keys increasing.
+ * <p>
+ * The generations are kept in this process, and also in the cluster stores added explicitly
+ * by the shared managers like redis, which are synchronized every second on the shared scheduler.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@Slf4j @UtilityClass
+public class NamespaceGenerations {
+    static final long SYNC_MILLIS = 1000;
+
+    /**
+     * The cluster-wide store of the generations.
+     */
+    public interface GenerationStore {
+        /**
+         * Flush the namespace by bumping its generation, with the generations of
+         * its sub namespaces folded and pruned.
+         *
+         * @param namespace namespace.
+         * @param version   the version of the flush, the same version is bumped only once,
+         *                  null to bump always.
+         * @return the current generation.
+         */
+        long flush(String namespace, String version);
+
+        /**
+         * Read all the generations.
+         *
+         * @return map of namespace to generation.
+         */
+        Map<String, String> readAll();
+    }
+
+    /**
+     * The listener of the namespaces flushed in this process.
+     */
+    public interface FlushListener {
+        /**
+         * Called after the generation of the namespace is bumped.
+         *
+         * @param namespace namespace.
+         */
+        void onFlush(String namespace);
+    }
+
+    private static final Object lock = new Object();
+    // guarded by lock
+    private static final Map<String, Long> generations = new HashMap<String, Long>();
+    private static final Map<String, String> versions = new HashMap<String, String>();
+    private static volatile Index index = new Index(generations);
+
+    private static final ConcurrentMap<GenerationStore, ScheduledFuture<?>> clusterStores
+            = new ConcurrentHashMap<GenerationStore, ScheduledFuture<?>>();
+    private static final Set<FlushListener> listeners = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<FlushListener, Boolean>()));
+
+    /**
+     * Share the generations in the cluster store, which is synchronized at once,
+     * and then every second on the shared scheduler.
+     *
+     * @param store cluster store.
+     */
+    public static void addClusterStore(final GenerationStore store) {
+        synchronized (clusterStores) {
+            if (clusterStores.containsKey(store)) return;
+
+            sync(store);
+            val future = TimingWheelScheduler.shared().scheduleWithFixedDelay(new Runnable() {
+                @Override public void run() {
+                    sync(store);
+                }
+            }, SYNC_MILLIS, SYNC_MILLIS, TimeUnit.MILLISECONDS);
+            clusterStores.put(store, future);
+        }
+    }
+
+    /**
+     * Stop sharing the generations in the cluster store.
+     *
+     * @param store cluster store.
+     */
+    public static void removeClusterStore(GenerationStore store) {
+        val future = clusterStores.remove(store);
+        if (future != null) future.cancel(false);
+    }
+
+    /**
+     * Listen the flushes, the listener is held weakly.
+     *
+     * @param listener flush listener.
+     */
+    public static void addListener(FlushListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Flush all the cache keys in the namespace by bumping its generation.
+     *
+     * @param namespace namespace like a cache key prefix.
+     * @return the new generation.
+     */
+    public static long flush(String namespace) {
+        return flush(namespace, null);
+    }
+
+    /**
+     * Flush all the cache keys in the namespace by bumping its generation,
+     * only once for the same version in the process and in the cluster stores,
+     * like the processes flushing the same table change.
+     *
+     * @param namespace namespace like a cache key prefix.
+     * @param version   the version of the flush, null to bump always.
+     * @return the current generation.
+     */
+    public static long flush(String namespace, String version) {
+        if (clusterStores.isEmpty()) return flushLocal(namespace, version);
+
+        // the stores resolved to the same redis hash are bumped once by the unique version
+        val flushVersion = version != null ? version : UUID.randomUUID().toString();
+        long generation = -1;
+        for (val store : clusterStores.keySet()) {
+            try {
+                long stored = store.flush(namespace, flushVersion);
+                generation = Math.max(generation, update(namespace, stored, flushVersion));
+            } catch (Exception ex) {
+                log.warn("flush cluster generation of {} error", namespace, ex);
+            }
+        }
+
+        return generation >= 0 ? generation : flushLocal(namespace, flushVersion);
+    }
+
+    /**
+     * Flush the namespace in this process only, like the flush received from the other processes.
+     *
+     * @param namespace namespace like a cache key prefix.
+     * @return the new generation.
+     */
+    public static long flushLocal(String namespace) {
+        return flushLocal(namespace, null);
+    }
+
+    /**
+     * Get the physical key with the generations of the namespaces folded.
+     *
+     * @param cacheKey cache key.
+     * @return cache key itself when no generations, or suffixed with ~generation.
+     */
+    public static String physicalKey(String cacheKey) {
+        val current = index;
+        if (current.size == 0) return cacheKey;
+
+        // the running hash at a boundary is the hash of the namespace before it
+        long generation = 0;
+        int hash = 0;
+        for (int i = 0, n = cacheKey.length(); i < n; ++i) {
+            char c = cacheKey.charAt(i);
+            if (c == '.' || c == '_') generation += current.get(cacheKey, i, hash);
+            hash = 31 * hash + c;
+        }
+        generation += current.get(cacheKey, cacheKey.length(), hash);
+
+        return generation == 0 ? cacheKey : cacheKey + "~" + generation;
+    }
+
+    /**
+     * Tell whether the physical key belongs to the namespace.
+     *
+     * @param physicalKey physical key.
+     * @param namespace   namespace.
+     * @return true when the physical key belongs to the namespace.
+     */
+    public static boolean isInNamespace(String physicalKey, String namespace) {
+        if (!physicalKey.startsWith(namespace)) return false;
+        if (physicalKey.length() == namespace.length()) return true;
+
+        char nextChar = physicalKey.charAt(namespace.length());
+        return nextChar == '.' || nextChar == '_' || nextChar == '~';
+    }
+
+    /**
+     * Get the logical cache key of the physical key, with the ~generation suffix stripped.
+     *
+     * @param physicalKey physical key.
+     * @return logical cache key.
+     */
+    public static String logicalKey(String physicalKey) {
+        int pos = physicalKey.lastIndexOf('~');
+        if (pos < 0 || pos == physicalKey.length() - 1) return physicalKey;
+
+        for (int i = pos + 1; i < physicalKey.length(); ++i) {
+            if (!Character.isDigit(physicalKey.charAt(i))) return physicalKey;
+        }
+        return physicalKey.substring(0, pos);
+    }
+
+    /**
+     * Tell whether the physical key is of an old generation, which is never reachable again.
+     *
+     * @param physicalKey physical key.
+     * @return true when the current physical key of its logical key is different.
+     */
+    public static boolean isSuperseded(String physicalKey) {
+        return !physicalKey(logicalKey(physicalKey)).equals(physicalKey);
+    }
+
+    public static long getGeneration(String namespace) {
+        return index.get(namespace, namespace.length(), namespace.hashCode());
+    }
+
+    private static long flushLocal(String namespace, String version) {
+        long generation;
+        synchronized (lock) {
+            long old = getLocal(namespace);
+            if (version != null && version.equals(versions.get(namespace))) return old;
+
+            generation = old + 1 + prune(namespace);
+            setLocal(namespace, generation, version);
+        }
+
+        notifyListeners(namespace);
+        return generation;
+    }
+
+    /*
+     * Catch up with the generation from the cluster store,
+     * which is kept above the local sum of the pruned sub namespaces.
+     */
+    private static long update(String namespace, long generation, String version) {
+        synchronized (lock) {
+            long old = getLocal(namespace);
+            if (generation <= old) {
+                if (version != null) versions.put(namespace, version);
+                return old;
+            }
+
+            generation = Math.max(generation, old + 1 + prune(namespace));
+            setLocal(namespace, generation, version);
+        }
+
+        notifyListeners(namespace);
+        return generation;
+    }
+
+    private static long getLocal(String namespace) {
+        val generation = generations.get(namespace);
+        return generation == null ? 0 : generation;
+    }
+
+    private static void setLocal(String namespace, long generation, String version) {
+        generations.put(namespace, generation);
+        if (version != null) versions.put(namespace, version);
+        else versions.remove(namespace);
+        index = new Index(generations);
+    }
+
+    /*
+     * Remove the sub namespaces, and return the sum of their generations.
+     */
+    private static long prune(String namespace) {
+        long sum = 0;
+        for (Iterator<Map.Entry<String, Long>> i = generations.entrySet().iterator(); i.hasNext(); ) {
+            val entry = i.next();
+            val name = entry.getKey();
+            if (name.length() == namespace.length() || !Keys.isPrefix(name, namespace)) continue;
+
+            sum += entry.getValue();
+            versions.remove(name);
+            i.remove();
+        }
+        return sum;
+    }
+
+    private static void notifyListeners(final String namespace) {
+        if (listeners.isEmpty()) return;
+
+        TimingWheelScheduler.shared().execute(new Runnable() {
+            @Override public void run() {
+                for (val listener : copyListeners()) {
+                    try {
+                        listener.onFlush(namespace);
+                    } catch (Exception ex) {
+                        log.warn("notify flush of namespace {} error", namespace, ex);
+                    }
+                }
+            }
+        });
+    }
+
+    private static FlushListener[] copyListeners() {
+        synchronized (listeners) {
+            return listeners.toArray(new FlushListener[0]);
+        }
+    }
+
+    /*
+     * The parent namespaces are applied before the sub ones, so the pruning
+     * of a parent flushed in the other processes does not drop the later sub flushes.
+     */
+    private static void sync(GenerationStore store) {
+        try {
+            val entries = Lists.newArrayList(store.readAll().entrySet());
+            Collections.sort(entries, new Comparator<Map.Entry<String, String>>() {
+                @Override
+                public int compare(Map.Entry<String, String> o1, Map.Entry<String, String> o2) {
+                    return o1.getKey().length() - o2.getKey().length();
+                }
+            });
+            for (val entry : entries) {
+                update(entry.getKey(), Long.parseLong(entry.getValue()), null);
+            }
+        } catch (Exception ex) {
+            log.warn("sync cluster generations error", ex);
+        }
+    }
+
+    /*
+     * The immutable open addressing table of the namespaces by their string hash,
+     * which is rebuilt on flushes, and looked up without any allocation.
+     */
+    private static final class Index {
+        final int size;
+        final int mask;
+        final String[] namespaces;
+        final int[] hashes;
+        final long[] values;
+
+        Index(Map<String, Long> generations) {
+            this.size = generations.size();
+            int capacity = 2;
+            while (capacity < size * 2) capacity <<= 1;
+
+            this.mask = capacity - 1;
+            this.namespaces = new String[capacity];
+            this.hashes = new int[capacity];
+            this.values = new long[capacity];
+
+            for (val entry : generations.entrySet()) {
+                val namespace = entry.getKey();
+                int hash = namespace.hashCode();
+                int i = spread(hash) & mask;
+                while (namespaces[i] != null) i = (i + 1) & mask;
+
+                namespaces[i] = namespace;
+                hashes[i] = hash;
+                values[i] = entry.getValue();
+            }
+        }
+
+        /*
+         * Get the generation of the namespace which is the first length chars of the key.
+         */
+        long get(String key, int length, int hash) {
+            for (int i = spread(hash) & mask; namespaces[i] != null; i = (i + 1) & mask) {
+                val namespace = namespaces[i];
+                if (hashes[i] == hash && namespace.length() == length
+                        && key.startsWith(namespace)) return values[i];
+            }
+            return 0;
+        }
+
+        static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
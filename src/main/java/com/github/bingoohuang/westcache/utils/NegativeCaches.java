@@ -0,0 +1,69 @@
+package com.github.bingoohuang.westcache.utils;
+
+import com.github.bingoohuang.westcache.base.WestCacheItem;
+import com.google.common.base.Optional;
+import lombok.experimental.UtilityClass;
+import lombok.val;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * The negative caching of absent(null) results.
+ * <p>
+ * The absent results are stored as a compact sentinel in the serialized backends,
+ * and expired after the duration of negativeTtl=[duration] spec when set.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@UtilityClass
+public class NegativeCaches {
+    /**
+     * The sentinel of absent value, which is not a valid json.
+     */
+    public static final String SENTINEL = "~";
+
+    public static String getNegativeTtl(WestCacheOption option) {
+        return option == null ? null : option.getSpecs().get("negativeTtl");
+    }
+
+    /**
+     * Get the negativeTtl in seconds.
+     *
+     * @param option WestCacheOption.
+     * @return seconds of negativeTtl, or 0 when not set.
+     */
+    public static long getNegativeTtlSeconds(WestCacheOption option) {
+        val negativeTtl = getNegativeTtl(option);
+        return isBlank(negativeTtl) ? 0 : Durations.parse("negativeTtl", negativeTtl);
+    }
+
+    /**
+     * Serialize the cache item to json, or the sentinel for absent value.
+     *
+     * @param item cache item.
+     * @return serialized string.
+     */
+    public static String json(WestCacheItem item) {
+        return item.isPresent() ? FastJsons.json(item.orNull()) : SENTINEL;
+    }
+
+    /**
+     * Deserialize the cache item from json or the sentinel.
+     * The legacy "null" json is also treated as absent value.
+     *
+     * @param json   serialized string.
+     * @param option WestCacheOption.
+     * @return cache item, or null when json is null or not parsable.
+     */
+    public static WestCacheItem parse(String json, WestCacheOption option) {
+        if (json == null) return null;
+        if (SENTINEL.equals(json) || "null".equals(json)) {
+            return new WestCacheItem(Optional.absent(), option);
+        }
+
+        val value = FastJsons.parse(json, option.getMethod(), true);
+        if (value == null) return null;
+
+        return new WestCacheItem(Optional.of(value), option);
+    }
+}
@@ -2,7 +2,6 @@ package com.github.bingoohuang.westcache.utils;
 
 import com.github.bingoohuang.westcache.base.WestCacheItem;
 import com.github.bingoohuang.westcache.spring.SpringAppContext;
-import com.google.common.base.Optional;
 import lombok.AllArgsConstructor;
 import lombok.Cleanup;
 import lombok.experimental.UtilityClass;
@@ -12,6 +11,8 @@ import org.apache.commons.lang3.StringUtils;
 import redis.clients.jedis.JedisCommands;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.MultiKeyCommands;
+import redis.clients.jedis.ScriptingCommands;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
@@ -35,8 +36,10 @@ public class Redis {
     }
 
     public static JedisCommands getRedis(WestCacheOption option) {
-        String redisBean = option.getSpecs().get("redisBean");
+        return getRedis(option.getSpecs().get("redisBean"));
+    }
 
+    public static JedisCommands getRedis(String redisBean) {
         if (Envs.HAS_SPRING && StringUtils.isNotEmpty(redisBean)) {
             JedisCommands bean = SpringAppContext.getBean(redisBean);
             if (bean != null) return bean;
@@ -59,10 +62,16 @@ public class Redis {
         return proxyJedisCommands(pool);
     }
 
+    /**
+     * Proxy the pooled jedis as JedisCommands, which is also ScriptingCommands and MultiKeyCommands.
+     *
+     * @param pool jedis pool.
+     * @return proxied JedisCommands.
+     */
     public static JedisCommands proxyJedisCommands(JedisPool pool) {
         return (JedisCommands) Proxy.newProxyInstance(
                 JedisInvocationHandler.class.getClassLoader(),
-                new Class[]{JedisCommands.class},
+                new Class[]{JedisCommands.class, ScriptingCommands.class, MultiKeyCommands.class},
                 new JedisInvocationHandler(pool));
     }
 
@@ -81,13 +90,7 @@ public class Redis {
                                                  JedisCommands redis,
                                                  String redisKey) {
         val jsonValue = redis.get(redisKey);
-        if (jsonValue == null) return null;
-
-        val value = FastJsons.parse(jsonValue, option.getMethod(), true);
-        if (value == null && !"null".equals(jsonValue)) return null;
-
-        val optional = Optional.fromNullable(value);
-        return new WestCacheItem(optional, option);
+        return NegativeCaches.parse(jsonValue, option);
     }
 
     public static String expirePut(JedisCommands redis,
@@ -95,7 +98,7 @@ public class Redis {
                                    WestCacheItem item) {
         val duration = item.getDurationSeconds();
 
-        val json = FastJsons.json(item.orNull());
+        val json = NegativeCaches.json(item);
         val result = redis.set(redisKey, json);
         if (duration > 0) {
             log.info("redis set {}={} in ttl {} seconds", redisKey, json, duration);
@@ -0,0 +1,142 @@
+package com.github.bingoohuang.westcache.utils;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Longs;
+import lombok.val;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The thread-safe bloom filter which grows with the number of the keys.
+ * <p>
+ * When a layer is filled to its capacity, a new layer of the double capacity and
+ * the half false positive probability is added, so the total false positive probability
+ * stays under about twice of the initial one however many keys are put.
+ * The bits are set by CAS in AtomicLongArray without locks.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class ScalableBloomFilter {
+    static final double TIGHTENING_RATIO = 0.5;
+
+    private final long initialCapacity;
+    private final double fpp;
+    private volatile Layer[] layers;
+
+    public ScalableBloomFilter(long initialCapacity, double fpp) {
+        this.initialCapacity = initialCapacity;
+        this.fpp = fpp;
+        this.layers = new Layer[]{new Layer(initialCapacity, fpp)};
+    }
+
+    /**
+     * Tell whether the key might have been put.
+     *
+     * @param key key.
+     * @return false when the key is definitely not put.
+     */
+    public boolean mightContain(String key) {
+        val hash = hash(key);
+        for (val layer : layers) {
+            if (layer.mightContain(hash[0], hash[1])) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Put the key.
+     *
+     * @param key key.
+     */
+    public void put(String key) {
+        val hash = hash(key);
+        val current = layers;
+        for (val layer : current) {
+            if (layer.mightContain(hash[0], hash[1])) return;
+        }
+
+        val last = current[current.length - 1];
+        last.put(hash[0], hash[1]);
+        if (last.count.incrementAndGet() == last.capacity) grow(current.length);
+    }
+
+    /**
+     * Get the approximate number of the keys put.
+     *
+     * @return number of keys.
+     */
+    public long approximateCount() {
+        long count = 0;
+        for (val layer : layers) {
+            count += layer.count.get();
+        }
+        return count;
+    }
+
+    public int getLayerCount() {
+        return layers.length;
+    }
+
+    private synchronized void grow(int filledLayers) {
+        val current = layers;
+        if (current.length != filledLayers) return;
+
+        val grown = new Layer[current.length + 1];
+        System.arraycopy(current, 0, grown, 0, current.length);
+        grown[current.length] = new Layer(initialCapacity << current.length,
+                fpp * Math.pow(TIGHTENING_RATIO, current.length));
+        layers = grown;
+    }
+
+    private static long[] hash(String key) {
+        val bytes = Hashing.murmur3_128().hashString(key, Charsets.UTF_8).asBytes();
+        return new long[]{
+                Longs.fromBytes(bytes[7], bytes[6], bytes[5], bytes[4], bytes[3], bytes[2], bytes[1], bytes[0]),
+                Longs.fromBytes(bytes[15], bytes[14], bytes[13], bytes[12], bytes[11], bytes[10], bytes[9], bytes[8])};
+    }
+
+    static class Layer {
+        final long capacity;
+        final long bitSize;
+        final int hashes;
+        final AtomicLongArray bits;
+        final AtomicLong count = new AtomicLong();
+
+        Layer(long capacity, double fpp) {
+            long bitSize = (long) (-capacity * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            this.capacity = capacity;
+            this.bits = new AtomicLongArray((int) ((Math.max(bitSize, 64) + 63) >>> 6));
+            this.bitSize = bits.length() * 64L;
+            this.hashes = Math.max(1, (int) Math.round((double) this.bitSize / capacity * Math.log(2)));
+        }
+
+        boolean mightContain(long hash1, long hash2) {
+            long combined = hash1;
+            for (int i = 0; i < hashes; ++i) {
+                long index = (combined & Long.MAX_VALUE) % bitSize;
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) return false;
+                combined += hash2;
+            }
+            return true;
+        }
+
+        void put(long hash1, long hash2) {
+            long combined = hash1;
+            for (int i = 0; i < hashes; ++i) {
+                setBit((combined & Long.MAX_VALUE) % bitSize);
+                combined += hash2;
+            }
+        }
+
+        private void setBit(long index) {
+            int i = (int) (index >>> 6);
+            long mask = 1L << index;
+            while (true) {
+                long old = bits.get(i);
+                if ((old & mask) != 0 || bits.compareAndSet(i, old, old | mask)) return;
+            }
+        }
+    }
+}
@@ -12,7 +12,6 @@ import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import static org.apache.commons.lang3.StringUtils.substring;
 import static org.quartz.CronScheduleBuilder.cronSchedule;
 import static org.quartz.CronScheduleBuilder.dailyAtHourAndMinute;
 import static org.quartz.SimpleScheduleBuilder.simpleSchedule;
@@ -22,12 +21,6 @@ import static org.quartz.TriggerBuilder.newTrigger;
  * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/1/16.
  */
 public class ScheduledParser {
-    private static final Pattern FROM_PATTERN = Pattern.compile(
-            "\\bfrom\\b\\s*(\\d\\d\\d\\d-\\d\\d-\\d\\d)( \\d\\d:\\d\\d:\\d\\d)?",
-            Pattern.CASE_INSENSITIVE);
-    private static final Pattern TO_PATTERN = Pattern.compile(
-            "\\bto\\b\\s*(\\d\\d\\d\\d-\\d\\d-\\d\\d)( \\d\\d:\\d\\d:\\d\\d)?",
-            Pattern.CASE_INSENSITIVE);
     private String schedulerExpr;
 
 
@@ -53,8 +46,8 @@ public class ScheduledParser {
      * @return Scheduled parsed result.
      */
     public Trigger parse() {
-        DateTime fromDate = parseDate(FROM_PATTERN, "00:00:00");
-        DateTime toDate = parseDate(TO_PATTERN, "23:59:59");
+        DateTime fromDate = parseDate(Schedules.FROM_PATTERN, "00:00:00");
+        DateTime toDate = parseDate(Schedules.TO_PATTERN, "23:59:59");
         if (fromDate != null && toDate != null && fromDate.isAfterNow()) {
             throw new WestCacheException("scheduler expression is not valid " +
                     "because of from-date is after of to-date");
@@ -84,36 +77,18 @@ public class ScheduledParser {
 
     private DateTime parseDate(Pattern pattern, String defaultTime) {
         Matcher matcher = pattern.matcher(schedulerExpr);
-        if (!matcher.find())
-            return null;
-
-        schedulerExpr = removeFound(schedulerExpr, matcher);
-
-        String fromDay = matcher.group(1);
-        String timePart = matcher.group(2);
-        String fromTime = timePart == null ? defaultTime : timePart.trim();
-
-        val formatter = DateTimeFormat.forPattern("yyyy-MM-dd HH:mm:ss");
-        return formatter.parseDateTime(fromDay + " " + fromTime);
-    }
-
-    private String removeFound(String str, Matcher matcher) {
-        int start = matcher.start();
-        int end = matcher.end();
+        val dateTime = Schedules.parseDate(matcher, defaultTime);
+        if (dateTime != null) schedulerExpr = Schedules.removeFound(schedulerExpr, matcher);
 
-        String removed = substring(str, 0, start) + substring(str, end);
-        return StringUtils.trim(removed);
+        return dateTime;
     }
 
     private ScheduleBuilder<? extends Trigger> parseCron(String schedulerExpr) {
         return cronSchedule(schedulerExpr);
     }
 
-    private static final Pattern AT_EXPR_PATTERN = Pattern.compile(
-            "\\s+(\\d\\d|\\?\\?):(\\d\\d)", Pattern.CASE_INSENSITIVE);
-
     private ScheduleBuilder<? extends Trigger> parseAtExpr(String atExpr) {
-        Matcher matcher = AT_EXPR_PATTERN.matcher(atExpr);
+        Matcher matcher = Schedules.AT_EXPR_PATTERN.matcher(atExpr);
         if (!matcher.find()) {
             throwException(atExpr);
         }
@@ -132,11 +107,8 @@ public class ScheduledParser {
         return dailyAtHourAndMinute(hourOfDay, minuteOfHour);
     }
 
-    private static final Pattern EVERY_EXPR_PATTERN = Pattern.compile(
-            "\\s+(\\d+)\\s*(h|hour|m|minute|s|second)s?", Pattern.CASE_INSENSITIVE);
-
     private ScheduleBuilder<? extends Trigger> parseEveryExpr(String everyExpr) {
-        Matcher matcher = EVERY_EXPR_PATTERN.matcher(everyExpr);
+        Matcher matcher = Schedules.EVERY_EXPR_PATTERN.matcher(everyExpr);
         if (!matcher.find())
             return throwException(everyExpr);
 
@@ -145,7 +117,7 @@ public class ScheduledParser {
             throwException(everyExpr);
 
         char unit = matcher.group(2).charAt(0);
-        TimeUnit timeUnit = parseTimeUnit(unit);
+        TimeUnit timeUnit = Schedules.parseTimeUnit(unit);
 
         return simpleSchedule()
                 .withIntervalInSeconds((int) timeUnit.toSeconds(num))
@@ -155,19 +127,4 @@ public class ScheduledParser {
     private ScheduleBuilder<? extends Trigger> throwException(String everyExpr) {
         throw new WestCacheException(everyExpr + " is not valid");
     }
-
-    private TimeUnit parseTimeUnit(char unit) {
-        switch (unit) {
-            case 'h':
-            case 'H':
-                return TimeUnit.HOURS;
-            case 'm':
-            case 'M':
-                return TimeUnit.MINUTES;
-            case 's':
-            case 'S':
-            default:
-                return TimeUnit.SECONDS;
-        }
-    }
 }
@@ -0,0 +1,233 @@
+package com.github.bingoohuang.westcache.utils;
+
+import com.github.bingoohuang.westcache.base.WestCacheException;
+import lombok.AllArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.experimental.UtilityClass;
+import lombok.val;
+import org.apache.commons.lang3.StringUtils;
+import org.joda.time.DateTime;
+import org.joda.time.format.DateTimeFormat;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.apache.commons.lang3.StringUtils.substring;
+
+/**
+ * Parse the scheduled expressions of {@link ScheduledParser} into
+ * schedules without quartz, except the cron expressions.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@UtilityClass
+public class Schedules {
+    static final Pattern FROM_PATTERN = Pattern.compile(
+            "\\bfrom\\b\\s*(\\d\\d\\d\\d-\\d\\d-\\d\\d)( \\d\\d:\\d\\d:\\d\\d)?",
+            Pattern.CASE_INSENSITIVE);
+    static final Pattern TO_PATTERN = Pattern.compile(
+            "\\bto\\b\\s*(\\d\\d\\d\\d-\\d\\d-\\d\\d)( \\d\\d:\\d\\d:\\d\\d)?",
+            Pattern.CASE_INSENSITIVE);
+    static final Pattern AT_EXPR_PATTERN = Pattern.compile(
+            "\\s+(\\d\\d|\\?\\?):(\\d\\d)", Pattern.CASE_INSENSITIVE);
+    static final Pattern EVERY_EXPR_PATTERN = Pattern.compile(
+            "\\s+(\\d+)\\s*(h|hour|m|minute|s|second)s?", Pattern.CASE_INSENSITIVE);
+
+    public interface Schedule {
+        /**
+         * Get the next fire time after the specified time.
+         *
+         * @param afterMillis time in millis.
+         * @return next fire time in millis, or -1 when no more fire.
+         */
+        long nextFireTime(long afterMillis);
+    }
+
+    /**
+     * Parse scheduled expression like
+     * Every 30 minutes from 2016-10-10 to 2017-10-12,
+     * At 03:00, At ??:40, or cron like 0 20 * * * ? (requires quartz).
+     *
+     * @param expr scheduled expression.
+     * @return schedule.
+     */
+    public static Schedule parse(String expr) {
+        String schedulerExpr = StringUtils.trim(expr);
+        if (StringUtils.isBlank(schedulerExpr))
+            throw new WestCacheException("scheduler expression can not be blank");
+
+        val fromMatcher = FROM_PATTERN.matcher(schedulerExpr);
+        val fromDate = parseDate(fromMatcher, "00:00:00");
+        if (fromDate != null) schedulerExpr = removeFound(schedulerExpr, fromMatcher);
+
+        val toMatcher = TO_PATTERN.matcher(schedulerExpr);
+        val toDate = parseDate(toMatcher, "23:59:59");
+        if (toDate != null) schedulerExpr = removeFound(schedulerExpr, toMatcher);
+
+        if (fromDate != null && toDate != null && fromDate.isAfter(toDate)) {
+            throw new WestCacheException("scheduler expression is not valid " +
+                    "because of from-date is after of to-date");
+        }
+
+        val schedule = createSchedule(schedulerExpr);
+        if (fromDate == null && toDate == null) return schedule;
+
+        long from = fromDate == null ? 0 : fromDate.getMillis();
+        long to = toDate == null ? Long.MAX_VALUE : toDate.getMillis();
+        return new BoundedSchedule(schedule, from, to);
+    }
+
+    /**
+     * Get the first fire time of a new schedule. Like the quartz simple triggers,
+     * Every schedules fire immediately, or at the from time when it is later.
+     *
+     * @param schedule  the schedule.
+     * @param nowMillis current time in millis.
+     * @return first fire time in millis, or -1 when it will never fire.
+     */
+    public static long firstFireTime(Schedule schedule, long nowMillis) {
+        if (schedule instanceof EverySchedule) return nowMillis;
+
+        if (schedule instanceof BoundedSchedule) {
+            val bounded = (BoundedSchedule) schedule;
+            if (bounded.schedule instanceof EverySchedule && nowMillis >= bounded.fromMillis) {
+                return nowMillis > bounded.toMillis ? -1 : nowMillis;
+            }
+        }
+
+        return schedule.nextFireTime(nowMillis);
+    }
+
+    private static Schedule createSchedule(String schedulerExpr) {
+        if (StringUtils.startsWithIgnoreCase(schedulerExpr, "Every")) {
+            return parseEveryExpr(schedulerExpr.substring("Every".length()));
+        } else if (StringUtils.startsWithIgnoreCase(schedulerExpr, "At")) {
+            return parseAtExpr(schedulerExpr.substring("At".length()));
+        } else {
+            return parseCron(schedulerExpr);
+        }
+    }
+
+    static DateTime parseDate(Matcher matcher, String defaultTime) {
+        if (!matcher.find()) return null;
+
+        String day = matcher.group(1);
+        String timePart = matcher.group(2);
+        String time = timePart == null ? defaultTime : timePart.trim();
+
+        val formatter = DateTimeFormat.forPattern("yyyy-MM-dd HH:mm:ss");
+        return formatter.parseDateTime(day + " " + time);
+    }
+
+    static String removeFound(String str, Matcher matcher) {
+        int start = matcher.start();
+        int end = matcher.end();
+
+        String removed = substring(str, 0, start) + substring(str, end);
+        return StringUtils.trim(removed);
+    }
+
+    private static Schedule parseCron(String cronExpr) {
+        if (!Envs.HAS_QUARTZ) throw new WestCacheException(
+                "cron expression " + cronExpr + " requires quartz in the classpath");
+
+        return new CronSchedule(cronExpr);
+    }
+
+    private static Schedule parseAtExpr(String atExpr) {
+        Matcher matcher = AT_EXPR_PATTERN.matcher(atExpr);
+        if (!matcher.find()) throw new WestCacheException(atExpr + " is not valid");
+
+        int minute = Integer.parseInt(matcher.group(2));
+        if (matcher.group(1).equals("??")) return new AtSchedule(-1, minute);
+
+        val formatter = DateTimeFormat.forPattern("HH:mm");
+        val dateTime = formatter.parseDateTime(matcher.group().trim());
+        return new AtSchedule(dateTime.getHourOfDay(), dateTime.getMinuteOfHour());
+    }
+
+    private static Schedule parseEveryExpr(String everyExpr) {
+        Matcher matcher = EVERY_EXPR_PATTERN.matcher(everyExpr);
+        if (!matcher.find()) throw new WestCacheException(everyExpr + " is not valid");
+
+        int num = Integer.parseInt(matcher.group(1));
+        if (num <= 0) throw new WestCacheException(everyExpr + " is not valid");
+
+        char unit = matcher.group(2).charAt(0);
+        return new EverySchedule(parseTimeUnit(unit).toMillis(num));
+    }
+
+    static TimeUnit parseTimeUnit(char unit) {
+        switch (unit) {
+            case 'h':
+            case 'H':
+                return TimeUnit.HOURS;
+            case 'm':
+            case 'M':
+                return TimeUnit.MINUTES;
+            case 's':
+            case 'S':
+            default:
+                return TimeUnit.SECONDS;
+        }
+    }
+
+    @AllArgsConstructor
+    static class EverySchedule implements Schedule {
+        final long intervalMillis;
+
+        @Override public long nextFireTime(long afterMillis) {
+            return afterMillis + intervalMillis;
+        }
+    }
+
+    /**
+     * Fire at hour:minute every day, or at minute every hour when hour is -1.
+     */
+    @AllArgsConstructor
+    static class AtSchedule implements Schedule {
+        final int hour;
+        final int minute;
+
+        @Override public long nextFireTime(long afterMillis) {
+            val after = new DateTime(afterMillis);
+            if (hour < 0) {
+                val next = after.withMinuteOfHour(minute).withSecondOfMinute(0).withMillisOfSecond(0);
+                return next.isAfter(after) ? next.getMillis() : next.plusHours(1).getMillis();
+            }
+
+            val next = after.withTime(hour, minute, 0, 0);
+            return next.isAfter(after) ? next.getMillis() : next.plusDays(1).getMillis();
+        }
+    }
+
+    static class CronSchedule implements Schedule {
+        final org.quartz.CronExpression cronExpression;
+
+        @SneakyThrows
+        CronSchedule(String cronExpr) {
+            this.cronExpression = new org.quartz.CronExpression(cronExpr);
+        }
+
+        @Override public long nextFireTime(long afterMillis) {
+            val next = cronExpression.getNextValidTimeAfter(new Date(afterMillis));
+            return next == null ? -1 : next.getTime();
+        }
+    }
+
+    @AllArgsConstructor
+    static class BoundedSchedule implements Schedule {
+        final Schedule schedule;
+        final long fromMillis;
+        final long toMillis;
+
+        @Override public long nextFireTime(long afterMillis) {
+            long next = afterMillis < fromMillis
+                    ? (schedule instanceof EverySchedule ? fromMillis : schedule.nextFireTime(fromMillis - 1))
+                    : schedule.nextFireTime(afterMillis);
+            return next > toMillis ? -1 : next;
+        }
+    }
+}
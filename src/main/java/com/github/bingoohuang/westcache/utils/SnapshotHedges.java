@@ -0,0 +1,110 @@
+package com.github.bingoohuang.westcache.utils;
+
+import com.github.bingoohuang.westcache.base.WestCacheItem;
+import com.github.bingoohuang.westcache.metrics.CacheMetrics;
+import com.github.bingoohuang.westcache.metrics.LatencyMetrics;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * The hedged snapshot reading.
+ * <p>
+ * Without hedging, the snapshot is read only after the load times out,
+ * so the caller waits for the timeout plus the snapshot reading.
+ * With snapshotHedge=[millis] spec, the snapshot is read in parallel when the load
+ * is not completed in the hedge delay. The fresh value of the load is still preferred
+ * until the snapshot timeout as the grace window, and then the snapshot is served
+ * at once if read. The load keeps running to refresh the cache anyway.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@Slf4j @UtilityClass
+public class SnapshotHedges {
+    /**
+     * Get the hedge delay in millis.
+     *
+     * @param option WestCacheOption.
+     * @return millis of snapshotHedge, or 0 when not set.
+     */
+    public static long getHedgeMillis(WestCacheOption option) {
+        val hedge = option.getSpecs().get("snapshotHedge");
+        return isBlank(hedge) ? 0 : Long.parseLong(hedge.trim());
+    }
+
+    /**
+     * Get the item of the load, or the snapshot hedged after the hedge delay
+     * when the load is not completed before the timeout.
+     *
+     * @param option        WestCacheOption.
+     * @param cacheKey      cache key.
+     * @param load          future of the load.
+     * @param hedgeMillis   delay to start the snapshot reading.
+     * @param timeoutMillis timeout to serve the snapshot instead of the load.
+     * @return cache item.
+     */
+    public static WestCacheItem hedge(final WestCacheOption option,
+                                      final String cacheKey,
+                                      ListenableFuture<WestCacheItem> load,
+                                      long hedgeMillis,
+                                      long timeoutMillis) {
+        final SettableFuture<WestCacheItem> result = SettableFuture.create();
+        Futures.addCallback(load, new FutureCallback<WestCacheItem>() {
+            @Override public void onSuccess(WestCacheItem item) {
+                result.set(item);
+            }
+
+            @Override public void onFailure(Throwable t) {
+                result.setException(t);
+            }
+        });
+
+        // serve the snapshot when both it is read and the timeout is passed
+        final AtomicReference<WestCacheItem> snapshotItem = new AtomicReference<WestCacheItem>();
+        final AtomicBoolean timeout = new AtomicBoolean();
+        val scheduler = TimingWheelScheduler.shared();
+        scheduler.schedule(new Runnable() {
+            @Override public void run() {
+                if (result.isDone()) return;
+
+                long start = System.nanoTime();
+                val item = option.getSnapshot().readSnapshot(option, cacheKey);
+                LatencyMetrics.SNAPSHOT_READ.recordSince(start);
+                if (item == null) return;
+
+                snapshotItem.set(item);
+                if (timeout.get()) serveSnapshot(option, cacheKey, result, item);
+            }
+        }, hedgeMillis, TimeUnit.MILLISECONDS);
+        scheduler.schedule(new Runnable() {
+            @Override public void run() {
+                timeout.set(true);
+                val item = snapshotItem.get();
+                if (item != null) serveSnapshot(option, cacheKey, result, item);
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+
+        return Envs.awaitLoad(result, cacheKey,
+                timeoutMillis + Envs.LOAD_WAIT_MILLIS_WITHOUT_SNAPSHOT);
+    }
+
+    private static void serveSnapshot(WestCacheOption option,
+                                      String cacheKey,
+                                      SettableFuture<WestCacheItem> result,
+                                      WestCacheItem item) {
+        if (!result.set(item)) return;
+
+        log.info("get cache {} timeout, served by hedged snapshot", cacheKey);
+        CacheMetrics.getStats(option).recordSnapshotFallback();
+    }
+}
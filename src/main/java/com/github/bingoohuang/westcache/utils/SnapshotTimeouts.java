@@ -0,0 +1,142 @@
+package com.github.bingoohuang.westcache.utils;
+
+import com.github.bingoohuang.westcache.base.AdaptiveSnapshotConfig;
+import com.github.bingoohuang.westcache.base.WestCacheException;
+import com.github.bingoohuang.westcache.metrics.CacheMetrics;
+import com.github.bingoohuang.westcache.metrics.HistogramSnapshot;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import lombok.experimental.UtilityClass;
+import lombok.val;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.regex.Pattern;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * The timeout of the loads before falling back to the snapshot.
+ * <p>
+ * The timeout is fixed by {@code timeoutMillisToSnapshot} of the config by default.
+ * With snapshotTimeout=p99x3 spec, it adapts to three times of the 99th percentile
+ * of the load latencies of the method observed in the last minute, and is clamped by
+ * the bounds of {@link AdaptiveSnapshotConfig} when the config implements it,
+ * or 50ms and 10s by default.
+ * So the fast methods fall back soon, and the slow but healthy ones are not hurried.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@UtilityClass
+public class SnapshotTimeouts {
+    /*
+     * The fixed timeout is used until the latencies are enough for the percentile.
+     */
+    static final int MIN_SAMPLES = 100;
+    static final long REFRESH_MILLIS = 1000;
+    /*
+     * The latencies are observed in a sliding window of 6 slots of 10 seconds.
+     */
+    static final int WINDOW_SLOTS = 6;
+    static final long SLOT_MILLIS = 10 * 1000L;
+    static final long MIN_TIMEOUT_MILLIS = 50L;
+    static final long MAX_TIMEOUT_MILLIS = 10 * 1000L;
+
+    private static final Pattern ADAPTIVE_PATTERN = Pattern.compile(
+            "p(\\d+(?:\\.\\d+)?)x(\\d+(?:\\.\\d+)?)", Pattern.CASE_INSENSITIVE);
+
+    private static final LoadingCache<WestCacheOption, AdaptiveTimeout> timeoutCache
+            = CacheBuilder.newBuilder().weakKeys().build(
+            new CacheLoader<WestCacheOption, AdaptiveTimeout>() {
+                @Override public AdaptiveTimeout load(WestCacheOption option) {
+                    return new AdaptiveTimeout(option.getSpecs().get("snapshotTimeout"),
+                            WINDOW_SLOTS, SLOT_MILLIS);
+                }
+            });
+
+    /**
+     * Get the timeout millis before falling back to the snapshot.
+     *
+     * @param option WestCacheOption.
+     * @return timeout millis.
+     */
+    public static long getTimeoutMillis(WestCacheOption option) {
+        if (isBlank(option.getSpecs().get("snapshotTimeout"))) {
+            return option.getConfig().timeoutMillisToSnapshot();
+        }
+
+        return Guavas.cacheGet(timeoutCache, option).getTimeoutMillis(option);
+    }
+
+    static class AdaptiveTimeout {
+        final double percentile;
+        final double multiple;
+        final int windowSlots;
+        final long slotMillis;
+        // the cumulative snapshots at the start of the slots, the oldest first
+        final Deque<HistogramSnapshot> slots = new ArrayDeque<HistogramSnapshot>();
+        long slotStartMillis; // guarded by this
+        volatile long timeoutMillis;
+        volatile long computedMillis;
+
+        AdaptiveTimeout(String spec, int windowSlots, long slotMillis) {
+            val matcher = ADAPTIVE_PATTERN.matcher(spec.trim());
+            if (!matcher.matches()) throw new WestCacheException(
+                    "snapshotTimeout " + spec + " is not valid, should be like p99x3");
+
+            this.percentile = Double.parseDouble(matcher.group(1));
+            this.multiple = Double.parseDouble(matcher.group(2));
+            if (percentile <= 0 || percentile > 100 || multiple <= 0)
+                throw new WestCacheException("snapshotTimeout " + spec + " is not valid");
+
+            this.windowSlots = windowSlots;
+            this.slotMillis = slotMillis;
+            this.slots.add(HistogramSnapshot.EMPTY);
+            this.slotStartMillis = System.currentTimeMillis();
+        }
+
+        long getTimeoutMillis(WestCacheOption option) {
+            long now = System.currentTimeMillis();
+            if (now - computedMillis < REFRESH_MILLIS) return timeoutMillis;
+
+            timeoutMillis = computeTimeoutMillis(option);
+            computedMillis = now;
+            return timeoutMillis;
+        }
+
+        synchronized long computeTimeoutMillis(WestCacheOption option) {
+            val config = option.getConfig();
+            val current = CacheMetrics.getStats(option).getLoadTime().snapshot();
+            val loadTime = current.minus(slide(current));
+            if (loadTime.getCount() < MIN_SAMPLES) return config.timeoutMillisToSnapshot();
+
+            long timeout = (long) Math.ceil(loadTime.getPercentileMillis(percentile) * multiple);
+            if (config instanceof AdaptiveSnapshotConfig) {
+                val bounds = (AdaptiveSnapshotConfig) config;
+                timeout = Math.max(timeout, bounds.minTimeoutMillisToSnapshot());
+                return Math.min(timeout, bounds.maxTimeoutMillisToSnapshot());
+            }
+
+            timeout = Math.max(timeout, MIN_TIMEOUT_MILLIS);
+            return Math.min(timeout, MAX_TIMEOUT_MILLIS);
+        }
+
+        /*
+         * Start a new slot when the current one is over, and drop the oldest ones
+         * out of the window.
+         *
+         * @return the cumulative snapshot at the start of the window.
+         */
+        private HistogramSnapshot slide(HistogramSnapshot current) {
+            long now = System.currentTimeMillis();
+            if (now - slotStartMillis >= slotMillis) {
+                slots.addLast(current);
+                slotStartMillis = now;
+                while (slots.size() > windowSlots) slots.removeFirst();
+            }
+
+            return slots.getFirst();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.bingoohuang.westcache.utils;
+
+import lombok.experimental.UtilityClass;
+import lombok.val;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * The serving of the last good value when the load fails.
+ * <p>
+ * With staleIfError=[duration] spec, the last good value of a key is kept aside,
+ * and served instead of the load error or the shed load within the duration
+ * after it was loaded, to avoid the error storms during the origin outages.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@UtilityClass
+public class StaleIfErrors {
+    /**
+     * Get the staleIfError in seconds.
+     *
+     * @param option WestCacheOption.
+     * @return seconds of staleIfError, or 0 when not set.
+     */
+    public static long getStaleIfErrorSeconds(WestCacheOption option) {
+        val staleIfError = option.getSpecs().get("staleIfError");
+        return isBlank(staleIfError) ? 0 : Durations.parse("staleIfError", staleIfError);
+    }
+}
@@ -0,0 +1,400 @@
+package com.github.bingoohuang.westcache.utils;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A lightweight scheduler based on a hashed timing wheel.
+ * One ticker thread moves the wheel, and the due tasks are run by
+ * a bounded pool of daemon workers which shrinks to zero when idle.
+ * The ticker thread waits without ticking when there is no task.
+ * <p>
+ * When the workers and their queue are full, the commands executed
+ * directly run in the caller thread, and the due fires of the scheduled
+ * tasks are skipped, so a slow backend can not create unbounded threads.
+ * <p>
+ * All the components of westcache share the {@link #shared()} one for the timers
+ * and the short tasks like the batch drains, so the cached interfaces will not run
+ * dozens of idle threads. The blocking origin loads run on {@link LoadExecutors} instead.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@Slf4j
+public class TimingWheelScheduler extends AbstractExecutorService
+        implements ScheduledExecutorService {
+    private static final int DEFAULT_MAX_WORKERS
+            = Math.max(16, Runtime.getRuntime().availableProcessors() * 4);
+    private static final int DEFAULT_QUEUE_CAPACITY = 10000;
+    private static final TimingWheelScheduler SHARED
+            = new TimingWheelScheduler(10, 512, "westcache");
+
+    /**
+     * Get the shared scheduler, which should not be shutdown.
+     *
+     * @return the shared scheduler.
+     */
+    public static TimingWheelScheduler shared() {
+        return SHARED;
+    }
+
+    private final long tickNanos;
+    private final List<WheelTask<?>>[] wheel;
+    private final int mask;
+    private final Queue<WheelTask<?>> pending = new ConcurrentLinkedQueue<WheelTask<?>>();
+    private final ThreadPoolExecutor workers;
+    private final ThreadFactory tickerFactory;
+    private final Object lock = new Object();
+
+    private volatile boolean shutdown;
+    private Thread ticker;     // guarded by lock
+    private long startNanos;   // ticker thread only
+    private long tick;         // ticker thread only
+    private int wheelTasks;    // ticker thread only
+
+    /**
+     * Create a timing wheel scheduler.
+     *
+     * @param tickMillis   the duration of a tick in millis.
+     * @param wheelSize    the number of buckets in the wheel, will be rounded to power of 2.
+     * @param threadPrefix the name prefix of the ticker and worker threads.
+     */
+    public TimingWheelScheduler(long tickMillis, int wheelSize, String threadPrefix) {
+        this(tickMillis, wheelSize, threadPrefix, DEFAULT_MAX_WORKERS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Create a timing wheel scheduler.
+     *
+     * @param tickMillis    the duration of a tick in millis.
+     * @param wheelSize     the number of buckets in the wheel, will be rounded to power of 2.
+     * @param threadPrefix  the name prefix of the ticker and worker threads.
+     * @param maxWorkers    the max number of worker threads.
+     * @param queueCapacity the max number of tasks waiting for the workers.
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheelScheduler(long tickMillis, int wheelSize, String threadPrefix,
+                                int maxWorkers, int queueCapacity) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+
+        int size = Integer.highestOneBit(Math.max(wheelSize, 1) * 2 - 1);
+        this.wheel = new List[size];
+        for (int i = 0; i < size; ++i) {
+            wheel[i] = new LinkedList<WheelTask<?>>();
+        }
+        this.mask = size - 1;
+
+        this.tickerFactory = new ThreadFactoryBuilder()
+                .setNameFormat(threadPrefix + "-timer-%d").setDaemon(true).build();
+        val workerFactory = new ThreadFactoryBuilder()
+                .setNameFormat(threadPrefix + "-worker-%d").setDaemon(true).build();
+        this.workers = new ThreadPoolExecutor(maxWorkers, maxWorkers,
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(queueCapacity),
+                workerFactory);
+        this.workers.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Execute the command by the workers, or in the caller thread
+     * when the workers are saturated.
+     *
+     * @param command the command to run.
+     */
+    @Override
+    public void execute(Runnable command) {
+        if (shutdown) throw new RejectedExecutionException("scheduler is shutdown");
+
+        try {
+            workers.execute(command);
+        } catch (RejectedExecutionException ex) {
+            if (shutdown) throw ex;
+
+            log.warn("scheduler workers are saturated, run in the caller thread");
+            command.run();
+        }
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return enqueue(new WheelTask<Object>(Executors.callable(command),
+                triggerNanos(unit.toNanos(delay)), 0, null));
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return enqueue(new WheelTask<V>(callable,
+                triggerNanos(unit.toNanos(delay)), 0, null));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command,
+                                                  long initialDelay,
+                                                  long period,
+                                                  TimeUnit unit) {
+        if (period <= 0) throw new IllegalArgumentException("period should be positive");
+
+        return enqueue(new WheelTask<Object>(Executors.callable(command),
+                triggerNanos(unit.toNanos(initialDelay)), unit.toNanos(period), null));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command,
+                                                     long initialDelay,
+                                                     long delay,
+                                                     TimeUnit unit) {
+        if (delay <= 0) throw new IllegalArgumentException("delay should be positive");
+
+        return enqueue(new WheelTask<Object>(Executors.callable(command),
+                triggerNanos(unit.toNanos(initialDelay)), -unit.toNanos(delay), null));
+    }
+
+    /**
+     * Schedule the command by the schedule like Every 1 minute, At 03:00 or cron.
+     *
+     * @param command  the command to run.
+     * @param schedule the schedule parsed by {@link Schedules#parse(String)}.
+     * @return the future to cancel the schedule, or null when the schedule will never fire.
+     */
+    public ScheduledFuture<?> schedule(Runnable command, Schedules.Schedule schedule) {
+        long now = System.currentTimeMillis();
+        long next = Schedules.firstFireTime(schedule, now);
+        if (next < 0) return null;
+
+        val nanos = TimeUnit.MILLISECONDS.toNanos(next - now);
+        val task = new WheelTask<Object>(Executors.callable(command),
+                triggerNanos(nanos), 0, schedule);
+        task.fireMillis = next;
+        return enqueue(task);
+    }
+
+    private long triggerNanos(long delayNanos) {
+        return System.nanoTime() + Math.max(0, delayNanos);
+    }
+
+    private <V> WheelTask<V> enqueue(WheelTask<V> task) {
+        if (shutdown) throw new RejectedExecutionException("scheduler is shutdown");
+
+        pending.add(task);
+        synchronized (lock) {
+            if (ticker == null) {
+                ticker = tickerFactory.newThread(new Ticker());
+                ticker.start();
+            } else {
+                lock.notifyAll();
+            }
+        }
+
+        return task;
+    }
+
+    private class Ticker implements Runnable {
+        @Override public void run() {
+            resetTick();
+
+            while (!shutdown) {
+                if (!waitForTasks()) break;
+
+                waitForNextTick();
+                transferPending();
+                expireBucket(wheel[(int) (tick & mask)]);
+                ++tick;
+            }
+        }
+    }
+
+    private void resetTick() {
+        startNanos = System.nanoTime();
+        tick = 0;
+    }
+
+    /**
+     * Wait when there is no task in the wheel, and restart ticking from now on.
+     *
+     * @return false when the scheduler is shutdown.
+     */
+    private boolean waitForTasks() {
+        if (wheelTasks > 0 || !pending.isEmpty()) return true;
+
+        synchronized (lock) {
+            while (!shutdown && pending.isEmpty()) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    if (shutdown) return false;
+                }
+            }
+        }
+
+        resetTick();
+        return !shutdown;
+    }
+
+    private void waitForNextTick() {
+        long deadline = startNanos + tick * tickNanos;
+        while (true) {
+            long sleepNanos = deadline - System.nanoTime();
+            if (sleepNanos <= 0) return;
+
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                if (shutdown) return;
+            }
+        }
+    }
+
+    private void transferPending() {
+        for (int i = 0; i < 100000; ++i) {
+            WheelTask<?> task = pending.poll();
+            if (task == null) break;
+            if (task.isCancelled()) continue;
+
+            long ticks = (task.triggerNanos - startNanos + tickNanos - 1) / tickNanos;
+            task.remainingRounds = Math.max(0, (ticks - tick) / wheel.length);
+            wheel[(int) (Math.max(ticks, tick) & mask)].add(task);
+            ++wheelTasks;
+        }
+    }
+
+    private void expireBucket(List<WheelTask<?>> bucket) {
+        for (Iterator<WheelTask<?>> it = bucket.iterator(); it.hasNext(); ) {
+            WheelTask<?> task = it.next();
+            if (task.isCancelled()) {
+                it.remove();
+                --wheelTasks;
+            } else if (task.remainingRounds <= 0) {
+                it.remove();
+                --wheelTasks;
+                runTask(task);
+            } else {
+                --task.remainingRounds;
+            }
+        }
+    }
+
+    private void runTask(WheelTask<?> task) {
+        try {
+            workers.execute(task);
+        } catch (RejectedExecutionException ex) {
+            task.reject(ex);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+        workers.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        pending.clear();
+        workers.shutdownNow();
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && workers.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return workers.awaitTermination(timeout, unit);
+    }
+
+    private class WheelTask<V> extends FutureTask<V>
+            implements RunnableScheduledFuture<V> {
+        /*
+         * Fixed rate when period > 0, fixed delay when period < 0,
+         * by schedule when schedule != null, or one shot.
+         */
+        final long period;
+        final Schedules.Schedule schedule;
+        volatile long triggerNanos;
+        volatile long fireMillis; // wall clock fire time for schedule
+        long remainingRounds; // ticker thread only
+
+        WheelTask(Callable<V> callable, long triggerNanos,
+                  long period, Schedules.Schedule schedule) {
+            super(callable);
+            this.triggerNanos = triggerNanos;
+            this.period = period;
+            this.schedule = schedule;
+        }
+
+        @Override public boolean isPeriodic() {
+            return period != 0 || schedule != null;
+        }
+
+        @Override public void run() {
+            if (!isPeriodic()) {
+                super.run();
+            } else if (runAndReset() && !shutdown) {
+                if (setNextTriggerNanos()) enqueue(this);
+            }
+        }
+
+        /*
+         * Skip the fire rejected by the saturated workers, and wait for
+         * the next fire for the periodic ones.
+         */
+        void reject(RejectedExecutionException ex) {
+            if (shutdown) {
+                cancel(false);
+            } else if (!isPeriodic()) {
+                log.warn("scheduled task rejected", ex);
+                setException(ex);
+            } else {
+                log.warn("scheduled task fire skipped", ex);
+                if (setNextTriggerNanos()) enqueue(this);
+            }
+        }
+
+        private boolean setNextTriggerNanos() {
+            if (period > 0) {
+                triggerNanos += period;
+                return true;
+            }
+            if (period < 0) {
+                triggerNanos = System.nanoTime() - period;
+                return true;
+            }
+
+            // schedule from the last fire time to avoid drifting,
+            // but skip the missed fires when the task runs too late.
+            long now = System.currentTimeMillis();
+            long next = schedule.nextFireTime(fireMillis);
+            if (next >= 0 && next < now) next = schedule.nextFireTime(now);
+            if (next < 0) return false;
+
+            fireMillis = next;
+            triggerNanos = triggerNanos(TimeUnit.MILLISECONDS.toNanos(next - now));
+            return true;
+        }
+
+        @Override public long getDelay(TimeUnit unit) {
+            return unit.convert(triggerNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override public int compareTo(Delayed o) {
+            if (o == this) return 0;
+
+            long diff = getDelay(TimeUnit.NANOSECONDS) - o.getDelay(TimeUnit.NANOSECONDS);
+            return diff < 0 ? -1 : diff > 0 ? 1 : 0;
+        }
+    }
+}
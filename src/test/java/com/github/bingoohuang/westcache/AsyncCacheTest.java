@@ -0,0 +1,134 @@
+package com.github.bingoohuang.westcache;
+
+import com.github.bingoohuang.westcache.base.AsyncLoader;
+import com.github.bingoohuang.westcache.base.WestCacheItem;
+import com.github.bingoohuang.westcache.manager.BaseCacheManager;
+import com.github.bingoohuang.westcache.utils.WestCacheOption;
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import lombok.val;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class AsyncCacheTest {
+    public static class AsyncService {
+        AtomicInteger calls = new AtomicInteger();
+        volatile SettableFuture<String> future;
+
+        @WestCacheable
+        public ListenableFuture<String> getName(String id) {
+            calls.incrementAndGet();
+            future = SettableFuture.create();
+            return future;
+        }
+    }
+
+    @Test
+    public void futureMethod() throws Exception {
+        val service = WestCacheFactory.create(AsyncService.class);
+        val f1 = service.getName("bingoo");
+        val f2 = service.getName("bingoo");
+        assertThat(f1.isDone()).isFalse();
+        assertThat(f2.isDone()).isFalse();
+        assertThat(service.calls.get()).isEqualTo(1);
+
+        service.future.set("huang");
+        assertThat(f1.get()).isEqualTo("huang");
+        assertThat(f2.get()).isEqualTo("huang");
+
+        val f3 = service.getName("bingoo");
+        assertThat(f3.isDone()).isTrue();
+        assertThat(f3.get()).isEqualTo("huang");
+        assertThat(service.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void failureNotCached() throws Exception {
+        val service = WestCacheFactory.create(AsyncService.class);
+        val f1 = service.getName("failure");
+        service.future.setException(new RuntimeException("bingoo"));
+        try {
+            f1.get();
+            throw new AssertionError("should fail");
+        } catch (ExecutionException ex) {
+            assertThat(ex.getCause().getMessage()).isEqualTo("bingoo");
+        }
+
+        val f2 = service.getName("failure");
+        assertThat(service.calls.get()).isEqualTo(2);
+        service.future.set("ok");
+        assertThat(f2.get()).isEqualTo("ok");
+    }
+
+    @Test
+    public void apiGetAsync() throws Exception {
+        val option = WestCacheOption.newBuilder().build();
+        val manager = (BaseCacheManager) option.getManager();
+        val loads = new AtomicInteger();
+        val loader = new AsyncLoader() {
+            @Override public ListenableFuture<WestCacheItem> load() {
+                loads.incrementAndGet();
+                return Futures.immediateFuture(
+                        new WestCacheItem(Optional.of("north"), option));
+            }
+        };
+
+        val item = manager.getAsync(option, "api.async.key", loader).get();
+        assertThat(item.orNull()).isEqualTo("north");
+        assertThat(manager.get(option, "api.async.key").orNull()).isEqualTo("north");
+
+        manager.getAsync(option, "api.async.key", loader).get();
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void absentCached() throws Exception {
+        val option = WestCacheOption.newBuilder().build();
+        val manager = (BaseCacheManager) option.getManager();
+        val loads = new AtomicInteger();
+        val loader = new AsyncLoader() {
+            @Override public ListenableFuture<WestCacheItem> load() {
+                loads.incrementAndGet();
+                return Futures.immediateFuture(
+                        new WestCacheItem(Optional.absent(), option));
+            }
+        };
+
+        assertThat(manager.getAsync(option, "api.async.absent", loader).get().isPresent()).isFalse();
+        assertThat(manager.getAsync(option, "api.async.absent", loader).get().isPresent()).isFalse();
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void missesNotBlockingThreads() {
+        val option = WestCacheOption.newBuilder().build();
+        val manager = (BaseCacheManager) option.getManager();
+        val pending = SettableFuture.<WestCacheItem>create();
+        val loader = new AsyncLoader() {
+            @Override public ListenableFuture<WestCacheItem> load() {
+                return pending;
+            }
+        };
+
+        // more pending loads than the workers, all started in the caller thread
+        val futures = new ListenableFuture[100];
+        for (int i = 0; i < futures.length; ++i) {
+            futures[i] = manager.getAsync(option, "api.async.pending" + i, loader);
+            assertThat(futures[i].isDone()).isFalse();
+        }
+
+        pending.set(new WestCacheItem(Optional.of("done"), option));
+        for (val future : futures) {
+            assertThat(future.isDone()).isTrue();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.github.bingoohuang.westcache;
+
+import com.github.bingoohuang.westcache.base.WestCache;
+import com.github.bingoohuang.westcache.base.WestCacheItem;
+import com.github.bingoohuang.westcache.manager.BloomFilterWestCacheAdaptor;
+import com.github.bingoohuang.westcache.utils.Envs;
+import com.github.bingoohuang.westcache.utils.ScalableBloomFilter;
+import com.github.bingoohuang.westcache.utils.WestCacheOption;
+import com.google.common.base.Optional;
+import lombok.val;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class BloomFilterAdaptorTest {
+    /*
+     * A cache with the existing key "old", which counts the reads.
+     */
+    public static class CountingCache implements WestCache, BloomFilterWestCacheAdaptor.KeyScanner {
+        final Map<String, WestCacheItem> items = new ConcurrentHashMap<String, WestCacheItem>();
+        final AtomicInteger reads = new AtomicInteger();
+        final AtomicInteger scans = new AtomicInteger();
+        volatile String scanThread;
+
+        CountingCache() {
+            items.put("old", new WestCacheItem(Optional.of("old"), 0));
+        }
+
+        @Override public WestCacheItem get(WestCacheOption option, String cacheKey,
+                                           Callable<WestCacheItem> callable) {
+            val item = getIfPresent(option, cacheKey);
+            if (item != null) return item;
+
+            val loaded = Envs.execute(callable);
+            put(option, cacheKey, loaded);
+            return loaded;
+        }
+
+        @Override public WestCacheItem getIfPresent(WestCacheOption option, String cacheKey) {
+            reads.incrementAndGet();
+            return items.get(cacheKey);
+        }
+
+        @Override public void put(WestCacheOption option, String cacheKey, WestCacheItem cacheValue) {
+            items.put(cacheKey, cacheValue);
+        }
+
+        @Override public void invalidate(WestCacheOption option, String cacheKey, String version) {
+            items.remove(cacheKey);
+        }
+
+        @Override public void scanKeys(WestCacheOption option, ScalableBloomFilter filter) {
+            scans.incrementAndGet();
+            scanThread = Thread.currentThread().getName();
+            Envs.sleepMillis(50);
+            for (val key : items.keySet()) {
+                filter.put(key);
+            }
+        }
+    }
+
+    @Test
+    public void definiteMissesSkipReads() {
+        val cache = new CountingCache();
+        val adaptor = new BloomFilterWestCacheAdaptor(cache);
+        val option = WestCacheOption.newBuilder().specs("bloomFilter=true").build();
+
+        // passed through until rebuilt
+        assertThat(adaptor.getIfPresent(option, "none")).isNull();
+        assertThat(cache.reads.get()).isEqualTo(1);
+        for (int i = 0; i < 100 && !adaptor.isReady(); ++i) {
+            Envs.sleepMillis(10);
+        }
+        assertThat(adaptor.isReady()).isTrue();
+
+        assertThat(adaptor.getIfPresent(option, "old").orNull()).isEqualTo("old");
+        assertThat(cache.reads.get()).isEqualTo(2);
+
+        // the never written key goes to the loader directly
+        val item = adaptor.get(option, "new", new Callable<WestCacheItem>() {
+            @Override public WestCacheItem call() {
+                return new WestCacheItem(Optional.of("loaded"), 0);
+            }
+        });
+        assertThat(item.orNull()).isEqualTo("loaded");
+        assertThat(adaptor.getIfPresent(option, "none")).isNull();
+        assertThat(cache.reads.get()).isEqualTo(2);
+
+        // the written key is read from the cache
+        assertThat(adaptor.getIfPresent(option, "new").orNull()).isEqualTo("loaded");
+        assertThat(cache.reads.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void notGuardedWithoutSpec() {
+        val cache = new CountingCache();
+        val adaptor = new BloomFilterWestCacheAdaptor(cache);
+        val option = WestCacheOption.newBuilder().build();
+
+        assertThat(adaptor.getIfPresent(option, "none")).isNull();
+        assertThat(adaptor.getIfPresent(option, "none")).isNull();
+        assertThat(cache.reads.get()).isEqualTo(2);
+        assertThat(adaptor.isReady()).isFalse();
+    }
+
+    @Test
+    public void rebuildOnceOnLoaders() {
+        val cache = new CountingCache();
+        val adaptor = new BloomFilterWestCacheAdaptor(cache);
+        val option = WestCacheOption.newBuilder().specs("bloomFilter=true").build();
+
+        // the accesses during the rebuilding do not start another one
+        for (int i = 0; i < 10; ++i) {
+            adaptor.getIfPresent(option, "none");
+        }
+        for (int i = 0; i < 100 && !adaptor.isReady(); ++i) {
+            Envs.sleepMillis(10);
+        }
+
+        assertThat(adaptor.isReady()).isTrue();
+        assertThat(cache.scans.get()).isEqualTo(1);
+        assertThat(cache.scanThread).startsWith("westcache-loader-");
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.bingoohuang.westcache;
+
+import com.github.bingoohuang.westcache.bus.InvalidationMessage;
+import com.github.bingoohuang.westcache.bus.LoopbackBusTransport;
+import com.github.bingoohuang.westcache.flusher.BusCacheFlusher;
+import com.github.bingoohuang.westcache.manager.GuavaCacheManager;
+import com.github.bingoohuang.westcache.utils.Envs;
+import com.github.bingoohuang.westcache.utils.FastJsons;
+import com.github.bingoohuang.westcache.utils.NamespaceGenerations;
+import com.github.bingoohuang.westcache.utils.WestCacheOption;
+import com.google.common.collect.Lists;
+import lombok.val;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.bingoohuang.westcache.WestCacheRegistry.FLUSHER_REGISTRY;
+import static com.github.bingoohuang.westcache.WestCacheRegistry.MANAGER_REGISTRY;
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class BusCacheFlusherTest {
+    /*
+     * Two nodes in one process, each with its own in-process cache and flusher.
+     */
+    public static class BusService {
+        AtomicInteger calls = new AtomicInteger();
+
+        @WestCacheable(manager = "busGuava1", flusher = "bus1", keyer = "simple", key = "busNode.find")
+        public String findOnNode1(String id) {
+            return id + "-" + calls.incrementAndGet();
+        }
+
+        @WestCacheable(manager = "busGuava2", flusher = "bus2", keyer = "simple", key = "busNode.find")
+        public String findOnNode2(String id) {
+            return id + "-" + calls.incrementAndGet();
+        }
+    }
+
+    public static class RecordingTransport extends LoopbackBusTransport {
+        final List<InvalidationMessage> messages = new CopyOnWriteArrayList<InvalidationMessage>();
+
+        // recorded after delivered, so the receivers have handled the recorded ones
+        @Override public void publish(String message) {
+            super.publish(message);
+            messages.add(FastJsons.<InvalidationMessage>parse(message, InvalidationMessage.class));
+        }
+    }
+
+    static RecordingTransport transport = new RecordingTransport();
+    static BusCacheFlusher node1 = new BusCacheFlusher(transport, 100, 500);
+    static BusCacheFlusher node2 = new BusCacheFlusher(transport, 100, 500);
+    static BusService service;
+
+    @BeforeClass
+    public static void beforeClass() {
+        MANAGER_REGISTRY.register("busGuava1", new GuavaCacheManager());
+        MANAGER_REGISTRY.register("busGuava2", new GuavaCacheManager());
+        FLUSHER_REGISTRY.register("bus1", node1);
+        FLUSHER_REGISTRY.register("bus2", node2);
+        service = WestCacheFactory.create(BusService.class);
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        MANAGER_REGISTRY.deregister("busGuava1");
+        MANAGER_REGISTRY.deregister("busGuava2");
+        FLUSHER_REGISTRY.deregister("bus1");
+        FLUSHER_REGISTRY.deregister("bus2");
+        node1.close();
+    }
+
+    @Test
+    public void flushKeyOnAllNodes() {
+        assertThat(service.findOnNode1("a")).isEqualTo("a-1");
+        assertThat(service.findOnNode2("a")).isEqualTo("a-2");
+
+        val option = WestCacheOption.newBuilder().manager("busGuava1").build();
+        node1.flush(option, "busNode.find_a", "");
+        // invalidated locally at once
+        assertThat(service.findOnNode1("a")).isEqualTo("a-3");
+
+        waitMessages(1);
+        assertThat(service.findOnNode2("a")).isEqualTo("a-4");
+        assertThat(service.findOnNode2("a")).isEqualTo("a-4");
+    }
+
+    @Test
+    public void flushPrefixOnAllNodes() {
+        long generation = NamespaceGenerations.getGeneration("busPrefix");
+        node2.flushPrefix("busPrefix");
+        assertThat(NamespaceGenerations.getGeneration("busPrefix")).isEqualTo(generation + 1);
+
+        waitMessages(1);
+        // bumped again by node1 on receiving
+        assertThat(NamespaceGenerations.getGeneration("busPrefix")).isEqualTo(generation + 2);
+    }
+
+    @Test
+    public void batchedAndDeduped() {
+        val option = WestCacheOption.newBuilder().manager("busGuava1").build();
+        node1.flush(option, "busBatch_a", "");
+        node1.flush(option, "busBatch_b", "");
+        node1.flush(option, "busBatch_a", "");
+        node1.flushPrefix("busBatch");
+
+        val message = waitMessages(1).get(0);
+        assertThat(message.getNode()).isEqualTo(node1.getNode());
+        assertThat(message.getKeys()).containsExactly("busBatch_a", "busBatch_b");
+        assertThat(message.getPrefixes()).containsExactly("busBatch");
+    }
+
+    @Test
+    public void splitLargeBatch() {
+        val bounded = new RecordingTransport();
+        val flusher = new BusCacheFlusher(bounded, 100, 500, 200);
+        val option = WestCacheOption.newBuilder().manager("busGuava1").build();
+        for (int i = 0; i < 20; ++i) {
+            flusher.flush(option, "busSplit.find_" + i, "");
+        }
+        flusher.close();
+
+        List<String> keys = Lists.newArrayList();
+        for (val message : bounded.messages) {
+            assertThat(FastJsons.json(message).length()).isAtMost(200);
+            keys.addAll(message.getKeys());
+        }
+        assertThat(bounded.messages.size()).isGreaterThan(1);
+        assertThat(keys).hasSize(20);
+    }
+
+    private static List<InvalidationMessage> waitMessages(int count) {
+        for (int i = 0; i < 100 && transport.messages.size() < count; ++i) {
+            Envs.sleepMillis(10);
+        }
+        val messages = Lists.newArrayList(transport.messages);
+        assertThat(messages).hasSize(count);
+        transport.messages.clear();
+        return messages;
+    }
+}
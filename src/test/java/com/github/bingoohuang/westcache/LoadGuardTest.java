@@ -0,0 +1,109 @@
+package com.github.bingoohuang.westcache;
+
+import com.github.bingoohuang.westcache.base.WestCacheException;
+import com.github.bingoohuang.westcache.metrics.CacheMetrics;
+import com.github.bingoohuang.westcache.utils.Envs;
+import com.github.bingoohuang.westcache.utils.WestCacheConnector;
+import com.github.bingoohuang.westcache.utils.WestCacheOption;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class LoadGuardTest {
+    public static class GuardedService {
+        AtomicInteger calls = new AtomicInteger();
+        volatile boolean failing;
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        @WestCacheable(specs = "breakerFailures=2;breakerOpen=1s")
+        public String findBreaker(String id) {
+            calls.incrementAndGet();
+            if (failing) throw new IllegalStateException("db is down");
+            return "v-" + id;
+        }
+
+        @WestCacheable(snapshot = "file", specs = "maxLoads=1")
+        public String findLimited(String id) {
+            if ("slow".equals(id)) await();
+            return "v-" + id;
+        }
+
+        @SneakyThrows
+        private void await() {
+            entered.countDown();
+            release.await();
+        }
+    }
+
+    static GuardedService service = WestCacheFactory.create(GuardedService.class);
+
+    @Test @SneakyThrows
+    public void circuitBreaker() {
+        val method = GuardedService.class.getMethod("findBreaker", String.class);
+        val stats = CacheMetrics.getStats(WestCacheOption.parseWestCacheable(method));
+
+        service.failing = true;
+        for (val id : new String[]{"a", "b"}) {
+            try {
+                service.findBreaker(id);
+                throw new AssertionError("should fail");
+            } catch (IllegalStateException ex) {
+                assertThat(ex.getMessage()).isEqualTo("db is down");
+            }
+        }
+        assertThat(stats.getCircuitOpenCount()).isEqualTo(1L);
+
+        try {
+            service.findBreaker("c");
+            throw new AssertionError("should be shed");
+        } catch (WestCacheException ex) {
+            assertThat(ex.getMessage()).contains("shed");
+        }
+        assertThat(service.calls.get()).isEqualTo(2);
+        assertThat(stats.getLoadShedCount()).isEqualTo(1L);
+
+        Envs.sleepMillis(1100);
+        service.failing = false;
+        assertThat(service.findBreaker("c")).isEqualTo("v-c");
+        assertThat(service.findBreaker("d")).isEqualTo("v-d");
+        assertThat(service.calls.get()).isEqualTo(4);
+    }
+
+    @Test @SneakyThrows
+    public void maxLoadsWithSnapshot() {
+        assertThat(service.findLimited("fast")).isEqualTo("v-fast");
+        WestCacheConnector.clearCache(new Runnable() {
+            @Override public void run() {
+                service.findLimited("fast");
+            }
+        });
+
+        val slow = new Thread(new Runnable() {
+            @Override public void run() {
+                service.findLimited("slow");
+            }
+        });
+        slow.start();
+        assertThat(service.entered.await(3, TimeUnit.SECONDS)).isTrue();
+
+        // the only load permit is held by the slow one, so served by snapshot
+        assertThat(service.findLimited("fast")).isEqualTo("v-fast");
+
+        val method = GuardedService.class.getMethod("findLimited", String.class);
+        val stats = CacheMetrics.getStats(WestCacheOption.parseWestCacheable(method));
+        assertThat(stats.getLoadShedCount()).isEqualTo(1L);
+
+        service.release.countDown();
+        slow.join();
+    }
+}
@@ -0,0 +1,167 @@
+package com.github.bingoohuang.westcache;
+
+import com.github.bingoohuang.westcache.base.WestCacheItem;
+import com.github.bingoohuang.westcache.manager.FileCacheManager;
+import com.github.bingoohuang.westcache.manager.GuavaCacheManager;
+import com.github.bingoohuang.westcache.manager.NamespaceWestCacheAdaptor;
+import com.github.bingoohuang.westcache.snapshot.FileCacheSnapshot;
+import com.github.bingoohuang.westcache.utils.Envs;
+import com.github.bingoohuang.westcache.utils.NamespaceGenerations;
+import com.github.bingoohuang.westcache.utils.Redis;
+import com.github.bingoohuang.westcache.utils.Snapshots;
+import com.github.bingoohuang.westcache.utils.WestCacheOption;
+import com.google.common.base.Optional;
+import lombok.val;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class NamespaceGenerationsTest {
+    public static class NamespaceService {
+        AtomicInteger calls = new AtomicInteger();
+
+        @WestCacheable(keyer = "simple", key = "nsLocal.find")
+        public String find(String id) {
+            return id + "-" + calls.incrementAndGet();
+        }
+
+        @WestCacheable(manager = "redis", keyer = "simple", key = "nsRedis.find")
+        public String findRedis(String id) {
+            return id + "-" + calls.incrementAndGet();
+        }
+    }
+
+    @Test
+    public void physicalKey() {
+        assertThat(NamespaceGenerations.physicalKey("nsKey.find_a")).isEqualTo("nsKey.find_a");
+
+        NamespaceGenerations.flush("nsKey");
+        NamespaceGenerations.flush("nsKey.find");
+        assertThat(NamespaceGenerations.physicalKey("nsKey.find_a")).isEqualTo("nsKey.find_a~2");
+        assertThat(NamespaceGenerations.physicalKey("nsKey.other_a")).isEqualTo("nsKey.other_a~1");
+        assertThat(NamespaceGenerations.physicalKey("nsKeyOther.find_a")).isEqualTo("nsKeyOther.find_a");
+    }
+
+    @Test
+    public void pruneSubNamespaces() {
+        NamespaceGenerations.flush("nsPrune.find");
+        long parent = NamespaceGenerations.getGeneration("nsPrune");
+        long sub = NamespaceGenerations.getGeneration("nsPrune.find");
+        assertThat(NamespaceGenerations.physicalKey("nsPrune.find_a")).isEqualTo("nsPrune.find_a~" + (parent + sub));
+
+        // the sub generations are folded into the parent, so the physical key still increases
+        long flushed = NamespaceGenerations.flush("nsPrune");
+        assertThat(flushed).isEqualTo(parent + sub + 1);
+        assertThat(NamespaceGenerations.getGeneration("nsPrune.find")).isEqualTo(0L);
+        assertThat(NamespaceGenerations.physicalKey("nsPrune.find_a")).isEqualTo("nsPrune.find_a~" + flushed);
+        assertThat(NamespaceGenerations.physicalKey("nsPrune.other_a")).isEqualTo("nsPrune.other_a~" + flushed);
+    }
+
+    @Test
+    public void flushOnceByVersion() {
+        long generation = NamespaceGenerations.flush("nsVersion", "1");
+        assertThat(NamespaceGenerations.flush("nsVersion", "1")).isEqualTo(generation);
+        assertThat(NamespaceGenerations.flush("nsVersion", "2")).isEqualTo(generation + 1);
+        assertThat(NamespaceGenerations.flush("nsVersion")).isEqualTo(generation + 2);
+    }
+
+    @Test
+    public void evictOldGenerations() {
+        val option = WestCacheOption.newBuilder().build();
+        val guava = new GuavaCacheManager.GuavaWestCache();
+        val adaptor = new NamespaceWestCacheAdaptor(guava);
+        adaptor.put(option, "nsEvict.find_a", new WestCacheItem(Optional.<Object>of("a"), option));
+        adaptor.put(option, "nsEvictOther.find_a", new WestCacheItem(Optional.<Object>of("a"), option));
+
+        NamespaceGenerations.flush("nsEvict");
+        for (int i = 0; i < 100 && guava.getIfPresent(option, "nsEvict.find_a") != null; ++i) {
+            Envs.sleepMillis(10);
+        }
+        assertThat(guava.getIfPresent(option, "nsEvict.find_a")).isNull();
+        assertThat(guava.getIfPresent(option, "nsEvictOther.find_a")).isNotNull();
+    }
+
+    @Test
+    public void keepNewGeneration() {
+        val option = WestCacheOption.newBuilder().build();
+        val guava = new GuavaCacheManager.GuavaWestCache();
+        val adaptor = new NamespaceWestCacheAdaptor(guava);
+        adaptor.put(option, "nsKeep.find_a", new WestCacheItem(Optional.<Object>of("a"), option));
+
+        long generation = NamespaceGenerations.flush("nsKeep");
+        adaptor.put(option, "nsKeep.find_b", new WestCacheItem(Optional.<Object>of("b"), option));
+        for (int i = 0; i < 100 && guava.getIfPresent(option, "nsKeep.find_a") != null; ++i) {
+            Envs.sleepMillis(10);
+        }
+        assertThat(guava.getIfPresent(option, "nsKeep.find_a")).isNull();
+        assertThat(guava.getIfPresent(option, "nsKeep.find_b~" + generation)).isNotNull();
+        assertThat(NamespaceGenerations.isSuperseded("nsKeep.find_a")).isTrue();
+        assertThat(NamespaceGenerations.isSuperseded("nsKeep.find_b~" + generation)).isFalse();
+    }
+
+    @Test
+    public void deleteOldGenerationFiles() {
+        val option = WestCacheOption.newBuilder().build();
+        val snapshot = new FileCacheSnapshot();
+        new FileCacheManager();
+        val item = new WestCacheItem(Optional.<Object>of("a"), option);
+
+        long old = NamespaceGenerations.flush("nsFile");
+        snapshot.saveSnapshot(option, "nsFile.find_a~" + old, item);
+        snapshot.saveSnapshot(option, "nsFile.find_a", item);
+
+        long generation = NamespaceGenerations.flush("nsFile");
+        snapshot.saveSnapshot(option, "nsFile.find_a~" + generation, item);
+        val oldFile = Snapshots.getSnapshotFile("nsFile.find_a~" + old);
+        for (int i = 0; i < 100 && oldFile.exists(); ++i) {
+            Envs.sleepMillis(10);
+        }
+        assertThat(oldFile.exists()).isFalse();
+        // the logical key snapshots may be saved by the other managers, so they are kept
+        assertThat(Snapshots.getSnapshotFile("nsFile.find_a").exists()).isTrue();
+        assertThat(Snapshots.getSnapshotFile("nsFile.find_a~" + generation).exists()).isTrue();
+
+        snapshot.deleteSnapshot(option, "nsFile.find_a");
+        snapshot.deleteSnapshot(option, "nsFile.find_a~" + generation);
+    }
+
+    @Test
+    public void flushLocalNamespace() {
+        val service = WestCacheFactory.create(NamespaceService.class);
+        assertThat(service.find("a")).isEqualTo("a-1");
+        assertThat(service.find("b")).isEqualTo("b-2");
+        assertThat(service.find("a")).isEqualTo("a-1");
+
+        NamespaceGenerations.flush("nsLocal.find");
+        assertThat(service.find("a")).isEqualTo("a-3");
+        assertThat(service.find("b")).isEqualTo("b-4");
+        assertThat(service.calls.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void flushRedisNamespace() {
+        val redis = Redis.getJedis();
+        redis.del(Redis.PREFIX + "nsRedis.find_a");
+
+        val service = WestCacheFactory.create(NamespaceService.class);
+        assertThat(service.findRedis("a")).isEqualTo("a-1");
+        assertThat(service.findRedis("a")).isEqualTo("a-1");
+
+        // the generation is shared in redis, and the old entry is left to expire
+        long generation = NamespaceGenerations.flush("nsRedis");
+        assertThat(redis.hget(Redis.PREFIX + "generations", "nsRedis")).isEqualTo("" + generation);
+        assertThat(service.findRedis("a")).isEqualTo("a-2");
+        assertThat(redis.exists(Redis.PREFIX + "nsRedis.find_a~" + generation)).isTrue();
+        assertThat(redis.exists(Redis.PREFIX + "nsRedis.find_a")).isTrue();
+
+        // the processes flushing the same version bump the shared generation once
+        long versioned = NamespaceGenerations.flush("nsRedis", "7");
+        assertThat(NamespaceGenerations.flush("nsRedis", "7")).isEqualTo(versioned);
+        assertThat(redis.hget(Redis.PREFIX + "generations", "nsRedis")).isEqualTo("" + versioned);
+    }
+}
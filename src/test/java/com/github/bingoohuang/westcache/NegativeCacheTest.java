@@ -0,0 +1,84 @@
+package com.github.bingoohuang.westcache;
+
+import com.github.bingoohuang.westcache.utils.Envs;
+import com.github.bingoohuang.westcache.utils.NegativeCaches;
+import com.github.bingoohuang.westcache.utils.Redis;
+import com.github.bingoohuang.westcache.utils.WestCacheOption;
+import lombok.val;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class NegativeCacheTest {
+    public static class NegativeService {
+        AtomicInteger guavaCalls = new AtomicInteger();
+        AtomicInteger redisCalls = new AtomicInteger();
+        AtomicInteger foreverCalls = new AtomicInteger();
+
+        @WestCacheable(specs = "negativeTtl=1s")
+        public String findGuava(String id) {
+            guavaCalls.incrementAndGet();
+            return null;
+        }
+
+        @WestCacheable(manager = "redis", keyer = "simple", specs = "negativeTtl=1s")
+        public String findRedis() {
+            redisCalls.incrementAndGet();
+            return null;
+        }
+
+        @WestCacheable
+        public String findForever(String id) {
+            foreverCalls.incrementAndGet();
+            return null;
+        }
+    }
+
+    static NegativeService service = WestCacheFactory.create(NegativeService.class);
+
+    @Test
+    public void guava() {
+        assertThat(service.findGuava("bingoo")).isNull();
+        assertThat(service.findGuava("bingoo")).isNull();
+        assertThat(service.guavaCalls.get()).isEqualTo(1);
+
+        Envs.sleepMillis(1100);
+        assertThat(service.findGuava("bingoo")).isNull();
+        assertThat(service.guavaCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void redis() {
+        val cacheKey = "NegativeCacheTest.NegativeService.findRedis";
+        val redisKey = Redis.PREFIX + cacheKey;
+        Redis.getJedis().del(redisKey);
+
+        // a genuine miss is null, and a cached absent result is an absent item
+        val option = WestCacheOption.newBuilder().manager("redis").build();
+        assertThat(option.getManager().get(option, cacheKey)).isNull();
+
+        assertThat(service.findRedis()).isNull();
+        assertThat(option.getManager().get(option, cacheKey).isPresent()).isFalse();
+        assertThat(service.findRedis()).isNull();
+        assertThat(service.redisCalls.get()).isEqualTo(1);
+        assertThat(Redis.getJedis().get(redisKey)).isEqualTo(NegativeCaches.SENTINEL);
+        assertThat(Redis.getJedis().ttl(redisKey)).isAtMost(1L);
+
+        Envs.sleepMillis(1100);
+        assertThat(service.findRedis()).isNull();
+        assertThat(service.redisCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void withoutNegativeTtl() {
+        assertThat(service.findForever("bingoo")).isNull();
+        Envs.sleepMillis(100);
+        assertThat(service.findForever("bingoo")).isNull();
+        assertThat(service.foreverCalls.get()).isEqualTo(1);
+    }
+}
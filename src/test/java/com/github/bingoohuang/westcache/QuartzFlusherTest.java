@@ -1,8 +1,10 @@
 package com.github.bingoohuang.westcache;
 
 import com.github.bingoohuang.westcache.flusher.QuartzCacheFlusher;
+import com.github.bingoohuang.westcache.manager.BaseCacheManager;
 import com.github.bingoohuang.westcache.manager.GuavaCacheManager;
 import com.github.bingoohuang.westcache.utils.Envs;
+import com.github.bingoohuang.westcache.utils.WestCacheConnector;
 import lombok.val;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -31,6 +33,33 @@ public class QuartzFlusherTest {
         public long doThat() {
             return System.currentTimeMillis();
         }
+
+        @WestCacheable(
+                manager = "quartz-manager",
+                flusher = "quartz-flusher",
+                specs = "scheduled=every  1   Second")
+        public long doSame() {
+            return System.currentTimeMillis();
+        }
+
+        @WestCacheable(
+                manager = "quartz-manager",
+                flusher = "quartz-flusher",
+                specs = "scheduled=Every 1 hour")
+        public long doHourly() {
+            return System.currentTimeMillis();
+        }
+
+        static volatile String reloadThread;
+
+        @WestCacheable(
+                manager = "quartz-manager",
+                flusher = "quartz-flusher",
+                specs = "scheduled=Every 1 second;scheduledMode=reload")
+        public long doReload() {
+            reloadThread = Thread.currentThread().getName();
+            return System.currentTimeMillis();
+        }
     }
 
     @BeforeClass
@@ -48,13 +77,25 @@ public class QuartzFlusherTest {
         FLUSHER_REGISTRY.deregister("quartz-flusher");
     }
 
+    /*
+     * The first fire of a new schedule happens immediately, and the later
+     * fires happen at the next tick of the timing wheel after the due time.
+     */
+    static void startSchedules(QuartzService service) {
+        service.doWhat();
+        service.doHourly();
+        Envs.sleepMillis(200);
+    }
+
     @Test
     public void test1() {
         val service = WestCacheFactory.create(QuartzService.class);
+        startSchedules(service);
+
         long l1 = service.doWhat();
         long l2 = service.doWhat();
         assertThat(l1).isEqualTo(l2);
-        Envs.sleepMillis(1000);
+        Envs.sleepMillis(1100);
 
         long l3 = service.doWhat();
         assertThat(l3).isGreaterThan(l1);
@@ -65,4 +106,57 @@ public class QuartzFlusherTest {
         long t2 = service.doThat();
         assertThat(t1).isEqualTo(t2);
     }
+
+    @Test
+    public void groupBySchedule() {
+        val service = WestCacheFactory.create(QuartzService.class);
+        startSchedules(service);
+
+        long w1 = service.doWhat();
+        long s1 = service.doSame();
+        long h1 = service.doHourly();
+
+        Envs.sleepMillis(1500);
+        assertThat(service.doWhat()).isGreaterThan(w1);
+        assertThat(service.doSame()).isGreaterThan(s1);
+        assertThat(service.doHourly()).isEqualTo(h1);
+    }
+
+    @Test
+    public void scheduledReload() {
+        val service = WestCacheFactory.create(QuartzService.class);
+        startSchedules(service);
+
+        long r1 = service.doReload();
+        assertThat(QuartzService.reloadThread).isEqualTo(Thread.currentThread().getName());
+
+        Envs.sleepMillis(1500);
+        long r2 = service.doReload();
+        assertThat(r2).isGreaterThan(r1);
+        assertThat(QuartzService.reloadThread).startsWith("westcache-loader-");
+    }
+
+    @Test
+    public void fastHitWithoutReloadMode() {
+        final QuartzService service = WestCacheFactory.create(QuartzService.class);
+        startSchedules(service);
+        service.doReload();
+
+        val hourly = new Runnable() {
+            @Override public void run() {
+                service.doHourly();
+            }
+        };
+        val hourlyOption = WestCacheConnector.connectOption(hourly);
+        val manager = (BaseCacheManager) hourlyOption.getManager();
+        assertThat(manager.tryHit(hourlyOption, WestCacheConnector.connectKey(hourly))).isNotNull();
+
+        val reload = new Runnable() {
+            @Override public void run() {
+                service.doReload();
+            }
+        };
+        val reloadOption = WestCacheConnector.connectOption(reload);
+        assertThat(manager.tryHit(reloadOption, WestCacheConnector.connectKey(reload))).isNull();
+    }
 }
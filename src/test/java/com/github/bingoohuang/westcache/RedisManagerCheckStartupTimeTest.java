@@ -1,7 +1,16 @@
 package com.github.bingoohuang.westcache;
 
+import com.github.bingoohuang.westcache.manager.RedisCacheManager;
+import com.github.bingoohuang.westcache.utils.Envs;
+import com.github.bingoohuang.westcache.utils.Redis;
+import lombok.val;
 import org.junit.Test;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.bingoohuang.westcache.WestCacheRegistry.MANAGER_REGISTRY;
+import static com.google.common.truth.Truth.assertThat;
+
 public class RedisManagerCheckStartupTimeTest {
     @WestCacheable(manager = "redis", keyer = "simple", specs = "restartInvalidate=true")
     public static class RedisManagerCheckStartupTimeService {
@@ -18,4 +27,53 @@ public class RedisManagerCheckStartupTimeTest {
         service.getOther();
         service.getOther();
     }
+
+    public static class OldService {
+        AtomicInteger calls = new AtomicInteger();
+
+        @WestCacheable(manager = "redis", key = "startupTest", specs = "restartInvalidate=true")
+        public String get() {
+            return "old-" + calls.incrementAndGet();
+        }
+    }
+
+    public static class RestartedService {
+        AtomicInteger calls = new AtomicInteger();
+
+        @WestCacheable(manager = "restartedRedis", key = "startupTest", specs = "restartInvalidate=true")
+        public String get() {
+            return "new-" + calls.incrementAndGet();
+        }
+    }
+
+    @Test
+    public void restartGeneration() {
+        val redis = Redis.getJedis();
+        redis.del(Redis.PREFIX + "startupTest");
+
+        val oldService = WestCacheFactory.create(OldService.class);
+        assertThat(oldService.get()).isEqualTo("old-1");
+        assertThat(oldService.get()).isEqualTo("old-1");
+        assertThat(oldService.calls.get()).isEqualTo(1);
+
+        // one cluster-wide generation instead of the marker of each key
+        assertThat(redis.exists(Redis.PREFIX + "startupTime")).isTrue();
+        assertThat(redis.exists(Redis.PREFIX + "startupTime:startupTest")).isFalse();
+
+        // a process started later invalidates the value cached before it once
+        Envs.sleepMillis(10);
+        MANAGER_REGISTRY.register("restartedRedis", new RedisCacheManager());
+        try {
+            val restartedService = WestCacheFactory.create(RestartedService.class);
+            assertThat(restartedService.get()).isEqualTo("new-1");
+            assertThat(restartedService.get()).isEqualTo("new-1");
+
+            // the older process does not invalidate it again
+            assertThat(oldService.get()).isEqualTo("new-1");
+            assertThat(oldService.calls.get()).isEqualTo(1);
+            assertThat(restartedService.calls.get()).isEqualTo(1);
+        } finally {
+            MANAGER_REGISTRY.deregister("restartedRedis");
+        }
+    }
 }
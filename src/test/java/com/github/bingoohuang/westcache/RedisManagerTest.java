@@ -1,15 +1,23 @@
 package com.github.bingoohuang.westcache;
 
 import com.github.bingoohuang.westcache.base.WestCacheItem;
+import com.github.bingoohuang.westcache.manager.BloomFilterWestCacheAdaptor;
 import com.github.bingoohuang.westcache.manager.RedisCacheManager;
+import com.github.bingoohuang.westcache.utils.Envs;
 import com.github.bingoohuang.westcache.utils.FastJsons;
+import com.github.bingoohuang.westcache.utils.HotKeyDetector;
 import com.github.bingoohuang.westcache.utils.Redis;
+import com.github.bingoohuang.westcache.utils.ScalableBloomFilter;
 import com.github.bingoohuang.westcache.utils.WestCacheConnector;
 import com.github.bingoohuang.westcache.utils.WestCacheOption;
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
 import lombok.val;
 import org.junit.Test;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static com.google.common.truth.Truth.assertThat;
 
 /**
@@ -73,6 +81,130 @@ public class RedisManagerTest {
 
         manager.getWestCache().invalidate(option, getOtherCacheKey, null);
         item = manager.get(option, getSomethingCacheKey);
-        assertThat(item.orNull()).isNull();
+        assertThat(item).isNull();
+    }
+
+    @Test
+    public void versionedInvalidateAll() {
+        val redis = Redis.getJedis();
+        val prefix = Redis.PREFIX + "versioned:";
+        redis.del(prefix + "version:a");
+        redis.del(prefix + "version:b");
+        redis.set(prefix + "a", "\"va\"");
+        redis.set(prefix + "b", "\"vb\"");
+
+        val westCache = new RedisCacheManager.RedisWestCache(prefix);
+        westCache.invalidateAll(option, ImmutableMap.of("a", "1", "b", "1"));
+        assertThat(redis.exists(prefix + "a")).isFalse();
+        assertThat(redis.exists(prefix + "b")).isFalse();
+        assertThat(redis.get(prefix + "version:a")).isEqualTo("1");
+
+        // only the changed version invalidates
+        redis.set(prefix + "a", "\"va\"");
+        redis.set(prefix + "b", "\"vb\"");
+        westCache.invalidateAll(option, ImmutableMap.of("a", "1", "b", "2"));
+        assertThat(redis.exists(prefix + "a")).isTrue();
+        assertThat(redis.exists(prefix + "b")).isFalse();
+        assertThat(redis.get(prefix + "version:b")).isEqualTo("2");
+
+        westCache.invalidate(option, "a", "3");
+        assertThat(redis.exists(prefix + "a")).isFalse();
+        assertThat(redis.get(prefix + "version:a")).isEqualTo("3");
+    }
+
+    @Test
+    public void hotKeyPinnedLocally() {
+        val redis = Redis.getJedis();
+        val prefix = Redis.PREFIX + "hot:";
+        redis.set(prefix + "mall.commonParam", "\"v1\"");
+
+        val manager = new RedisCacheManager(prefix, false, new HotKeyDetector(4, 10, 100), 1000);
+        for (int i = 0; i < 20; ++i) {
+            assertThat(manager.get(option, "mall.commonParam").orNull()).isEqualTo("v1");
+        }
+        Envs.sleepMillis(110);
+        assertThat(manager.get(option, "mall.commonParam").orNull()).isEqualTo("v1");
+        assertThat(manager.getHotKeys()).containsExactly("mall.commonParam");
+
+        // served locally without redis
+        redis.set(prefix + "mall.commonParam", "\"v2\"");
+        assertThat(manager.get(option, "mall.commonParam").orNull()).isEqualTo("v1");
+
+        manager.invalidate(option, "mall.commonParam", null);
+        redis.set(prefix + "mall.commonParam", "\"v3\"");
+        assertThat(manager.get(option, "mall.commonParam").orNull()).isEqualTo("v3");
+    }
+
+    @Test
+    public void hotKeyNotPinnedByDefault() {
+        val redis = Redis.getJedis();
+        val prefix = Redis.PREFIX + "nothot:";
+        redis.set(prefix + "mall.commonParam", "\"v1\"");
+
+        val manager = new RedisCacheManager(prefix, false);
+        for (int i = 0; i < 2000; ++i) {
+            manager.get(option, "mall.commonParam");
+        }
+        assertThat(manager.getHotKeys()).isEmpty();
+
+        redis.set(prefix + "mall.commonParam", "\"v2\"");
+        assertThat(manager.get(option, "mall.commonParam").orNull()).isEqualTo("v2");
+    }
+
+    @Test
+    public void scanKeysForBloomFilter() {
+        val redis = Redis.getJedis();
+        val prefix = Redis.PREFIX + "bloom:";
+        for (int i = 0; i < 30; ++i) {
+            redis.set(prefix + "key" + i, "\"v\"");
+        }
+        redis.set(prefix + "version:key0", "1");
+        redis.hset(prefix + "generations", "key0", "1");
+
+        val filter = new ScalableBloomFilter(1000, 0.01);
+        new RedisCacheManager.RedisWestCache(prefix).scanKeys(option, filter);
+        for (int i = 0; i < 30; ++i) {
+            assertThat(filter.mightContain("key" + i)).isTrue();
+        }
+        assertThat(filter.mightContain("bloom:key0")).isFalse();
+        assertThat(filter.mightContain("version:key0")).isFalse();
+        assertThat(filter.mightContain("generations")).isFalse();
+    }
+
+    @Test
+    public void definiteMissLoadedInLock() throws InterruptedException {
+        val prefix = Redis.PREFIX + "bloommiss:";
+        Redis.getJedis().del(prefix + "missing");
+        final BloomFilterWestCacheAdaptor adaptor = new BloomFilterWestCacheAdaptor(
+                new RedisCacheManager.RedisWestCache(prefix, false));
+        final WestCacheOption bloomOption = WestCacheOption.newBuilder().specs("bloomFilter=true").build();
+
+        adaptor.getIfPresent(bloomOption, "none");
+        for (int i = 0; i < 100 && !adaptor.isReady(); ++i) {
+            Envs.sleepMillis(10);
+        }
+        assertThat(adaptor.isReady()).isTrue();
+
+        // the concurrent definite misses load the origin once in the redis lock
+        final AtomicInteger loads = new AtomicInteger();
+        val threads = new Thread[5];
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i] = new Thread(new Runnable() {
+                @Override public void run() {
+                    adaptor.get(bloomOption, "missing", new Callable<WestCacheItem>() {
+                        @Override public WestCacheItem call() {
+                            loads.incrementAndGet();
+                            Envs.sleepMillis(100);
+                            return new WestCacheItem(Optional.of("v"), 0);
+                        }
+                    });
+                }
+            });
+            threads[i].start();
+        }
+        for (val thread : threads) thread.join();
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(Redis.getJedis().get(prefix + "missing")).isEqualTo("\"v\"");
     }
 }
@@ -0,0 +1,96 @@
+package com.github.bingoohuang.westcache;
+
+import com.github.bingoohuang.westcache.metrics.CacheMetrics;
+import com.github.bingoohuang.westcache.utils.Envs;
+import com.github.bingoohuang.westcache.utils.WestCacheConnector;
+import com.github.bingoohuang.westcache.utils.WestCacheOption;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class StaleIfErrorTest {
+    public static class StaleService {
+        AtomicInteger calls = new AtomicInteger();
+        volatile boolean failing;
+
+        @WestCacheable(specs = "staleIfError=3s")
+        public String find(String id) {
+            return load(id);
+        }
+
+        @WestCacheable(specs = "staleIfError=10s;breakerFailures=1")
+        public String findBreaker(String id) {
+            return load(id);
+        }
+
+        private String load(String id) {
+            int call = calls.incrementAndGet();
+            if (failing) throw new IllegalStateException("db is down");
+            return id + "-" + call;
+        }
+    }
+
+    @Test @SneakyThrows
+    public void staleIfError() {
+        final StaleService service = WestCacheFactory.create(StaleService.class);
+        val clear = new Runnable() {
+            @Override public void run() {
+                service.find("a");
+            }
+        };
+
+        assertThat(service.find("a")).isEqualTo("a-1");
+        WestCacheConnector.clearCache(clear);
+        service.failing = true;
+
+        assertThat(service.find("a")).isEqualTo("a-1");
+        assertThat(service.find("a")).isEqualTo("a-1");
+        assertThat(service.calls.get()).isEqualTo(2);
+
+        // the stale value is kept for retrying the origin one second later
+        Envs.sleepMillis(1100);
+        assertThat(service.find("a")).isEqualTo("a-1");
+        assertThat(service.calls.get()).isEqualTo(3);
+
+        val method = StaleService.class.getMethod("find", String.class);
+        val stats = CacheMetrics.getStats(WestCacheOption.parseWestCacheable(method));
+        assertThat(stats.getStaleServedCount()).isEqualTo(2L);
+
+        // beyond staleIfError after the last good load
+        Envs.sleepMillis(2100);
+        try {
+            service.find("a");
+            throw new AssertionError("should fail");
+        } catch (IllegalStateException ex) {
+            assertThat(ex.getMessage()).isEqualTo("db is down");
+        }
+    }
+
+    @Test
+    public void staleWhenCircuitOpen() {
+        final StaleService service = WestCacheFactory.create(StaleService.class);
+        val clear = new Runnable() {
+            @Override public void run() {
+                service.findBreaker("b");
+            }
+        };
+
+        assertThat(service.findBreaker("b")).isEqualTo("b-1");
+        WestCacheConnector.clearCache(clear);
+        service.failing = true;
+        assertThat(service.findBreaker("b")).isEqualTo("b-1");
+        assertThat(service.calls.get()).isEqualTo(2);
+
+        // the circuit is opened, the stale value is served without the origin
+        WestCacheConnector.clearCache(clear);
+        assertThat(service.findBreaker("b")).isEqualTo("b-1");
+        assertThat(service.calls.get()).isEqualTo(2);
+    }
+}
@@ -1,8 +1,14 @@
 package com.github.bingoohuang.westcache;
 
+import com.github.bingoohuang.westcache.batch.BatchLoadersTest;
 import com.github.bingoohuang.westcache.batch.BatchTest;
+import com.github.bingoohuang.westcache.batch.BatchTunerTest;
+import com.github.bingoohuang.westcache.batch.MpscRingBufferTest;
+import com.github.bingoohuang.westcache.batch.PartitionedBatcherTest;
 import com.github.bingoohuang.westcache.eqler.EqlerCacheableTest;
 import com.github.bingoohuang.westcache.flusher.DiamondCacheFlusherTest;
+import com.github.bingoohuang.westcache.metrics.CacheMetricsTest;
+import com.github.bingoohuang.westcache.metrics.LatencyHistogramTest;
 import com.github.bingoohuang.westcache.peng.BasicDataCacheTest;
 import com.github.bingoohuang.westcache.peng.PengTest;
 import com.github.bingoohuang.westcache.snapshot.FileCacheSnapshotTest;
@@ -29,6 +35,7 @@ import org.n3r.diamond.client.impl.MockDiamondServer;
         AnnsTest.class,
         FastJsonsTest.class,
         AnnOverrideTest.class,
+        AsyncCacheTest.class,
         BenchMarkTest.class,
         CacheApiTest.class,
         CacheKeyTest.class,
@@ -42,6 +49,9 @@ import org.n3r.diamond.client.impl.MockDiamondServer;
         FlushSnapshotTest.class,
         MallCacheableTest.class,
         MySqlDictTest.class,
+        CacheMetricsTest.class,
+        LatencyHistogramTest.class,
+        NegativeCacheTest.class,
         RedisInterceptorTest.class,
         RedisManagerExpireCustomAnnTest.class,
         RedisManagerExpireTest.class,
@@ -58,6 +68,7 @@ import org.n3r.diamond.client.impl.MockDiamondServer;
         WestCacheOptionTest.class,
         QuartzFlusherTest.class,
         ScheduledParserTest.class,
+        TimingWheelSchedulerTest.class,
         WestCacheFactoryTest.class,
         WestCacheConnectorTest.class,
         DynamicExpireAfterWriteTest.class,
@@ -71,6 +82,21 @@ import org.n3r.diamond.client.impl.MockDiamondServer;
         RedisManagerCheckStartupTimeTest.class,
         EqlerCacheableTest.class,
         SpringAnnDaoTest.class,
+        LoadGuardTest.class,
+        StaleIfErrorTest.class,
+        SnapshotTimeoutsTest.class,
+        SnapshotHedgesTest.class,
+        MpscRingBufferTest.class,
+        BatchLoadersTest.class,
+        BatchTunerTest.class,
+        PartitionedBatcherTest.class,
+        NamespaceGenerationsTest.class,
+        BusCacheFlusherTest.class,
+        EarlyExpirationsTest.class,
+        TinyLfuCacheManagerTest.class,
+        HotKeyDetectorTest.class,
+        ScalableBloomFilterTest.class,
+        BloomFilterAdaptorTest.class,
 })
 public class TestSuite {
     @ClassRule
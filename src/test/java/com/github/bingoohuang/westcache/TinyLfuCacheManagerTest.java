@@ -0,0 +1,125 @@
+package com.github.bingoohuang.westcache;
+
+import com.github.bingoohuang.westcache.base.WestCacheItem;
+import com.github.bingoohuang.westcache.manager.TinyLfuCacheManager;
+import com.github.bingoohuang.westcache.manager.TinyLfuCacheManager.TinyLfuWestCache;
+import com.github.bingoohuang.westcache.utils.FrequencySketch;
+import com.github.bingoohuang.westcache.utils.WestCacheConnector;
+import com.google.common.base.Optional;
+import lombok.val;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class TinyLfuCacheManagerTest {
+    public static class TinyLfuService {
+        AtomicInteger calls = new AtomicInteger();
+
+        @WestCacheable(manager = "tinylfu")
+        public String find(String id) {
+            return id + "-" + calls.incrementAndGet();
+        }
+    }
+
+    @Test
+    public void frequencySketch() {
+        val sketch = new FrequencySketch(100);
+        for (int i = 0; i < 20; ++i) {
+            sketch.increment("hot");
+        }
+        sketch.increment("cold");
+
+        assertThat(sketch.frequency("hot")).isEqualTo(15);
+        assertThat(sketch.frequency("cold")).isAtLeast(1);
+        assertThat(sketch.frequency("cold")).isLessThan(15);
+        assertThat(sketch.frequency("absent")).isLessThan(15);
+
+        // halved after the samples of 10 times of the maximum size
+        for (int i = 0; i < 1000; ++i) {
+            sketch.increment("scan" + i);
+        }
+        assertThat(sketch.frequency("hot")).isLessThan(15);
+    }
+
+    @Test
+    public void hotSetSurvivesScan() {
+        val cache = new TinyLfuWestCache(100);
+        for (int round = 0; round < 5; ++round) {
+            for (int i = 0; i < 50; ++i) {
+                getOrPut(cache, "hot" + i);
+            }
+        }
+
+        for (int i = 0; i < 10000; ++i) {
+            getOrPut(cache, "scan" + i);
+        }
+        assertThat(cache.size()).isAtMost(100);
+
+        int hits = 0;
+        for (int i = 0; i < 50; ++i) {
+            if (cache.getIfPresent(null, "hot" + i) != null) ++hits;
+        }
+        assertThat(hits).isAtLeast(45);
+    }
+
+    @Test
+    public void countOncePerAccess() {
+        final TinyLfuWestCache cache = new TinyLfuWestCache(100);
+        final WestCacheItem item = new WestCacheItem(Optional.of("a"), 0);
+
+        // a miss then the put of the loaded item is one access
+        getOrPut(cache, "a");
+        assertThat(cache.frequency("a")).isEqualTo(1);
+
+        // a hit, and the refresh of a present key is not counted
+        getOrPut(cache, "a");
+        cache.put(null, "a", item);
+        assertThat(cache.frequency("a")).isEqualTo(2);
+
+        // the loader putting the item itself is counted only once
+        cache.get(null, "b", new Callable<WestCacheItem>() {
+            @Override public WestCacheItem call() {
+                cache.put(null, "b", item);
+                return item;
+            }
+        });
+        assertThat(cache.frequency("b")).isEqualTo(1);
+    }
+
+    @Test
+    public void stripedSegments() {
+        assertThat(new TinyLfuWestCache(100).segmentCount()).isEqualTo(1);
+
+        val cache = new TinyLfuWestCache(TinyLfuCacheManager.DEFAULT_MAXIMUM_SIZE);
+        assertThat(cache.segmentCount()).isEqualTo(TinyLfuWestCache.MAX_SEGMENTS);
+        for (int i = 0; i < 1000; ++i) {
+            getOrPut(cache, "key" + i);
+        }
+        assertThat(cache.size()).isEqualTo(1000);
+    }
+
+    @Test
+    public void cacheAndInvalidate() {
+        final TinyLfuService service = WestCacheFactory.create(TinyLfuService.class);
+        assertThat(service.find("a")).isEqualTo("a-1");
+        assertThat(service.find("a")).isEqualTo("a-1");
+
+        WestCacheConnector.clearCache(new Runnable() {
+            @Override public void run() {
+                service.find("a");
+            }
+        });
+        assertThat(service.find("a")).isEqualTo("a-2");
+    }
+
+    private static void getOrPut(TinyLfuWestCache cache, String key) {
+        if (cache.getIfPresent(null, key) != null) return;
+        cache.put(null, key, new WestCacheItem(Optional.of(key), 0));
+    }
+}
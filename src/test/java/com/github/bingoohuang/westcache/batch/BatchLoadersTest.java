@@ -0,0 +1,108 @@
+package com.github.bingoohuang.westcache.batch;
+
+import com.github.bingoohuang.westcache.WestCacheFactory;
+import com.github.bingoohuang.westcache.WestCacheable;
+import com.google.common.util.concurrent.ListenableFuture;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.bingoohuang.westcache.WestCacheRegistry.BATCH_LOADER_REGISTRY;
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class BatchLoadersTest {
+    public static class UserService {
+        @WestCacheable(specs = "batchLoader=userBatchLoader;batchWaitMillis=100;batchWaitItems=8")
+        public String findUser(String userId) {
+            throw new UnsupportedOperationException("should be loaded in batch");
+        }
+
+        @WestCacheable(specs = "batchLoader=userBatchLoader;batchWaitMillis=100;batchWaitItems=4")
+        public ListenableFuture<String> findUserAsync(String userId) {
+            throw new UnsupportedOperationException("should be loaded in batch");
+        }
+    }
+
+    static AtomicInteger batchCalls = new AtomicInteger();
+    static UserService service;
+
+    @BeforeClass
+    public static void beforeClass() {
+        BATCH_LOADER_REGISTRY.register("userBatchLoader", new BatcherJob<String, String>() {
+            @Override public List<String> doBatchJob(List<String> batchArgs) {
+                batchCalls.incrementAndGet();
+                val results = new ArrayList<String>(batchArgs.size());
+                for (val userId : batchArgs) {
+                    results.add("user-" + userId);
+                }
+                return results;
+            }
+        });
+        service = WestCacheFactory.create(UserService.class);
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        BATCH_LOADER_REGISTRY.deregister("userBatchLoader");
+    }
+
+    @Test @SneakyThrows
+    public void concurrentMissesInOneBatch() {
+        batchCalls.set(0);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<String> users = new ArrayList<String>();
+        val threads = new ArrayList<Thread>();
+        for (int i = 0; i < 8; ++i) {
+            final String userId = "" + i;
+            val thread = new Thread(new Runnable() {
+                @SneakyThrows @Override public void run() {
+                    start.await();
+                    val user = service.findUser(userId);
+                    synchronized (users) {
+                        users.add(user);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+        for (val thread : threads) thread.join();
+
+        assertThat(users).containsExactly("user-0", "user-1", "user-2", "user-3",
+                "user-4", "user-5", "user-6", "user-7");
+        assertThat(batchCalls.get()).isLessThan(3);
+
+        // each result populates its own cache entry
+        int calls = batchCalls.get();
+        assertThat(service.findUser("3")).isEqualTo("user-3");
+        assertThat(batchCalls.get()).isEqualTo(calls);
+    }
+
+    @Test @SneakyThrows
+    public void asyncMissesInOneBatch() {
+        batchCalls.set(0);
+        val futures = new ArrayList<ListenableFuture<String>>();
+        for (int i = 0; i < 4; ++i) {
+            futures.add(service.findUserAsync("a" + i));
+        }
+
+        for (int i = 0; i < 4; ++i) {
+            assertThat(futures.get(i).get()).isEqualTo("user-a" + i);
+        }
+        assertThat(batchCalls.get()).isEqualTo(1);
+        assertThat(service.findUserAsync("a2").get()).isEqualTo("user-a2");
+        assertThat(batchCalls.get()).isEqualTo(1);
+    }
+}
@@ -1,13 +1,19 @@
 package com.github.bingoohuang.westcache.batch;
 
 import com.github.bingoohuang.westcache.WestCacheFactory;
+import com.github.bingoohuang.westcache.utils.Envs;
 import lombok.SneakyThrows;
 import lombok.val;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.google.common.truth.Truth.assertThat;
 
@@ -68,6 +74,143 @@ public class BatchTest {
         assertEx(token3, "dingoo here");
     }
 
+    @Test @SneakyThrows
+    public void rejectWhenFull() {
+        final CountDownLatch release = new CountDownLatch(1);
+        val batcher = BatcherBuilder.newBuilder(new BatcherJob<String, String>() {
+            @SneakyThrows @Override
+            public List<String> doBatchJob(List<String> batchArgs) {
+                release.await();
+                return batchArgs;
+            }
+        }).maxWaitItems(1).maxWaitMillis(10000)
+                .queueCapacity(2).fullPolicy(BatcherFullPolicy.REJECT).build();
+
+        // the first one is drained into the blocked job
+        val first = batcher.submit("a");
+        while (batcher.size() > 0) Thread.yield();
+
+        batcher.submit("b");
+        batcher.submit("c");
+        try {
+            batcher.submit("d");
+            Assert.fail();
+        } catch (RejectedExecutionException ex) {
+            assertThat(ex.getMessage()).contains("full");
+        }
+
+        release.countDown();
+        assertThat(first.get()).isEqualTo("a");
+    }
+
+    @Test @SneakyThrows
+    public void singleDrainer() {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final Batcher<Integer, Integer> batcher = BatcherBuilder.newBuilder(
+                new BatcherJob<Integer, Integer>() {
+                    @Override
+                    public List<Integer> doBatchJob(List<Integer> batchArgs) {
+                        int current = running.incrementAndGet();
+                        if (current > maxRunning.get()) maxRunning.set(current);
+                        Envs.sleepMillis(1);
+                        running.decrementAndGet();
+                        return batchArgs;
+                    }
+                }).maxWaitItems(4).maxWaitMillis(50).queueCapacity(16).build();
+
+        val futures = new ArrayList<Future<Integer>>();
+        val threads = new ArrayList<Thread>();
+        for (int i = 0; i < 4; ++i) {
+            final int base = i * 100;
+            val thread = new Thread(new Runnable() {
+                @Override public void run() {
+                    for (int j = 0; j < 100; ++j) {
+                        val future = batcher.submit(base + j);
+                        synchronized (futures) {
+                            futures.add(future);
+                        }
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (val thread : threads) thread.join();
+
+        int sum = 0;
+        for (val future : futures) sum += future.get();
+        assertThat(sum).isEqualTo(399 * 400 / 2);
+        assertThat(maxRunning.get()).isEqualTo(1);
+    }
+
+    @Test @SneakyThrows
+    public void adaptiveWithoutNeedlessWait() {
+        val batcher = BatcherBuilder.newBuilder(new BatcherJob<String, String>() {
+            @Override public List<String> doBatchJob(List<String> batchArgs) {
+                return batchArgs;
+            }
+        }).maxWaitItems(10).maxWaitMillis(300).targetLatencyMillis(20).build();
+
+        // light load does not wait for 10 items or 300 millis
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 5; ++i) {
+            assertThat(batcher.submit("a" + i).get()).isEqualTo("a" + i);
+        }
+        assertThat(System.currentTimeMillis() - start).isLessThan(300L);
+
+        val stats = batcher.getStats();
+        assertThat(stats.getBatchSizes().getCount()).isEqualTo(5L);
+        assertThat(stats.getBatchSizes().snapshot().getPercentile(100)).isEqualTo(1L);
+        assertThat(stats.getQueueDelays().getCount()).isEqualTo(5L);
+        assertThat(stats.getJobTimes().getCount()).isEqualTo(5L);
+    }
+
+    @Test @SneakyThrows
+    public void closeDrainsAndRejects() {
+        val batcher = BatcherBuilder.newBuilder(new BatcherJob<String, String>() {
+            @Override public List<String> doBatchJob(List<String> batchArgs) {
+                return batchArgs;
+            }
+        }).maxWaitItems(10).maxWaitMillis(10000).build();
+
+        val waiting = batcher.submit("a");
+        assertThat(waiting.isDone()).isFalse();
+
+        batcher.close();
+        assertThat(waiting.get()).isEqualTo("a");
+        try {
+            batcher.submit("b");
+            Assert.fail();
+        } catch (RejectedExecutionException ex) {
+            assertThat(ex.getMessage()).contains("closed");
+        }
+    }
+
+    @Test @SneakyThrows
+    public void closedAfterOwnerCollected() {
+        Object owner = new Object();
+        val batcher = BatcherBuilder.newBuilder(new BatcherJob<String, String>() {
+            @Override public List<String> doBatchJob(List<String> batchArgs) {
+                return batchArgs;
+            }
+        }).maxWaitItems(10).maxWaitMillis(20).owner(owner).build();
+        assertThat(batcher.submit("a").get()).isEqualTo("a");
+
+        owner = null;
+        boolean closed = false;
+        for (int i = 0; i < 100 && !closed; ++i) {
+            System.gc();
+            Envs.sleepMillis(20);
+            try {
+                assertThat(batcher.submit("b" + i).get()).isEqualTo("b" + i);
+            } catch (RejectedExecutionException ex) {
+                closed = true;
+            }
+        }
+        assertThat(closed).isTrue();
+    }
+
     @SneakyThrows
     private void assertEx(Future<String> token, String expected) {
         try {
@@ -0,0 +1,60 @@
+package com.github.bingoohuang.westcache.batch;
+
+import lombok.val;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class BatchTunerTest {
+    static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void lightLoadWithoutLinger() {
+        val tuner = new BatchTuner(20, 300, 100);
+        assertThat(tuner.waitItems).isEqualTo(1);
+        assertThat(tuner.lingerNanos).isEqualTo(0L);
+
+        // one argument in each 100ms, the job takes 5ms
+        long now = System.nanoTime();
+        for (int i = 1; i <= 10; ++i) {
+            tuner.record(1, 5 * MILLIS, now + i * 100 * MILLIS);
+        }
+
+        assertThat(tuner.waitItems).isEqualTo(1);
+        assertThat(tuner.lingerNanos).isEqualTo(15 * MILLIS);
+    }
+
+    @Test
+    public void heavyLoadWithLargerBatches() {
+        val tuner = new BatchTuner(20, 300, 100);
+
+        // 5000 arguments in each 100ms (50 per milli), the job takes 10ms
+        long now = System.nanoTime();
+        for (int i = 1; i <= 20; ++i) {
+            tuner.record(5000, 10 * MILLIS, now + i * 100 * MILLIS);
+        }
+
+        // 10ms linger gathers about 500 arguments, bounded by 100
+        assertThat(tuner.lingerNanos).isEqualTo(10 * MILLIS);
+        assertThat(tuner.waitItems).isEqualTo(100);
+    }
+
+    @Test
+    public void slowJobWithoutLinger() {
+        val tuner = new BatchTuner(20, 300, 100);
+
+        long now = System.nanoTime();
+        for (int i = 1; i <= 10; ++i) {
+            tuner.record(1000, 50 * MILLIS, now + i * 100 * MILLIS);
+        }
+
+        // the job alone exceeds the target, so no more lingering
+        assertThat(tuner.lingerNanos).isEqualTo(0L);
+        assertThat(tuner.waitItems).isEqualTo(1);
+    }
+}
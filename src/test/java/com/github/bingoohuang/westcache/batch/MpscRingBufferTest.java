@@ -0,0 +1,75 @@
+package com.github.bingoohuang.westcache.batch;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class MpscRingBufferTest {
+    @Test
+    public void offerPoll() {
+        val buffer = new MpscRingBuffer<String>(3);
+        assertThat(buffer.capacity()).isEqualTo(4);
+        assertThat(buffer.poll()).isNull();
+
+        for (int round = 0; round < 3; ++round) {
+            for (int i = 0; i < 4; ++i) {
+                assertThat(buffer.offer("v" + i)).isTrue();
+            }
+            assertThat(buffer.offer("full")).isFalse();
+            assertThat(buffer.size()).isEqualTo(4);
+
+            for (int i = 0; i < 4; ++i) {
+                assertThat(buffer.poll()).isEqualTo("v" + i);
+            }
+            assertThat(buffer.poll()).isNull();
+            assertThat(buffer.isEmpty()).isTrue();
+        }
+    }
+
+    @Test @SneakyThrows
+    public void multipleProducers() {
+        final int producers = 8, perProducer = 10000;
+        final MpscRingBuffer<Integer> buffer = new MpscRingBuffer<Integer>(64);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < producers; ++i) {
+            final int base = i * perProducer;
+            val thread = new Thread(new Runnable() {
+                @SneakyThrows @Override public void run() {
+                    start.await();
+                    for (int j = 0; j < perProducer; ++j) {
+                        while (!buffer.offer(base + j)) Thread.yield();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+        val received = new BitSet(producers * perProducer);
+        int count = 0;
+        while (count < producers * perProducer) {
+            val e = buffer.poll();
+            if (e == null) continue;
+
+            assertThat(received.get(e)).isFalse();
+            received.set(e);
+            ++count;
+        }
+
+        for (val thread : threads) thread.join();
+        assertThat(received.cardinality()).isEqualTo(producers * perProducer);
+        assertThat(buffer.poll()).isNull();
+    }
+}
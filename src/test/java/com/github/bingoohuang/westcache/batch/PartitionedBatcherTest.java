@@ -0,0 +1,103 @@
+package com.github.bingoohuang.westcache.batch;
+
+import com.github.bingoohuang.westcache.utils.Envs;
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.ListenableFuture;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class PartitionedBatcherTest {
+    static final Function<String, String> TENANT = new Function<String, String>() {
+        @Override public String apply(String arg) {
+            return arg.substring(0, arg.indexOf(':'));
+        }
+    };
+
+    final List<List<String>> batches = new CopyOnWriteArrayList<List<String>>();
+
+    PartitionedBatcher<String, String> createBatcher(int partitions, int waitItems) {
+        return BatcherBuilder.newBuilder(new BatcherJob<String, String>() {
+            @Override public List<String> doBatchJob(List<String> batchArgs) {
+                batches.add(new ArrayList<String>(batchArgs));
+                if (batchArgs.get(0).startsWith("slow:")) Envs.sleepMillis(1000);
+
+                val results = new ArrayList<String>(batchArgs.size());
+                for (val arg : batchArgs) results.add("v-" + arg);
+                return results;
+            }
+        }).maxWaitItems(waitItems).maxWaitMillis(1000).dedupe(true)
+                .partitions(partitions).partitionKey(TENANT).buildPartitioned();
+    }
+
+    @Test
+    public void routeByPartitionKey() {
+        val batcher = createBatcher(16, 1);
+        assertThat(batcher.getPartitionCount()).isEqualTo(16);
+        assertThat(batcher.partitionOf("t1:a")).isEqualTo(batcher.partitionOf("t1:b"));
+        assertThat(batcher.partitionOf("t1:a")).isAtLeast(0);
+        assertThat(batcher.partitionOf("t1:a")).isLessThan(16);
+    }
+
+    @Test @SneakyThrows
+    public void closeAllPartitions() {
+        val batcher = createBatcher(4, 10);
+        val a = batcher.submit("t1:a");
+        val b = batcher.submit("t2:b");
+
+        batcher.close();
+        assertThat(a.get()).isEqualTo("v-t1:a");
+        assertThat(b.get()).isEqualTo("v-t2:b");
+        assertThat(batcher.size()).isEqualTo(0);
+    }
+
+    @Test @SneakyThrows
+    public void slowPartitionNotBlockingOthers() {
+        val batcher = createBatcher(8, 1);
+        int slowPartition = batcher.partitionOf("slow:a");
+        String fastTenant = null;
+        for (int i = 0; fastTenant == null; ++i) {
+            if (batcher.partitionOf("t" + i + ":a") != slowPartition) fastTenant = "t" + i;
+        }
+
+        val slow = batcher.submit("slow:a");
+        Envs.sleepMillis(100); // the slow batch is in progress
+
+        long start = System.currentTimeMillis();
+        assertThat(batcher.submit(fastTenant + ":a").get(500, TimeUnit.MILLISECONDS))
+                .isEqualTo("v-" + fastTenant + ":a");
+        assertThat(System.currentTimeMillis() - start).isLessThan(500L);
+        assertThat(slow.isDone()).isFalse();
+        assertThat(slow.get()).isEqualTo("v-slow:a");
+    }
+
+    @Test @SneakyThrows
+    public void dedupeInBatch() {
+        val batcher = createBatcher(1, 6);
+        val futures = new ArrayList<ListenableFuture<String>>();
+        for (val arg : new String[]{"t:a", "t:b", "t:a", "t:a", "t:b", "t:c"}) {
+            futures.add(batcher.submit(arg));
+        }
+
+        assertThat(futures.get(0).get()).isEqualTo("v-t:a");
+        assertThat(futures.get(1).get()).isEqualTo("v-t:b");
+        assertThat(futures.get(2).get()).isEqualTo("v-t:a");
+        assertThat(futures.get(3).get()).isEqualTo("v-t:a");
+        assertThat(futures.get(4).get()).isEqualTo("v-t:b");
+        assertThat(futures.get(5).get()).isEqualTo("v-t:c");
+
+        // the six arguments are in one batch, and the origin sees each once
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).containsExactly("t:a", "t:b", "t:c").inOrder();
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.bingoohuang.westcache.bench;
+
+import lombok.val;
+import org.junit.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Guard the allocations of the cache hit path by the gc profiler of JMH.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class AllocationTest {
+    @Test
+    public void managerHitAllocatesNothing() throws RunnerException {
+        assertThat(allocatedBytesPerOp("managerHit")).isLessThan(8.0);
+    }
+
+    /*
+     * The key of 36 chars costs the builder of 64 chars (24 + 144 bytes)
+     * and the string (24 + 88 bytes) on 64-bit JVM with compressed oops.
+     */
+    @Test
+    public void proxyHitAllocatesKeyOnly() throws RunnerException {
+        assertThat(allocatedBytesPerOp("proxyHit")).isLessThan(320.0);
+    }
+
+    private double allocatedBytesPerOp(String benchmark) throws RunnerException {
+        val options = new OptionsBuilder()
+                .include(HitPathBenchmark.class.getName() + "." + benchmark + "$")
+                .param("manager", "default")
+                .forks(0)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.milliseconds(200))
+                .measurementIterations(3)
+                .measurementTime(TimeValue.milliseconds(200))
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        val result = new Runner(options).runSingle();
+        val norm = result.getSecondaryResults().get("\u00b7gc.alloc.rate.norm");
+        return norm.getScore();
+    }
+}
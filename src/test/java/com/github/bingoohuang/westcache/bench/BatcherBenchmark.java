@@ -0,0 +1,49 @@
+package com.github.bingoohuang.westcache.bench;
+
+import com.github.bingoohuang.westcache.batch.Batcher;
+import com.github.bingoohuang.westcache.batch.BatcherBuilder;
+import com.github.bingoohuang.westcache.batch.BatcherJob;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the batcher from submitting an argument to getting its result,
+ * by 1, 8 and 64 producer threads, with the fixed or the adaptive batching.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput) @OutputTimeUnit(TimeUnit.SECONDS)
+public class BatcherBenchmark {
+    @Param({"0", "5"}) long targetLatencyMillis; // 0 for the fixed batching
+
+    Batcher<String, String> batcher;
+
+    @Setup
+    public void setup() {
+        batcher = new BatcherBuilder<String, String>(new BatcherJob<String, String>() {
+            @Override public List<String> doBatchJob(List<String> batchArgs) {
+                return batchArgs;
+            }
+        }).maxWaitItems(64).maxWaitMillis(1)
+                .targetLatencyMillis(targetLatencyMillis).build();
+    }
+
+    @Benchmark @Threads(1)
+    public String submit1() throws ExecutionException, InterruptedException {
+        return batcher.submit("bingoo").get();
+    }
+
+    @Benchmark @Threads(8)
+    public String submit8() throws ExecutionException, InterruptedException {
+        return batcher.submit("bingoo").get();
+    }
+
+    @Benchmark @Threads(64)
+    public String submit64() throws ExecutionException, InterruptedException {
+        return batcher.submit("bingoo").get();
+    }
+}
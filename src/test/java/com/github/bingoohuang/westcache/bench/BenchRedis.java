@@ -0,0 +1,28 @@
+package com.github.bingoohuang.westcache.bench;
+
+import com.github.bingoohuang.westcache.utils.EmbeddedRedis;
+import com.github.bingoohuang.westcache.utils.Redis;
+import lombok.SneakyThrows;
+import redis.embedded.RedisServer;
+
+/**
+ * Embedded redis for the benchmarks in the forked JVMs,
+ * connected by a pooled jedis which is safe for multiple threads.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+class BenchRedis {
+    private RedisServer redisServer;
+
+    @SneakyThrows
+    void start() {
+        int port = EmbeddedRedis.getRandomPort();
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        Redis.setJedis(Redis.createJedisCommands("127.0.0.1", port, 64));
+    }
+
+    void stop() {
+        if (redisServer != null) redisServer.stop();
+    }
+}
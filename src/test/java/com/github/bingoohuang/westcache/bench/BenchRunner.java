@@ -0,0 +1,34 @@
+package com.github.bingoohuang.westcache.bench;
+
+import lombok.val;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the westcache benchmarks with forked JVMs and the GC profiler.
+ * <p>
+ * mvn -Pbench test -Dbench.include=ManagerBenchmark -Dbench.forks=1
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class BenchRunner {
+    public static void main(String[] args) throws RunnerException {
+        val include = args.length > 0 && args[0].length() > 0
+                ? args[0] : BenchRunner.class.getPackage().getName() + ".*Benchmark";
+
+        val options = new OptionsBuilder()
+                .include(include)
+                .forks(Integer.getInteger("bench.forks", 1))
+                .warmupIterations(Integer.getInteger("bench.warmups", 5))
+                .measurementIterations(Integer.getInteger("bench.iterations", 5))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(System.getProperty("bench.result", "target/jmh-result.json"))
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.bingoohuang.westcache.bench;
+
+import com.github.bingoohuang.westcache.flusher.DirectValueType;
+import com.github.bingoohuang.westcache.flusher.TableBasedCacheFlusher;
+import com.github.bingoohuang.westcache.flusher.WestCacheFlusherBean;
+import com.github.bingoohuang.westcache.utils.WestCacheOption;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flusher bean lookup of the table based flusher for every cache access,
+ * by the number of the table rows.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FlusherBenchmark {
+    @Param({"10", "1000", "100000"})
+    int rows;
+
+    RowsFlusher flusher;
+    String lastKey;
+
+    @Setup
+    public void setup() {
+        List<WestCacheFlusherBean> beans = new ArrayList<WestCacheFlusherBean>(rows);
+        for (int i = 0; i < rows; ++i) {
+            String keyMatch = i % 10 == 0
+                    ? TableBasedCacheFlusher.PREFIX : TableBasedCacheFlusher.FULL;
+            beans.add(new WestCacheFlusherBean("bench.key." + i, keyMatch, 0, "none", ""));
+        }
+        lastKey = "bench.key." + (rows - 1);
+
+        flusher = new RowsFlusher(beans);
+        flusher.load(WestCacheOption.newBuilder().build());
+    }
+
+    @Benchmark
+    public WestCacheFlusherBean findFullKey() {
+        return flusher.lookup(lastKey);
+    }
+
+    @Benchmark
+    public WestCacheFlusherBean findMissingKey() {
+        return flusher.lookup("bench.missing");
+    }
+
+    static class RowsFlusher extends TableBasedCacheFlusher {
+        final List<WestCacheFlusherBean> beans;
+
+        RowsFlusher(List<WestCacheFlusherBean> beans) {
+            this.beans = beans;
+        }
+
+        void load(WestCacheOption option) {
+            checkBeans(option, "bench");
+        }
+
+        WestCacheFlusherBean lookup(String cacheKey) {
+            return findBean(cacheKey);
+        }
+
+        @Override protected List<WestCacheFlusherBean> queryAllBeans() {
+            return beans;
+        }
+
+        @Override protected Object readDirectValue(WestCacheOption option,
+                                                   WestCacheFlusherBean bean,
+                                                   DirectValueType type) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.bingoohuang.westcache.bench;
+
+import com.github.bingoohuang.westcache.WestCacheFactory;
+import com.github.bingoohuang.westcache.WestCacheable;
+import com.github.bingoohuang.westcache.base.WestCacheItem;
+import com.github.bingoohuang.westcache.manager.BaseCacheManager;
+import com.github.bingoohuang.westcache.utils.WestCacheOption;
+import com.google.common.base.Optional;
+import lombok.SneakyThrows;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache hits of the in process managers, which should allocate nothing
+ * except the cache key, see {@link AllocationTest}.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HitPathBenchmark {
+    public static class HitService {
+        @WestCacheable(keyer = "simple")
+        public String getValue() {
+            return "bingoo";
+        }
+    }
+
+    @Param({"default", "expiring"})
+    String manager;
+
+    WestCacheOption option;
+    BaseCacheManager cacheManager;
+    Callable<WestCacheItem> loader;
+    HitService service;
+
+    @Setup @SneakyThrows
+    public void setup() {
+        option = WestCacheOption.newBuilder().manager(manager)
+                .method(HitService.class.getMethod("getValue")).build();
+        cacheManager = (BaseCacheManager) option.getManager();
+        final WestCacheItem item = new WestCacheItem(Optional.of("bingoo"), option);
+        loader = new Callable<WestCacheItem>() {
+            @Override public WestCacheItem call() {
+                return item;
+            }
+        };
+        cacheManager.put(option, "bench.hitpath", item);
+
+        service = WestCacheFactory.create(HitService.class);
+        service.getValue();
+    }
+
+    @Benchmark
+    public WestCacheItem managerHit() {
+        return cacheManager.get(option, "bench.hitpath", loader);
+    }
+
+    @Benchmark
+    public WestCacheItem tryHit() {
+        return cacheManager.tryHit(option, "bench.hitpath");
+    }
+
+    @Benchmark
+    public String proxyHit() {
+        return service.getValue();
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.bingoohuang.westcache.bench;
+
+import com.github.bingoohuang.westcache.utils.WestCacheOption;
+import lombok.SneakyThrows;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache key creation by every keyer without the diamond configuration.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class KeyerBenchmark {
+    @Param({"default", "simple"})
+    String keyer;
+
+    WestCacheOption option;
+    Method method;
+    Object[] args = {"bingoo", 1024};
+
+    public String getValue(String name, int age) {
+        return name + age;
+    }
+
+    @Setup @SneakyThrows
+    public void setup() {
+        method = KeyerBenchmark.class.getMethod("getValue", String.class, int.class);
+        option = WestCacheOption.newBuilder().keyer(keyer).method(method).build();
+    }
+
+    @Benchmark
+    public String cacheKey() {
+        return option.getKeyer().getCacheKey(option, method, this, args);
+    }
+}
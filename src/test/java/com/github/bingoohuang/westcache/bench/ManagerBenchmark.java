@@ -0,0 +1,67 @@
+package com.github.bingoohuang.westcache.bench;
+
+import com.github.bingoohuang.westcache.base.WestCacheItem;
+import com.github.bingoohuang.westcache.base.WestCacheManager;
+import com.github.bingoohuang.westcache.utils.WestCacheOption;
+import com.google.common.base.Optional;
+import lombok.SneakyThrows;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hit and miss latency of every manager, the redis one on an embedded redis.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ManagerBenchmark {
+    @Param({"default", "tinylfu", "expiring", "file", "redis"})
+    String manager;
+
+    WestCacheOption option;
+    WestCacheManager cacheManager;
+    WestCacheItem item;
+    Callable<WestCacheItem> loader;
+    BenchRedis redis = new BenchRedis();
+
+    public String getValue() {
+        return "bingoo";
+    }
+
+    @Setup @SneakyThrows
+    public void setup() {
+        if ("redis".equals(manager)) redis.start();
+
+        option = WestCacheOption.newBuilder().manager(manager)
+                .method(ManagerBenchmark.class.getMethod("getValue")).build();
+        cacheManager = option.getManager();
+        item = new WestCacheItem(Optional.of(getValue()), option);
+        loader = new Callable<WestCacheItem>() {
+            @Override public WestCacheItem call() {
+                return item;
+            }
+        };
+        cacheManager.put(option, "bench.hit", item);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cacheManager.invalidate(option, "bench.hit", "");
+        cacheManager.invalidate(option, "bench.miss", "");
+        redis.stop();
+    }
+
+    @Benchmark
+    public WestCacheItem hit() {
+        return cacheManager.get(option, "bench.hit", loader);
+    }
+
+    @Benchmark
+    public WestCacheItem miss() {
+        cacheManager.invalidate(option, "bench.miss", "");
+        return cacheManager.get(option, "bench.miss", loader);
+    }
+}
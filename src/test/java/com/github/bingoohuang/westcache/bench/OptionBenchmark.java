@@ -0,0 +1,44 @@
+package com.github.bingoohuang.westcache.bench;
+
+import com.github.bingoohuang.westcache.WestCacheable;
+import com.github.bingoohuang.westcache.utils.Anns;
+import com.github.bingoohuang.westcache.utils.WestCacheOption;
+import lombok.SneakyThrows;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Option resolution of the annotated method on every invocation,
+ * the cached one used by the interceptors and the raw annotation parsing.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OptionBenchmark {
+    public static class OptionService {
+        @WestCacheable(manager = "expiring", keyer = "simple", specs = "expireAfterWrite=1m")
+        public String getValue() {
+            return "bingoo";
+        }
+    }
+
+    Method method;
+
+    @Setup @SneakyThrows
+    public void setup() {
+        method = OptionService.class.getMethod("getValue");
+    }
+
+    @Benchmark
+    public WestCacheOption cached() {
+        return WestCacheOption.parseWestCacheable(method);
+    }
+
+    @Benchmark
+    public Object annotationParse() {
+        return Anns.parseWestCacheable(method, WestCacheable.class);
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.bingoohuang.westcache.bench;
+
+import com.github.bingoohuang.westcache.WestCacheFactory;
+import com.github.bingoohuang.westcache.WestCacheable;
+import com.github.bingoohuang.westcache.spring.WestCacheableInterceptor;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cached invocation through the cglib proxy and the spring aop proxy,
+ * compared with the raw invocation without cache.
+ *
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProxyBenchmark {
+    public static class ProxyService {
+        @WestCacheable
+        public String getValue(String name) {
+            return "hello " + name;
+        }
+    }
+
+    ProxyService raw;
+    ProxyService cglib;
+    ProxyService spring;
+
+    @Setup
+    public void setup() {
+        raw = new ProxyService();
+        cglib = WestCacheFactory.create(ProxyService.class);
+
+        ProxyFactory proxyFactory = new ProxyFactory(new ProxyService());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new WestCacheableInterceptor());
+        spring = (ProxyService) proxyFactory.getProxy();
+    }
+
+    @Benchmark
+    public String raw() {
+        return raw.getValue("bingoo");
+    }
+
+    @Benchmark
+    public String cglib() {
+        return cglib.getValue("bingoo");
+    }
+
+    @Benchmark
+    public String spring() {
+        return spring.getValue("bingoo");
+    }
+}
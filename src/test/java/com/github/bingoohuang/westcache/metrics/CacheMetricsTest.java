@@ -0,0 +1,111 @@
+package com.github.bingoohuang.westcache.metrics;
+
+import com.github.bingoohuang.westcache.WestCacheFactory;
+import com.github.bingoohuang.westcache.WestCacheable;
+import com.github.bingoohuang.westcache.utils.WestCacheOption;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class CacheMetricsTest {
+    public static class MetricsService {
+        @WestCacheable
+        public String getName(String id) {
+            if ("bad".equals(id)) throw new IllegalArgumentException(id);
+            return "name:" + id;
+        }
+
+        @WestCacheable
+        public String getName(String id, int index) {
+            return "name:" + id + index;
+        }
+    }
+
+    @SneakyThrows
+    static WestCacheOption getOption() {
+        val method = MetricsService.class.getMethod("getName", String.class);
+        return WestCacheOption.parseWestCacheable(method);
+    }
+
+    @Test
+    public void stats() {
+        val service = WestCacheFactory.create(MetricsService.class);
+        service.getName("bingoo");
+        service.getName("bingoo");
+        service.getName("huang");
+        try {
+            service.getName("bad");
+        } catch (IllegalArgumentException ex) {
+            // expected
+        }
+
+        val option = getOption();
+        val stats = CacheMetrics.getStats(option);
+        assertThat(stats.getName()).isEqualTo(
+                MetricsService.class.getName() + ".getName(String)");
+        assertThat(stats.getHitCount()).isEqualTo(1L);
+        assertThat(stats.getMissCount()).isEqualTo(2L);
+        assertThat(stats.getLoadCount()).isEqualTo(3L);
+        assertThat(stats.getLoadFailureCount()).isEqualTo(1L);
+        assertThat(stats.getLoadP99Millis()).isAtLeast(0.0);
+        assertThat(stats.getHitLatency().getCount()).isEqualTo(1L);
+        assertThat(stats.getMissLatency().getCount()).isEqualTo(2L);
+
+        option.getManager().invalidate(option, "bingoo", null);
+        assertThat(stats.getEvictionCount()).isEqualTo(1L);
+        assertThat(CacheMetrics.getAllStats()).contains(stats);
+    }
+
+    @Test @SneakyThrows
+    public void overloadedNames() {
+        val method = MetricsService.class.getMethod("getName", String.class, int.class);
+        val option = WestCacheOption.parseWestCacheable(method);
+        assertThat(CacheMetrics.getName(option)).isEqualTo(
+                MetricsService.class.getName() + ".getName(String,int)");
+        assertThat(CacheMetrics.getName(option)).isNotEqualTo(CacheMetrics.getName(getOption()));
+    }
+
+    @Test @SneakyThrows
+    public void jmx() {
+        val stats = new CacheStats("CacheMetricsTest.jmx");
+        stats.recordHit();
+        stats.recordMiss();
+        stats.recordLoadSuccess(2000000L);
+
+        val reporter = new JmxCacheStatsReporter();
+        reporter.report(Arrays.asList(stats));
+
+        val server = ManagementFactory.getPlatformMBeanServer();
+        val objectName = JmxCacheStatsReporter.createObjectName(stats.getName());
+        assertThat(server.getAttribute(objectName, "HitCount")).isEqualTo(1L);
+        assertThat(server.getAttribute(objectName, "HitRatio")).isEqualTo(0.5);
+
+        reporter.close();
+        assertThat(server.isRegistered(objectName)).isFalse();
+    }
+
+    @Test
+    public void stripedCounter() throws InterruptedException {
+        final StripedCounter counter = new StripedCounter();
+        val threads = new Thread[8];
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i] = new Thread(new Runnable() {
+                @Override public void run() {
+                    for (int j = 0; j < 10000; ++j) counter.increment();
+                }
+            });
+            threads[i].start();
+        }
+        for (val thread : threads) thread.join();
+
+        assertThat(counter.sum()).isEqualTo(80000L);
+    }
+}
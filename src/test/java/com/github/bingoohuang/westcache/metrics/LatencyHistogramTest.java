@@ -0,0 +1,81 @@
+package com.github.bingoohuang.westcache.metrics;
+
+import lombok.val;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class LatencyHistogramTest {
+    @Test
+    public void bucketBounds() {
+        for (long value : new long[]{0, 1, 31, 32, 63, 64, 1000, 123456789L, 1L << 36}) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertThat(LatencyHistogram.bucketUpperBound(index)).isAtLeast(value);
+            assertThat(LatencyHistogram.bucketUpperBound(index) - value).isAtMost(value / 32);
+        }
+
+        assertThat(LatencyHistogram.bucketIndex(Long.MAX_VALUE))
+                .isEqualTo(LatencyHistogram.BUCKETS - 1);
+    }
+
+    @Test
+    public void percentiles() {
+        val histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; ++i) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+
+        val snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount()).isEqualTo(1000L);
+        assertThat(snapshot.getPercentileMillis(50)).isWithin(0.5 * 0.04).of(0.5);
+        assertThat(snapshot.getPercentileMillis(99)).isWithin(0.99 * 0.04).of(0.99);
+        assertThat(snapshot.getPercentileMillis(99.9)).isWithin(0.999 * 0.04).of(0.999);
+        assertThat(snapshot.getMeanMillis()).isWithin(0.001).of(0.5005);
+
+        // the getters read in place the same values as the snapshot
+        assertThat(histogram.getCount()).isEqualTo(1000L);
+        assertThat(histogram.getMeanMillis()).isWithin(0.000001).of(snapshot.getMeanMillis());
+        for (double percentile : new double[]{50, 99, 99.9, 100}) {
+            assertThat(histogram.getPercentileMillis(percentile))
+                    .isWithin(0.000001).of(snapshot.getPercentileMillis(percentile));
+        }
+        assertThat(new LatencyHistogram().getPercentileMillis(99)).isWithin(0.0).of(0.0);
+    }
+
+    @Test
+    public void intervalSnapshot() {
+        val histogram = new LatencyHistogram();
+        histogram.record(1000);
+        histogram.record(2000);
+        assertThat(histogram.intervalSnapshot().getCount()).isEqualTo(2L);
+
+        histogram.record(3000);
+        val interval = histogram.intervalSnapshot();
+        assertThat(interval.getCount()).isEqualTo(1L);
+        assertThat(interval.getMeanMillis()).isWithin(0.0001).of(0.003);
+        assertThat(histogram.intervalSnapshot().getCount()).isEqualTo(0L);
+        assertThat(histogram.getCount()).isEqualTo(3L);
+    }
+
+    @Test
+    public void concurrentRecord() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        val threads = new Thread[8];
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i] = new Thread(new Runnable() {
+                @Override public void run() {
+                    for (int j = 0; j < 10000; ++j) histogram.record(j);
+                }
+            });
+            threads[i].start();
+        }
+        for (val thread : threads) thread.join();
+
+        assertThat(histogram.getCount()).isEqualTo(80000L);
+    }
+}
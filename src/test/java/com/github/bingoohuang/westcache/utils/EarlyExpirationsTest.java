@@ -0,0 +1,146 @@
+package com.github.bingoohuang.westcache.utils;
+
+import com.github.bingoohuang.westcache.WestCacheFactory;
+import com.github.bingoohuang.westcache.WestCacheable;
+import com.github.bingoohuang.westcache.base.WestCacheException;
+import com.github.bingoohuang.westcache.base.WestCacheItem;
+import com.github.bingoohuang.westcache.manager.BaseCacheManager;
+import com.github.bingoohuang.westcache.manager.ExpireAfterWritableWestCacheAdaptor;
+import com.github.bingoohuang.westcache.manager.GuavaCacheManager;
+import com.google.common.base.Optional;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class EarlyExpirationsTest {
+    public static class EarlyService {
+        AtomicInteger calls = new AtomicInteger();
+
+        @WestCacheable(specs = "expireAfterWrite=10s;earlyRefreshBeta=10000000")
+        public String find(String id) {
+            Envs.sleepMillis(20);
+            return id + "-" + calls.incrementAndGet();
+        }
+    }
+
+    @Test
+    public void jitter() {
+        assertThat(EarlyExpirations.parseJitter("10%")).isWithin(1e-9).of(0.1);
+        assertThat(EarlyExpirations.parseJitter("0.2")).isWithin(1e-9).of(0.2);
+
+        val option = WestCacheOption.newBuilder().specs("expireAfterWrite=100s;expireJitter=10%").build();
+        long min = Long.MAX_VALUE, max = 0;
+        for (int i = 0; i < 1000; ++i) {
+            val item = new WestCacheItem(Optional.of("x"), option);
+            min = Math.min(min, item.getDurationSeconds());
+            max = Math.max(max, item.getDurationSeconds());
+        }
+        assertThat(min).isAtLeast(90L);
+        assertThat(max).isAtMost(100L);
+        assertThat(max - min).isAtLeast(5L);
+    }
+
+    @Test(expected = WestCacheException.class)
+    public void badJitter() {
+        EarlyExpirations.parseJitter("100%");
+    }
+
+    @Test
+    public void shouldRefresh() {
+        long now = System.currentTimeMillis();
+        assertThat(EarlyExpirations.shouldRefresh(0, 100, 1)).isFalse();
+        assertThat(EarlyExpirations.shouldRefresh(now + 1000, 100, 0)).isFalse();
+        assertThat(EarlyExpirations.shouldRefresh(now - 1, 100, 1)).isTrue();
+        // beyond 10000 times of the cost, almost never
+        assertThat(EarlyExpirations.shouldRefresh(now + 100000, 10, 1)).isFalse();
+    }
+
+    @Test
+    public void refreshEarly() {
+        val service = WestCacheFactory.create(EarlyService.class);
+        assertThat(service.find("a")).isEqualTo("a-1");
+
+        // the huge beta makes the refresh almost certain before the expiry
+        assertThat(service.find("a")).isEqualTo("a-2");
+        assertThat(service.calls.get()).isEqualTo(2);
+    }
+
+    public static class ExpiringEarlyService {
+        AtomicInteger calls = new AtomicInteger();
+
+        @WestCacheable(manager = "expiring", specs = "expireAfterWrite=10s;earlyRefreshBeta=10000000")
+        public String find(String id) {
+            Envs.sleepMillis(20);
+            return id + "-" + calls.incrementAndGet();
+        }
+    }
+
+    @Test
+    public void refreshEarlyExpiring() {
+        val service = WestCacheFactory.create(ExpiringEarlyService.class);
+        assertThat(service.find("a")).isEqualTo("a-1");
+        assertThat(service.find("a")).isEqualTo("a-2");
+    }
+
+    @Test
+    public void fastHitWithoutEarlyRefresh() {
+        val option = WestCacheOption.newBuilder().specs("earlyRefreshBeta=1").build();
+        val manager = new BaseCacheManager(new GuavaCacheManager.GuavaWestCache()) {
+            @Override protected boolean isInProcess() {
+                return true;
+            }
+        };
+        manager.put(option, "early.ignored", new WestCacheItem(Optional.of("v"), option));
+        assertThat(manager.tryHit(option, "early.ignored")).isNotNull();
+    }
+
+    @Test @SneakyThrows
+    public void dropRefreshInvalidated() {
+        val option = WestCacheOption.newBuilder().specs("expireAfterWrite=10s;earlyRefreshBeta=10000000").build();
+        val guava = new GuavaCacheManager.GuavaWestCache();
+        final ExpireAfterWritableWestCacheAdaptor adaptor = new ExpireAfterWritableWestCacheAdaptor(guava);
+        adaptor.get(option, "early.drop", load(option, "v1", null, null));
+
+        val started = new CountDownLatch(1);
+        val release = new CountDownLatch(1);
+        val executor = Executors.newSingleThreadExecutor();
+        val refresh = executor.submit(new Callable<WestCacheItem>() {
+            @Override public WestCacheItem call() throws Exception {
+                return adaptor.get(option, "early.drop", load(option, "v2", started, release));
+            }
+        });
+
+        // invalidated while refreshing, the refreshed one is returned but not put
+        started.await();
+        adaptor.invalidate(option, "early.drop", null);
+        release.countDown();
+
+        assertThat(refresh.get().getObject().orNull()).isEqualTo("v2");
+        assertThat(guava.getIfPresent(option, "early.drop")).isNull();
+        executor.shutdown();
+    }
+
+    private static Callable<WestCacheItem> load(final WestCacheOption option,
+                                                final String value,
+                                                final CountDownLatch started,
+                                                final CountDownLatch release) {
+        return new Callable<WestCacheItem>() {
+            @Override public WestCacheItem call() throws Exception {
+                Envs.sleepMillis(20);
+                if (started != null) started.countDown();
+                if (release != null) release.await();
+                return new WestCacheItem(Optional.of(value), option);
+            }
+        };
+    }
+}
@@ -3,7 +3,6 @@ package com.github.bingoohuang.westcache.utils;
 import lombok.Cleanup;
 import lombok.SneakyThrows;
 import lombok.val;
-import redis.clients.jedis.Jedis;
 import redis.embedded.RedisServer;
 
 import java.net.ServerSocket;
@@ -31,7 +30,7 @@ public class EmbeddedRedis {
         redis1.start();
         redis2.start();
 
-        Redis.setJedis(new Jedis("127.0.0.1", port1));
+        Redis.setJedis(Redis.createJedisCommands("127.0.0.1", port1, 10));
     }
 
     public void stop() {
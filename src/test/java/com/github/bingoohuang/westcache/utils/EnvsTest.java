@@ -1,9 +1,13 @@
 package com.github.bingoohuang.westcache.utils;
 
+import com.github.bingoohuang.westcache.base.WestCacheException;
 import com.google.common.util.concurrent.SettableFuture;
+import lombok.val;
 import org.junit.Test;
 
 import java.io.Closeable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static com.google.common.truth.Truth.assertThat;
 
@@ -45,4 +49,23 @@ public class EnvsTest {
         future.set(new Object());
         Envs.futureGet(future);
     }
+
+    @Test(expected = WestCacheException.class)
+    public void awaitLoadBounded() {
+        Envs.awaitLoad(SettableFuture.create(), "bounded", 10);
+    }
+
+    @Test
+    public void loadsOffSchedulerWorkers() {
+        final AtomicReference<String> thread = new AtomicReference<String>();
+        val future = LoadExecutors.trySubmit(new Callable<String>() {
+            @Override public String call() {
+                thread.set(Thread.currentThread().getName());
+                return "loaded";
+            }
+        });
+
+        assertThat(Envs.futureGet(future)).isEqualTo("loaded");
+        assertThat(thread.get()).startsWith("westcache-loader-");
+    }
 }
@@ -0,0 +1,32 @@
+package com.github.bingoohuang.westcache.utils;
+
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class HotKeyDetectorTest {
+    @Test
+    public void detectHeavyHitters() {
+        HotKeyDetector detector = new HotKeyDetector(2, 100, 100);
+        for (int i = 0; i < 1000; ++i) {
+            detector.record("mall.commonParam");
+            if (i % 2 == 0) detector.record("mall.city");
+            detector.record("search_" + i);
+        }
+        assertThat(detector.getHotKeys()).isEmpty();
+
+        // the hot keys of the last window are used in the next window
+        Envs.sleepMillis(110);
+        assertThat(detector.record("search_0")).isFalse();
+        assertThat(detector.isHot("mall.commonParam")).isTrue();
+        assertThat(detector.getHotKeys()).containsExactly("mall.commonParam", "mall.city");
+
+        // cooled down when not accessed in the window
+        Envs.sleepMillis(110);
+        assertThat(detector.record("search_0")).isFalse();
+        assertThat(detector.getHotKeys()).isEmpty();
+    }
+}
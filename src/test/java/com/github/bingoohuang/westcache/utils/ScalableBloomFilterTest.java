@@ -0,0 +1,29 @@
+package com.github.bingoohuang.westcache.utils;
+
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class ScalableBloomFilterTest {
+    @Test
+    public void scalable() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1000, 0.01);
+        for (int i = 0; i < 20000; ++i) {
+            filter.put("key" + i);
+        }
+        assertThat(filter.getLayerCount()).isGreaterThan(1);
+
+        for (int i = 0; i < 20000; ++i) {
+            assertThat(filter.mightContain("key" + i)).isTrue();
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 20000; ++i) {
+            if (filter.mightContain("other" + i)) ++falsePositives;
+        }
+        assertThat(falsePositives).isLessThan(20000 * 3 / 100);
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.bingoohuang.westcache.utils;
+
+import com.github.bingoohuang.westcache.WestCacheFactory;
+import com.github.bingoohuang.westcache.WestCacheable;
+import com.github.bingoohuang.westcache.base.WestCacheItem;
+import com.github.bingoohuang.westcache.base.WestCacheSnapshot;
+import com.github.bingoohuang.westcache.config.DefaultWestCacheConfig;
+import com.google.common.base.Optional;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static com.github.bingoohuang.westcache.WestCacheRegistry.REGISTRY_TEMPLATE;
+import static com.github.bingoohuang.westcache.WestCacheRegistry.SNAPSHOT_REGISTRY;
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class SnapshotHedgesTest {
+    public static class HedgeService {
+        volatile long loadMillis;
+
+        @WestCacheable(snapshot = "hedgeSnapshot", config = "hedgeConfig", specs = "snapshotHedge=50")
+        public String find(String id) {
+            Envs.sleepMillis(loadMillis);
+            return "fresh";
+        }
+    }
+
+    public static class SlowSnapshot implements WestCacheSnapshot {
+        volatile long readMillis;
+
+        @Override public void saveSnapshot(WestCacheOption option,
+                                           String cacheKey,
+                                           WestCacheItem cacheValue) {
+        }
+
+        @Override public WestCacheItem readSnapshot(WestCacheOption option,
+                                                    String cacheKey) {
+            Envs.sleepMillis(readMillis);
+            return new WestCacheItem(Optional.of("snapshot"), option);
+        }
+
+        @Override public void deleteSnapshot(WestCacheOption option,
+                                             String cacheKey) {
+        }
+    }
+
+    static SlowSnapshot snapshot = new SlowSnapshot();
+    static HedgeService service;
+
+    @BeforeClass
+    public static void beforeClass() {
+        SNAPSHOT_REGISTRY.register("hedgeSnapshot", snapshot);
+        REGISTRY_TEMPLATE.register("hedgeConfig", new DefaultWestCacheConfig() {
+            @Override public long timeoutMillisToSnapshot() {
+                return 500L;
+            }
+        });
+        service = WestCacheFactory.create(HedgeService.class);
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        SNAPSHOT_REGISTRY.deregister("hedgeSnapshot");
+        REGISTRY_TEMPLATE.deregister("hedgeConfig");
+    }
+
+    @Test
+    public void servedByHedgedSnapshot() {
+        service.loadMillis = 2000;
+        snapshot.readMillis = 300;
+
+        long start = System.currentTimeMillis();
+        assertThat(service.find("a")).isEqualTo("snapshot");
+        // not the timeout 500 plus the snapshot reading 300
+        assertThat(System.currentTimeMillis() - start).isLessThan(750L);
+    }
+
+    @Test
+    public void freshValuePreferredInGrace() {
+        service.loadMillis = 300;
+        snapshot.readMillis = 50;
+
+        assertThat(service.find("b")).isEqualTo("fresh");
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.bingoohuang.westcache.utils;
+
+import com.github.bingoohuang.westcache.WestCacheFactory;
+import com.github.bingoohuang.westcache.WestCacheable;
+import com.github.bingoohuang.westcache.metrics.CacheMetrics;
+import com.google.common.collect.Range;
+import lombok.val;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class SnapshotTimeoutsTest {
+    public static class AdaptiveService {
+        volatile boolean slow;
+
+        @WestCacheable(snapshot = "file", specs = "snapshotTimeout=p99x3")
+        public String find(String id) {
+            if (slow) Envs.sleepMillis(800);
+            return "v-" + id;
+        }
+    }
+
+    private static WestCacheOption recordLoads(String specs, int count, long millis) {
+        val option = WestCacheOption.newBuilder().specs(specs).build();
+        recordLoads(option, count, millis);
+        return option;
+    }
+
+    private static void recordLoads(WestCacheOption option, int count, long millis) {
+        val stats = CacheMetrics.getStats(option);
+        for (int i = 0; i < count; ++i) {
+            stats.recordLoadSuccess(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+    }
+
+    @Test
+    public void fixedTimeout() {
+        val option = recordLoads("", 100, 200);
+        assertThat(SnapshotTimeouts.getTimeoutMillis(option)).isEqualTo(1000L);
+    }
+
+    @Test
+    public void adaptiveTimeout() {
+        val option = recordLoads("snapshotTimeout=p99x3", 100, 200);
+        assertThat(SnapshotTimeouts.getTimeoutMillis(option)).isIn(Range.closed(600L, 630L));
+    }
+
+    @Test
+    public void clampedTimeout() {
+        val fast = recordLoads("snapshotTimeout=p99x3", 100, 1);
+        assertThat(SnapshotTimeouts.getTimeoutMillis(fast)).isEqualTo(50L);
+
+        val slow = recordLoads("snapshotTimeout=p99x3", 100, 5000);
+        assertThat(SnapshotTimeouts.getTimeoutMillis(slow)).isEqualTo(10000L);
+    }
+
+    @Test
+    public void adaptToRecentSlowdown() {
+        val option = recordLoads("snapshotTimeout=p99x3", 10000, 1);
+        val timeout = new SnapshotTimeouts.AdaptiveTimeout("p99x3", 2, 50);
+        assertThat(timeout.computeTimeoutMillis(option)).isEqualTo(50L);
+
+        // the fast loads slide out of the window of 2 slots of 50 millis
+        for (int i = 0; i < 3; ++i) {
+            Envs.sleepMillis(60);
+            timeout.computeTimeoutMillis(option);
+        }
+        recordLoads(option, 100, 200);
+        assertThat(timeout.computeTimeoutMillis(option)).isIn(Range.closed(600L, 630L));
+    }
+
+    @Test
+    public void fixedUntilEnoughSamples() {
+        val option = recordLoads("snapshotTimeout=p99x3", 10, 200);
+        assertThat(SnapshotTimeouts.getTimeoutMillis(option)).isEqualTo(1000L);
+    }
+
+    @Test
+    public void fallbackSooner() {
+        final AdaptiveService service = WestCacheFactory.create(AdaptiveService.class);
+        for (int i = 0; i < SnapshotTimeouts.MIN_SAMPLES; ++i) {
+            service.find("warm" + i);
+        }
+        assertThat(service.find("slow")).isEqualTo("v-slow");
+        WestCacheConnector.clearCache(new Runnable() {
+            @Override public void run() {
+                service.find("slow");
+            }
+        });
+
+        Envs.sleepMillis(SnapshotTimeouts.REFRESH_MILLIS + 100);
+        service.slow = true;
+        long start = System.currentTimeMillis();
+        assertThat(service.find("slow")).isEqualTo("v-slow");
+        assertThat(System.currentTimeMillis() - start).isLessThan(500L);
+    }
+}
@@ -0,0 +1,143 @@
+package com.github.bingoohuang.westcache.utils;
+
+import com.github.bingoohuang.westcache.base.WestCacheException;
+import lombok.val;
+import org.joda.time.DateTime;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * @author bingoohuang [bingoohuang@gmail.com] Created on 2017/7/4.
+ */
+public class TimingWheelSchedulerTest {
+    static TimingWheelScheduler scheduler = new TimingWheelScheduler(10, 8, "test");
+
+    @AfterClass
+    public static void afterClass() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void schedule() throws Exception {
+        long start = System.currentTimeMillis();
+        val future = scheduler.schedule(new Callable<String>() {
+            @Override public String call() {
+                return Thread.currentThread().getName();
+            }
+        }, 200, TimeUnit.MILLISECONDS);
+
+        assertThat(future.get()).startsWith("test-worker-");
+        assertThat(System.currentTimeMillis() - start).isAtLeast(190L);
+    }
+
+    @Test
+    public void scheduleBeyondOneRound() throws Exception {
+        long start = System.currentTimeMillis();
+        val future = scheduler.schedule(new Callable<Long>() {
+            @Override public Long call() {
+                return System.currentTimeMillis();
+            }
+        }, 300, TimeUnit.MILLISECONDS);
+
+        assertThat(future.get() - start).isAtLeast(290L);
+    }
+
+    @Test
+    public void fixedRateAndCancel() {
+        val count = new AtomicInteger();
+        val future = scheduler.scheduleAtFixedRate(new Runnable() {
+            @Override public void run() {
+                count.incrementAndGet();
+            }
+        }, 50, 50, TimeUnit.MILLISECONDS);
+
+        Envs.sleepMillis(500);
+        future.cancel(false);
+        int fired = count.get();
+        assertThat(fired).isAtLeast(5);
+
+        Envs.sleepMillis(200);
+        assertThat(count.get()).isAtMost(fired + 1);
+    }
+
+    @Test
+    public void scheduleEvery() throws InterruptedException {
+        val first = new CountDownLatch(1);
+        val latch = new CountDownLatch(2);
+        val future = scheduler.schedule(new Runnable() {
+            @Override public void run() {
+                first.countDown();
+                latch.countDown();
+            }
+        }, Schedules.parse("Every 1 second"));
+
+        // the first fire happens immediately like quartz
+        assertThat(first.await(500, TimeUnit.MILLISECONDS)).isTrue();
+        assertThat(latch.await(3, TimeUnit.SECONDS)).isTrue();
+        future.cancel(false);
+    }
+
+    @Test
+    public void saturatedWorkers() throws Exception {
+        val saturated = new TimingWheelScheduler(10, 8, "saturated", 1, 1);
+        val blocker = new CountDownLatch(1);
+        val blocking = new Runnable() {
+            @Override public void run() {
+                try {
+                    blocker.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        saturated.execute(blocking);
+        saturated.execute(blocking);
+
+        val threadName = new String[1];
+        saturated.execute(new Runnable() {
+            @Override public void run() {
+                threadName[0] = Thread.currentThread().getName();
+            }
+        });
+        assertThat(threadName[0]).isEqualTo(Thread.currentThread().getName());
+
+        blocker.countDown();
+        saturated.shutdownNow();
+    }
+
+    @Test
+    public void parseSchedules() {
+        long now = new DateTime(2017, 7, 4, 10, 30, 0).getMillis();
+
+        assertThat(Schedules.parse("Every 30 minutes").nextFireTime(now))
+                .isEqualTo(now + TimeUnit.MINUTES.toMillis(30));
+        assertThat(Schedules.firstFireTime(Schedules.parse("Every 30 minutes"), now))
+                .isEqualTo(now);
+        assertThat(Schedules.firstFireTime(Schedules.parse("At 03:00"), now))
+                .isEqualTo(new DateTime(2017, 7, 5, 3, 0, 0).getMillis());
+        assertThat(Schedules.parse("At 03:00").nextFireTime(now))
+                .isEqualTo(new DateTime(2017, 7, 5, 3, 0, 0).getMillis());
+        assertThat(Schedules.parse("At ??:40").nextFireTime(now))
+                .isEqualTo(new DateTime(2017, 7, 4, 10, 40, 0).getMillis());
+        assertThat(Schedules.parse("0 20 * * * ?").nextFireTime(now))
+                .isEqualTo(new DateTime(2017, 7, 4, 11, 20, 0).getMillis());
+
+        val bounded = Schedules.parse("At 03:00 from 2017-07-10 to 2017-07-11");
+        assertThat(bounded.nextFireTime(now))
+                .isEqualTo(new DateTime(2017, 7, 10, 3, 0, 0).getMillis());
+        long last = new DateTime(2017, 7, 11, 3, 0, 0).getMillis();
+        assertThat(bounded.nextFireTime(last)).isEqualTo(-1L);
+    }
+
+    @Test(expected = WestCacheException.class)
+    public void parseBadFromTo() {
+        Schedules.parse("Every 1 second from 2017-07-10 to 2017-07-01");
+    }
+}